@@ -0,0 +1,203 @@
+package com.sas.example.demo.benchmark;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares write throughput and latency of the pessimistic and optimistic locking modes under contention.
+ *
+ * For every mode and number of writers, the writers repeatedly read one of a few hot mappings, change its value and
+ * save it for a fixed time. In optimistic mode, a write that loses the race is retried from the read; its latency
+ * includes all retries. Arguments are given as name=value:
+ * <ul>
+ *     <li>modes, comma separated locking modes. Default pessimistic,optimistic</li>
+ *     <li>writers, comma separated numbers of concurrent writers. Default 1,2,4,8,16,32,64</li>
+ *     <li>rows, number of hot mappings shared by all writers. Default 4</li>
+ *     <li>warmup, seconds to run before measuring. Default 5</li>
+ *     <li>duration, seconds to measure. Default 10</li>
+ * </ul>
+ */
+public class LockingContentionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        options.put("modes", "pessimistic,optimistic");
+        options.put("writers", "1,2,4,8,16,32,64");
+        options.put("rows", "4");
+        options.put("warmup", "5");
+        options.put("duration", "10");
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+
+        int rows = Integer.parseInt(options.get("rows"));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+
+        System.out.printf("%-12s %8s %12s %10s %10s %10s %10s %10s%n",
+                "mode", "writers", "writes/s", "p50 ms", "p99 ms", "max ms", "retries", "failures");
+        for (String mode : options.get("modes").split(",")) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                MappingRepository repository = context.getBean(MappingRepository.class);
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < rows; i++) {
+                    ids.add(repository.save(new Mapping("hot" + i, "0")).getId());
+                }
+                for (String writers : options.get("writers").split(",")) {
+                    int threads = Integer.parseInt(writers);
+                    run(repository, ids, threads, warmup);
+                    Result result = run(repository, ids, threads, duration);
+                    System.out.printf("%-12s %8d %12.0f %10.3f %10.3f %10.3f %10d %10d%n",
+                            mode, threads, result.throughput(duration), result.percentile(0.50),
+                            result.percentile(0.99), result.percentile(1.0), result.retries, result.failures);
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        // Passed as arguments, default properties would not override application.properties
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(false)
+                .run(
+                        "--mapping.locking.mode=" + mode,
+                        // Writers queue on row locks in pessimistic mode. Do not fail them after H2's default of 1s
+                        "--spring.datasource.url=jdbc:h2:mem:contention-" + mode + ";LOCK_TIMEOUT=60000;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.tomcat.max-active=100",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        // Lost optimistic races are counted as retries, not logged
+                        "--logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF");
+    }
+
+    private static Result run(MappingRepository repository, List<Long> ids, int threads, long duration)
+            throws InterruptedException {
+        Writer[] writers = new Writer[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            writers[i] = new Writer(repository, ids, start);
+            writers[i].start();
+        }
+        long deadline = System.nanoTime() + duration;
+        for (Writer writer : writers) {
+            writer.deadline = deadline;
+        }
+        start.countDown();
+
+        Result result = new Result();
+        for (Writer writer : writers) {
+            writer.join();
+            result.add(writer);
+        }
+        Arrays.sort(result.latencies, 0, result.count);
+        return result;
+    }
+
+    private static class Writer extends Thread {
+        private final MappingRepository repository;
+        private final List<Long> ids;
+        private final CountDownLatch start;
+        private volatile long deadline;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long retries;
+        private long failures;
+
+        Writer(MappingRepository repository, List<Long> ids, CountDownLatch start) {
+            this.repository = repository;
+            this.ids = ids;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                long id = ids.get(random.nextInt(ids.size()));
+                long begin = System.nanoTime();
+                try {
+                    write(id, String.valueOf(random.nextLong()));
+                }
+                catch (RuntimeException ex) {
+                    failures++;
+                    continue;
+                }
+                record(System.nanoTime() - begin);
+            }
+        }
+
+        private void write(long id, String value) {
+            while (true) {
+                Mapping mapping = repository.findOne(id);
+                mapping.setValue(value);
+                try {
+                    repository.save(mapping);
+                    return;
+                }
+                catch (OptimisticLockingFailureException ex) {
+                    retries++;
+                }
+            }
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    private static class Result {
+        private long[] latencies = new long[0];
+        private int count;
+        private long retries;
+        private long failures;
+
+        void add(Writer writer) {
+            latencies = Arrays.copyOf(latencies, count + writer.count);
+            System.arraycopy(writer.latencies, 0, latencies, count, writer.count);
+            count += writer.count;
+            retries += writer.retries;
+            failures += writer.failures;
+        }
+
+        double throughput(long duration) {
+            return count / (duration / 1e9);
+        }
+
+        /** @return latency in milliseconds at the given quantile, 0 if nothing was written */
+        double percentile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * count) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.sas.example.demo.benchmark;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the write throughput of the sharded engine for several numbers of shards.
+ *
+ * For every engine of the shards and number of shards, the writers repeatedly update the value of a mapping chosen
+ * uniformly among all keys, for a fixed time. One shard is the engine on its own, plus the routing. Arguments are given
+ * as name=value:
+ * <ul>
+ *     <li>engines, comma separated engines of the shards. Default offheap,log</li>
+ *     <li>shards, comma separated numbers of shards. Default 1,2,4,8</li>
+ *     <li>writers, number of concurrent writers. Default 16</li>
+ *     <li>keys, number of mappings the writers update. Default 100000</li>
+ *     <li>warmup, seconds to run before measuring. Default 5</li>
+ *     <li>duration, seconds to measure. Default 10</li>
+ * </ul>
+ * The log engine syncs every write, and each of its shards syncs its own log, so its numbers depend mostly on the disk.
+ */
+public class ShardingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        options.put("engines", "offheap,log");
+        options.put("shards", "1,2,4,8");
+        options.put("writers", "16");
+        options.put("keys", "100000");
+        options.put("warmup", "5");
+        options.put("duration", "10");
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+
+        int writers = Integer.parseInt(options.get("writers"));
+        int keys = Integer.parseInt(options.get("keys"));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+
+        System.out.printf("%-10s %8s %8s %12s%n", "engine", "shards", "writers", "writes/s");
+        for (String engine : options.get("engines").split(",")) {
+            for (String shards : options.get("shards").split(",")) {
+                Path directory = Files.createTempDirectory("sharding-benchmark");
+                try (ConfigurableApplicationContext context = start(engine, Integer.parseInt(shards), directory)) {
+                    MappingRepository repository = context.getBean(MappingRepository.class);
+                    for (int i = 0; i < keys; i++) {
+                        repository.save(new Mapping("key-" + i, "0"));
+                    }
+                    run(repository, keys, writers, warmup);
+                    long writes = run(repository, keys, writers, duration);
+                    System.out.printf("%-10s %8s %8d %12.0f%n", engine, shards, writers, writes / (duration / 1e9));
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String engine, int shards, Path directory) {
+        // Passed as arguments, default properties would not override application.properties
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(false)
+                .run(
+                        "--mapping.storage.engine=sharded",
+                        "--mapping.storage.shards.engine=" + engine,
+                        "--mapping.storage.shards.count=" + shards,
+                        "--mapping.storage.log.directory=" + directory,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * @return number of writes done before the time was up
+     */
+    private static long run(MappingRepository repository, int keys, int threads, long duration)
+            throws InterruptedException {
+        LongAdder writes = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + duration;
+        Thread[] writers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            writers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException ex) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Mapping mapping = repository.findByKey("key-" + random.nextInt(keys));
+                    mapping.setValue(String.valueOf(random.nextLong()));
+                    repository.save(mapping);
+                    writes.increment();
+                }
+            });
+            writers[i].start();
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        return writes.sum();
+    }
+
+}
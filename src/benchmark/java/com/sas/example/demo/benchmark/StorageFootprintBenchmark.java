@@ -0,0 +1,123 @@
+package com.sas.example.demo.benchmark;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import com.sas.example.demo.storage.OffHeapMappingStore;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the memory taken per mapping by the storage engines.
+ *
+ * For every engine, the benchmark loads mappings with random keys and values through batch inserts, and reports the
+ * growth of the heap after a full garbage collection, the direct memory taken by records of the off-heap engine, and
+ * the garbage collections the load caused. Arguments are given as name=value:
+ * <ul>
+ *     <li>engines, comma separated storage engines. Default jpa,memory,offheap</li>
+ *     <li>count, number of mappings to load. Default 200000</li>
+ *     <li>keyLength, characters per key. Default 32</li>
+ *     <li>valueLength, characters per value. Default 64</li>
+ * </ul>
+ * Run with a fixed heap, e.g. -Xms2g -Xmx2g, so that heap sizing does not blur the numbers.
+ */
+public class StorageFootprintBenchmark {
+
+    private static final int BATCH_SIZE = 10000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        options.put("engines", "jpa,memory,offheap");
+        options.put("count", "200000");
+        options.put("keyLength", "32");
+        options.put("valueLength", "64");
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+
+        int count = Integer.parseInt(options.get("count"));
+        int keyLength = Integer.parseInt(options.get("keyLength"));
+        int valueLength = Integer.parseInt(options.get("valueLength"));
+
+        System.out.printf("%-10s %10s %14s %14s %14s %8s %10s%n",
+                "engine", "mappings", "heap B/entry", "direct B/entry", "total B/entry", "GCs", "GC ms");
+        for (String engine : options.get("engines").split(",")) {
+            try (ConfigurableApplicationContext context = start(engine)) {
+                MappingBatchRepository batchRepository = context.getBean(MappingBatchRepository.class);
+                long heapBefore = usedHeap();
+                long[] gcBefore = collections();
+
+                for (int loaded = 0; loaded < count; loaded += BATCH_SIZE) {
+                    List<Mapping> batch = new ArrayList<>();
+                    for (int i = loaded; i < Math.min(count, loaded + BATCH_SIZE); i++) {
+                        // Prefixed with the number, so that keys never collide
+                        batch.add(new Mapping(random(i + "-", keyLength), random("", valueLength)));
+                    }
+                    batchRepository.insert(batch);
+                }
+
+                long[] gcAfter = collections();
+                long heap = usedHeap() - heapBefore;
+                long direct = context.getBeansOfType(OffHeapMappingStore.class).values().stream()
+                        .mapToLong(OffHeapMappingStore::getRecordBytes)
+                        .sum();
+                System.out.printf("%-10s %10d %14.1f %14.1f %14.1f %8d %10d%n",
+                        engine, count, (double) heap / count, (double) direct / count,
+                        (double) (heap + direct) / count, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String engine) {
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .web(false)
+                .run(
+                        "--mapping.storage.engine=" + engine,
+                        "--spring.datasource.url=jdbc:h2:mem:footprint-" + engine + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--mapping.batch.max-size=" + BATCH_SIZE,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+    }
+
+    private static String random(String prefix, int length) {
+        StringBuilder s = new StringBuilder(prefix);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (s.length() < length) {
+            s.append((char) ('a' + random.nextInt(26)));
+        }
+        return s.toString();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return number of garbage collections so far, and the milliseconds they took
+     */
+    private static long[] collections() {
+        long[] collections = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections[0] += Math.max(0, collector.getCollectionCount());
+            collections[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return collections;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.sas.example.demo.benchmark.jmh;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application for a JMH benchmark, and fills it with mappings key-0 = value-0 up to the size of the
+ * dataset
+ */
+final class BenchmarkApplication {
+
+    private static final int BATCH_SIZE = 10000;
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param engine, storage engine to use
+     * @param web, whether to start the web interface, on a random port
+     * @param size, number of mappings to insert
+     */
+    static ConfigurableApplicationContext start(String engine, boolean web, int size) {
+        // Passed as arguments, default properties would not override application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(web)
+                .run(
+                        "--mapping.storage.engine=" + engine,
+                        // A directory of its own for the log engine, left behind in build
+                        "--mapping.storage.log.directory=build/benchmark-log-${random.uuid}",
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        MappingBatchRepository batchRepository = context.getBean(MappingBatchRepository.class);
+        for (int inserted = 0; inserted < size; inserted += BATCH_SIZE) {
+            List<Mapping> batch = new ArrayList<>();
+            for (int i = inserted; i < Math.min(size, inserted + BATCH_SIZE); i++) {
+                batch.add(new Mapping(key(i), value(i)));
+            }
+            batchRepository.insert(batch);
+        }
+        return context;
+    }
+
+    static String key(int i) {
+        return "key-" + i;
+    }
+
+    static String value(int i) {
+        return "value-" + i;
+    }
+
+}
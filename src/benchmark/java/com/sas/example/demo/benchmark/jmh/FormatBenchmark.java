@@ -0,0 +1,128 @@
+package com.sas.example.demo.benchmark.jmh;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sas.example.demo.Mapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of the response formats for a page of 1000 mappings: render encodes the page like the message converters
+ * do, parse decodes it like a client would, with and without gzip as applied by server.compression. The encoded size
+ * of the page, the bytes on the wire, is printed at setup.
+ */
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"none", "gzip"})
+    public String compression;
+
+    @Param({"16", "1024"})
+    public int valueLength;
+
+    private ConfigurableApplicationContext context;
+
+    private ObjectMapper halObjectMapper;
+
+    private JsonFactory factory;
+
+    // Reads the format back, as a client without the HAL modules would
+    private ObjectMapper clientMapper;
+
+    private PagedResources<Resource<Mapping>> page;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        context = BenchmarkApplication.start("memory", true, 0);
+        halObjectMapper = context.getBean("halObjectMapper", ObjectMapper.class);
+        switch (format) {
+            case "json":
+                factory = new JsonFactory();
+                break;
+            case "cbor":
+                factory = new CBORFactory();
+                break;
+            case "smile":
+                factory = new SmileFactory();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        clientMapper = new ObjectMapper(factory);
+
+        // Values of random letters and spaces, like text
+        Random random = new Random(42);
+        List<Resource<Mapping>> content = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            char[] value = new char[valueLength];
+            for (int c = 0; c < value.length; c++) {
+                value[c] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+            }
+            Mapping mapping = new Mapping(BenchmarkApplication.key(i), new String(value));
+            mapping.setId(i + 1);
+            content.add(new Resource<>(mapping, new Link("http://localhost/mappings/" + mapping.getId()),
+                    new Link("http://localhost/mappings/" + mapping.getId(), "mapping")));
+        }
+        page = new PagedResources<>(content, new PagedResources.PageMetadata(PAGE_SIZE, 0, PAGE_SIZE * 10, 10),
+                new Link("http://localhost/mappings{?page,size,sort}"));
+
+        encoded = render();
+        System.out.println("Page of " + format + ", " + compression + ": " + encoded.length + " bytes");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] render() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compression.equals("gzip") ? new GZIPOutputStream(bytes) : bytes;
+             JsonGenerator generator = factory.createGenerator(out)) {
+            halObjectMapper.writeValue(generator, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public JsonNode parse() throws IOException {
+        try (InputStream in = compression.equals("gzip") ? new GZIPInputStream(new ByteArrayInputStream(encoded))
+                : new ByteArrayInputStream(encoded)) {
+            return clientMapper.readTree(in);
+        }
+    }
+
+}
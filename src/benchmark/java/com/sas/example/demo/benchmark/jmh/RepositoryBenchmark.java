@@ -0,0 +1,97 @@
+package com.sas.example.demo.benchmark.jmh;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Repository hot paths, for every storage engine and dataset size. Lookups and updates pick a random mapping of the
+ * dataset, so that caches do not get an unfair advantage; updates keep the size of the dataset constant.
+ */
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"jpa", "memory", "offheap"})
+    public String engine;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+
+    private MappingRepository repository;
+
+    // Mappings read before each iteration, to be updated by the save benchmarks
+    private List<Mapping> mappings;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(engine, false, size);
+        repository = context.getBean(MappingRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void load() {
+        mappings = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            mappings.add(repository.findByKey(BenchmarkApplication.key(random(size))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Mapping findByKey() {
+        return repository.findByKey(BenchmarkApplication.key(random(size)));
+    }
+
+    @Benchmark
+    public Mapping findByValue() {
+        return repository.findByValue(BenchmarkApplication.value(random(size)));
+    }
+
+    @Benchmark
+    public Mapping save() {
+        Mapping mapping = mappings.get(random(BATCH_SIZE));
+        mapping.setValue(BenchmarkApplication.value(random(size)));
+        return repository.save(mapping);
+    }
+
+    @Benchmark
+    public Iterable<Mapping> saveBatch() {
+        for (Mapping mapping : mappings) {
+            mapping.setValue(BenchmarkApplication.value(random(size)));
+        }
+        return repository.save(mappings);
+    }
+
+    @Benchmark
+    public Page<Mapping> findAllPage() {
+        return repository.findAll(new PageRequest(random(size / PAGE_SIZE), PAGE_SIZE));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.sas.example.demo.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * REST hot paths. The request benchmarks go through the whole Spring MVC and Spring Data REST stack, without the
+ * network; getValue reads the same mapping as getMappingByKey through the raw /kv endpoint instead. The NotModified
+ * benchmarks send the entity tag of the previous response back, as a polling client would. The render benchmarks
+ * only serialize a mapping and a page of mappings with the HAL object mapper.
+ */
+@State(Scope.Benchmark)
+public class RestBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"jpa"})
+    public String engine;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mvc;
+
+    private ObjectMapper halObjectMapper;
+
+    private long[] ids;
+
+    // Entity tag per mapping, and of the first page
+    private String[] etags;
+    private String pageEtag;
+
+    private Resource<Mapping> resource;
+
+    private PagedResources<Resource<Mapping>> page;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start(engine, true, size);
+        mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        halObjectMapper = context.getBean("halObjectMapper", ObjectMapper.class);
+
+        MappingRepository repository = context.getBean(MappingRepository.class);
+        ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = repository.findByKey(BenchmarkApplication.key(i)).getId();
+        }
+
+        etags = new String[size];
+        for (int i = 0; i < size; i++) {
+            etags[i] = "\"" + repository.findOne(ids[i]).getVersion() + "\"";
+        }
+
+        Page<Mapping> mappings = repository.findAll(new PageRequest(0, PAGE_SIZE));
+        List<Resource<Mapping>> content = mappings.getContent().stream()
+                .map(RestBenchmark::resource)
+                .collect(Collectors.toList());
+        resource = content.get(0);
+        page = new PagedResources<>(content, new PagedResources.PageMetadata(PAGE_SIZE, 0,
+                mappings.getTotalElements(), mappings.getTotalPages()),
+                new Link("http://localhost/mappings{?page,size,sort}"));
+    }
+
+    @Setup(Level.Iteration)
+    public void tagPage() throws Exception {
+        pageEtag = mvc.perform(get("/mappings")
+                .param("page", "0")
+                .param("size", String.valueOf(PAGE_SIZE))
+                .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] getMapping() throws Exception {
+        return mvc.perform(get("/mappings/{id}", ids[random(size)]).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] getMappingByKey() throws Exception {
+        return mvc.perform(get("/mappings/search/findByKey")
+                .param("key", BenchmarkApplication.key(random(size)))
+                .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] getValue() throws Exception {
+        // The /kv endpoints answer asynchronously, from the read executor
+        MvcResult result = mvc.perform(get("/kv/{key}", BenchmarkApplication.key(random(size)))).andReturn();
+        return mvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] getPage() throws Exception {
+        return mvc.perform(get("/mappings")
+                .param("page", String.valueOf(random(size / PAGE_SIZE)))
+                .param("size", String.valueOf(PAGE_SIZE))
+                .accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Benchmark
+    public int getMappingNotModified() throws Exception {
+        int i = random(size);
+        return mvc.perform(get("/mappings/{id}", ids[i]).accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, etags[i]))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int getPageNotModified() throws Exception {
+        return mvc.perform(get("/mappings")
+                .param("page", "0")
+                .param("size", String.valueOf(PAGE_SIZE))
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, pageEtag))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public byte[] renderMapping() throws Exception {
+        return halObjectMapper.writeValueAsBytes(resource);
+    }
+
+    @Benchmark
+    public byte[] renderPage() throws Exception {
+        return halObjectMapper.writeValueAsBytes(page);
+    }
+
+    private static Resource<Mapping> resource(Mapping mapping) {
+        return new Resource<>(mapping, new Link("http://localhost/mappings/" + mapping.getId()),
+                new Link("http://localhost/mappings/" + mapping.getId(), "mapping"));
+    }
+
+    private static int random(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.sas.example.demo.benchmark.load;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks one of n keys, either uniformly or following a Zipf distribution, where the k-th most popular key is picked
+ * with a probability proportional to 1 / k^skew. Popularity ranks are shuffled over the keys, so that hot keys are not
+ * neighbours in key or id order.
+ */
+final class KeyDistribution {
+
+    // Cumulative probability per rank. Null for a uniform distribution
+    private final double[] cumulative;
+
+    // Key per rank
+    private final int[] keys;
+
+    private KeyDistribution(double[] cumulative, int n) {
+        this.cumulative = cumulative;
+        this.keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        // Fixed seed, so that runs against the same dataset have the same hot keys
+        Random random = new Random(n);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    static KeyDistribution uniform(int n) {
+        return new KeyDistribution(null, n);
+    }
+
+    static KeyDistribution zipf(int n, double skew) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return new KeyDistribution(cumulative, n);
+    }
+
+    /**
+     * @return index of the next key, from 0 to n - 1
+     */
+    int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (cumulative == null) {
+            return random.nextInt(keys.length);
+        }
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        // Not found gives -(insertion point) - 1, the insertion point being the first rank above
+        return keys[Math.min(rank < 0 ? -rank - 1 : rank, keys.length - 1)];
+    }
+
+}
@@ -0,0 +1,478 @@
+package com.sas.example.demo.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates load against a running service and reports latency percentiles per operation.
+ *
+ * Before the run, the keys load-0 up to load-(keys - 1) are created through {@code POST /mappings/batch} unless they
+ * exist, and their ids are read from {@code GET /mappings/export}. Every request then picks an operation from the mix
+ * and a key from the distribution:
+ * <ul>
+ *     <li>read, {@code GET /mappings/{id}}</li>
+ *     <li>write, {@code PUT /mappings/{id}} with a new random value</li>
+ *     <li>search, {@code GET /mappings/search/findByKey?key=}</li>
+ * </ul>
+ * With api=kv, reads and writes go to {@code GET /kv/{key}} and {@code PUT /kv/{key}} instead, which run on the
+ * bounded executors of the service.
+ *
+ * In closed mode, a fixed number of clients send their next request as soon as the previous one is answered. In open
+ * mode, requests are started at a fixed rate whether or not earlier ones were answered, as real users would.
+ *
+ * A stalled server holds back the requests a closed-loop client would have sent meanwhile, so the latency they would
+ * have seen is never measured (coordinated omission). Corrected latencies account for it: in open mode they are taken
+ * from the time a request was due rather than sent; in closed mode the missing samples are filled in by HdrHistogram,
+ * taking the median latency of the warmup as the expected interval between requests. Service latencies are taken
+ * from the time a request was sent, without correction.
+ *
+ * Arguments are given as name=value:
+ * <ul>
+ *     <li>url, base URL of the service. Default http://localhost:8080</li>
+ *     <li>api, rest or kv. Default rest</li>
+ *     <li>mode, closed or open. Default closed</li>
+ *     <li>clients, number of concurrent clients in closed mode. Default 16</li>
+ *     <li>rate, requests per second in open mode. Default 1000</li>
+ *     <li>connections, maximum number of requests in flight in open mode. Default 64</li>
+ *     <li>mix, weights of the operations. Default read:80,write:15,search:5</li>
+ *     <li>keys, number of keys. Default 10000</li>
+ *     <li>distribution, zipf or uniform. Default zipf</li>
+ *     <li>skew, exponent of the Zipf distribution. Default 0.99</li>
+ *     <li>valueLength, characters per written value. Default 64</li>
+ *     <li>warmup, seconds to run before measuring. Default 5</li>
+ *     <li>duration, seconds to measure. 0 only creates the keys. Default 30</li>
+ *     <li>out, file to write the results to, as JSON. Default build/reports/load/results.json</li>
+ * </ul>
+ */
+public class LoadGenerator {
+
+    private static final String KEY_PREFIX = "load-";
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Latencies are recorded in microseconds, up to a minute
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    enum Operation {
+        READ, WRITE, SEARCH
+    }
+
+    private final Map<String, String> options;
+
+    private final String url;
+
+    private final boolean kv;
+
+    private final Operation[] mix;
+
+    private final KeyDistribution distribution;
+
+    private final int valueLength;
+
+    // Id per key
+    private long[] ids;
+
+    // Per thread, a recorder of every operation
+    private final List<Recorder[]> recorders = new ArrayList<>();
+    private final ThreadLocal<Recorder[]> recorder = ThreadLocal.withInitial(this::newRecorders);
+
+    // Nanotime from which requests are measured, after the warmup
+    private long measured;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("url", "http://localhost:8080");
+        options.put("api", "rest");
+        options.put("mode", "closed");
+        options.put("clients", "16");
+        options.put("rate", "1000");
+        options.put("connections", "64");
+        options.put("mix", "read:80,write:15,search:5");
+        options.put("keys", "10000");
+        options.put("distribution", "zipf");
+        options.put("skew", "0.99");
+        options.put("valueLength", "64");
+        options.put("warmup", "5");
+        options.put("duration", "30");
+        options.put("out", "build/reports/load/results.json");
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !options.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+            options.put(option[0], option[1]);
+        }
+        new LoadGenerator(options).run();
+    }
+
+    LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.url = options.get("url").replaceAll("/$", "");
+        this.kv = options.get("api").equals("kv");
+        this.mix = mix(options.get("mix"));
+        int keys = Integer.parseInt(options.get("keys"));
+        this.distribution = options.get("distribution").equals("uniform") ? KeyDistribution.uniform(keys)
+                : KeyDistribution.zipf(keys, Double.parseDouble(options.get("skew")));
+        this.valueLength = Integer.parseInt(options.get("valueLength"));
+    }
+
+    void run() throws Exception {
+        boolean open = options.get("mode").equals("open");
+        int threads = Integer.parseInt(options.get(open ? "connections" : "clients"));
+        // Keep a connection per thread alive, the default is 5
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+
+        seed(Integer.parseInt(options.get("keys")));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+        if (duration == 0) {
+            return;
+        }
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+
+        long start = System.nanoTime();
+        measured = start + warmup;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        if (open) {
+            runOpen(executor, Double.parseDouble(options.get("rate")), start, start + warmup + duration);
+        }
+        else {
+            runClosed(executor, threads, start + warmup + duration);
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        report(open, TimeUnit.NANOSECONDS.toSeconds(duration));
+    }
+
+    private void runClosed(ExecutorService executor, int clients, long end) {
+        for (int i = 0; i < clients; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < end) {
+                    long sent = System.nanoTime();
+                    Operation operation = execute();
+                    record(operation, sent, sent);
+                }
+            });
+        }
+    }
+
+    private void runOpen(ExecutorService executor, double rate, long start, long end) {
+        double interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * interval);
+            if (due >= end) {
+                return;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Queued requests keep their due time, so the time waiting for a connection counts as latency
+            executor.execute(() -> {
+                long sent = System.nanoTime();
+                Operation operation = execute();
+                record(operation, due, sent);
+            });
+        }
+    }
+
+    /**
+     * Send one request of the mix
+     *
+     * @return operation sent
+     */
+    private Operation execute() {
+        Operation operation = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+        int key = distribution.next();
+        try {
+            int status;
+            switch (operation) {
+                case READ:
+                    status = kv ? request("GET", "/kv/" + KEY_PREFIX + key, null, "text/plain")
+                            : request("GET", "/mappings/" + ids[key], null);
+                    break;
+                case WRITE:
+                    status = kv ? request("PUT", "/kv/" + KEY_PREFIX + key, value(), "text/plain")
+                            : request("PUT", "/mappings/" + ids[key], body(key));
+                    break;
+                default:
+                    status = request("GET", "/mappings/search/findByKey?key="
+                            + URLEncoder.encode(KEY_PREFIX + key, "UTF-8"), null);
+            }
+            if (status / 100 != 2) {
+                recorder.get()[operation.ordinal()].errors++;
+            }
+        }
+        catch (IOException ex) {
+            recorder.get()[operation.ordinal()].errors++;
+        }
+        return operation;
+    }
+
+    private void record(Operation operation, long due, long sent) {
+        long now = System.nanoTime();
+        // Requests due during the warmup are left out, even when answered after it
+        if (due >= measured) {
+            Recorder recorder = this.recorder.get()[operation.ordinal()];
+            recorder.corrected.recordValue(Math.min(MAX_LATENCY, TimeUnit.NANOSECONDS.toMicros(now - due)));
+            recorder.service.recordValue(Math.min(MAX_LATENCY, TimeUnit.NANOSECONDS.toMicros(now - sent)));
+        }
+    }
+
+    private void report(boolean open, long seconds) throws IOException {
+        Histogram total = newHistogram();
+        Map<Operation, Recorder> results = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Recorder result = new Recorder();
+            synchronized (recorders) {
+                for (Recorder[] thread : recorders) {
+                    result.add(thread[operation.ordinal()]);
+                }
+            }
+            if (!open) {
+                // Closed-loop clients would have sent a request every median latency, had the server not stalled
+                long expected = result.service.getValueAtPercentile(50);
+                result.corrected = result.service.copyCorrectedForCoordinatedOmission(Math.max(1, expected));
+            }
+            total.add(result.corrected);
+            results.put(operation, result);
+        }
+
+        System.out.printf("%-8s %10s %10s %8s %10s %10s %10s %10s %10s %12s%n", "", "requests", "per s", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "service p99");
+        ObjectNode json = mapper.createObjectNode();
+        json.put("timestamp", Instant.now().toString());
+        json.set("options", mapper.valueToTree(options));
+        ObjectNode operations = json.putObject("operations");
+        for (Map.Entry<Operation, Recorder> result : results.entrySet()) {
+            Recorder recorder = result.getValue();
+            if (recorder.service.getTotalCount() == 0) {
+                continue;
+            }
+            print(result.getKey().name().toLowerCase(), recorder.service.getTotalCount(), recorder.errors, seconds,
+                    recorder.corrected, recorder.service);
+            ObjectNode operation = operations.putObject(result.getKey().name().toLowerCase());
+            operation.put("requests", recorder.service.getTotalCount());
+            operation.put("errors", recorder.errors);
+            operation.put("throughput", (double) recorder.service.getTotalCount() / seconds);
+            operation.set("correctedMillis", percentiles(recorder.corrected));
+            operation.set("serviceMillis", percentiles(recorder.service));
+        }
+        long requests = results.values().stream().mapToLong(result -> result.service.getTotalCount()).sum();
+        long errors = results.values().stream().mapToLong(result -> result.errors).sum();
+        print("total", requests, errors, seconds, total, null);
+        ObjectNode summary = json.putObject("total");
+        summary.put("requests", requests);
+        summary.put("errors", errors);
+        summary.put("throughput", (double) requests / seconds);
+        summary.set("correctedMillis", percentiles(total));
+
+        File out = new File(options.get("out"));
+        if (out.getAbsoluteFile().getParentFile() != null) {
+            out.getAbsoluteFile().getParentFile().mkdirs();
+        }
+        mapper.writeValue(out, json);
+        System.out.println("Results written to " + out);
+    }
+
+    private static void print(String name, long requests, long errors, long seconds, Histogram corrected,
+                              Histogram service) {
+        System.out.printf("%-8s %10d %10.0f %8d %10.3f %10.3f %10.3f %10.3f %10.3f %12s%n", name, requests,
+                (double) requests / seconds, errors, millis(corrected, 50), millis(corrected, 90),
+                millis(corrected, 99), millis(corrected, 99.9), corrected.getMaxValue() / 1000.0,
+                service == null ? "" : String.format("%.3f", millis(service, 99)));
+    }
+
+    private static JsonNode percentiles(Histogram histogram) {
+        ObjectNode percentiles = mapper.createObjectNode();
+        for (double percentile : PERCENTILES) {
+            percentiles.put("p" + (percentile == (long) percentile ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile)), millis(histogram, percentile));
+        }
+        percentiles.put("max", histogram.getMaxValue() / 1000.0);
+        percentiles.put("mean", histogram.getMean() / 1000.0);
+        return percentiles;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Create the keys that do not exist yet, then read the ids of all keys
+     */
+    private void seed(int keys) throws IOException {
+        for (int first = 0; first < keys; first += BATCH_SIZE) {
+            StringBuilder batch = new StringBuilder("[");
+            for (int key = first; key < Math.min(keys, first + BATCH_SIZE); key++) {
+                batch.append(key > first ? "," : "").append(body(key));
+            }
+            // Keys that exist already come back as conflicts
+            int status = request("POST", "/mappings/batch", batch.append(']').toString());
+            if (status != 200) {
+                throw new IOException("Creating keys failed with status " + status);
+            }
+        }
+
+        ids = new long[keys];
+        Arrays.fill(ids, -1);
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + "/mappings/export").openConnection();
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                JsonNode mapping = mapper.readTree(line);
+                String key = mapping.get("key").asText();
+                if (key.startsWith(KEY_PREFIX)) {
+                    try {
+                        int index = Integer.parseInt(key.substring(KEY_PREFIX.length()));
+                        if (index < keys) {
+                            ids[index] = mapping.get("id").asLong();
+                        }
+                    }
+                    catch (NumberFormatException ex) {
+                        // not one of ours
+                    }
+                }
+            }
+        }
+        for (int key = 0; key < keys; key++) {
+            if (ids[key] < 0) {
+                throw new IOException("Key " + KEY_PREFIX + key + " was not created");
+            }
+        }
+    }
+
+    private String body(int key) {
+        ObjectNode mapping = mapper.createObjectNode();
+        mapping.put("key", KEY_PREFIX + key);
+        mapping.put("value", value());
+        return mapping.toString();
+    }
+
+    private String value() {
+        StringBuilder value = new StringBuilder(valueLength);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (value.length() < valueLength) {
+            value.append((char) ('a' + random.nextInt(26)));
+        }
+        return value.toString();
+    }
+
+    /**
+     * @return HTTP status. The response body is read and dropped, so that the connection can be reused
+     */
+    private int request(String method, String path, String body) throws IOException {
+        return request(method, path, body, "application/json");
+    }
+
+    /**
+     * @param type, media type of the request and response bodies
+     * @return HTTP status. The response body is read and dropped, so that the connection can be reused
+     */
+    private int request(String method, String path, String body, String type) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", type);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", type);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            try {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // drain
+                }
+            }
+            finally {
+                in.close();
+            }
+        }
+        return status;
+    }
+
+    private Recorder[] newRecorders() {
+        Recorder[] thread = new Recorder[Operation.values().length];
+        for (int i = 0; i < thread.length; i++) {
+            thread[i] = new Recorder();
+        }
+        synchronized (recorders) {
+            recorders.add(thread);
+        }
+        return thread;
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(MAX_LATENCY, 3);
+    }
+
+    /**
+     * @param mix, e.g. read:80,write:15,search:5
+     * @return operations repeated by their weight, to pick from at random
+     */
+    private static Operation[] mix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        for (String weighted : mix.split(",")) {
+            String[] parts = weighted.split(":");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+                operations.add(operation);
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix " + mix);
+        }
+        return operations.toArray(new Operation[0]);
+    }
+
+    /**
+     * Latencies of one operation, recorded by a single thread
+     */
+    private static class Recorder {
+        Histogram corrected = newHistogram();
+        final Histogram service = newHistogram();
+        long errors;
+
+        void add(Recorder other) {
+            corrected.add(other.corrected);
+            service.add(other.service);
+            errors += other.errors;
+        }
+    }
+
+}
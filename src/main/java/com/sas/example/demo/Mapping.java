@@ -1,5 +1,8 @@
 package com.sas.example.demo;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import javax.persistence.*;
 import java.io.Serializable;
 
@@ -7,15 +10,30 @@ import java.io.Serializable;
  * Key/value mapping
  */
 @Entity
-@Table(name = "STRINGMAPPING")
+@Table(name = "STRINGMAPPING", indexes = {
+        @Index(name = "IDX_STRINGMAPPING_VALUE_HASH", columnList = "VALUE_HASH"),
+        @Index(name = "IDX_STRINGMAPPING_EXPIRES_AT", columnList = "EXPIRES_AT")
+})
 public class Mapping implements Serializable {
 
     // toString template
     private static final String TEMPLATE = "%s : %s";
 
-    // Primary key
+    public static final int MAX_KEY_LENGTH = 128;
+
+    public static final int MAX_VALUE_LENGTH = 1024;
+
+    // Seconds to live at most, about 100 years. Longer ones are cut to it rather than overflow the expiry
+    public static final long MAX_TTL = 100L * 365 * 24 * 60 * 60;
+
+    /**
+     * Primary key
+     *
+     * Identifiers are handed out from a pooled sequence, so inserts only hit the sequence once per block of ids.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mappingIdGenerator")
+    @SequenceGenerator(name = "mappingIdGenerator", sequenceName = "STRINGMAPPING_SEQ", allocationSize = 50)
     @Column(name = "ID")
     private long Id;
 
@@ -26,7 +44,7 @@ public class Mapping implements Serializable {
      *  length of request URL, we have to put a limit on this for practical
      *  purpose. Of course, this can be adjustable.
      */
-    @Column(name = "KEY", nullable = false, unique = true, length = 128)
+    @Column(name = "KEY", nullable = false, unique = true, length = MAX_KEY_LENGTH)
     private String key;
 
     /**
@@ -34,9 +52,36 @@ public class Mapping implements Serializable {
      *
      *  Similarly, we limit the length of the value to 1K characters.
      */
-    @Column(name = "VALUE", nullable = false, length = 1024)
+    @Column(name = "VALUE", nullable = false, length = MAX_VALUE_LENGTH)
     private String value;
 
+    /**
+     *  Hash of the value, derived on every write
+     *
+     *  Values are too long to index efficiently, so lookups by value go through an index on this hash instead and
+     *  then compare the value itself.
+     */
+    @Column(name = "VALUE_HASH", nullable = false)
+    private int valueHash;
+
+    /**
+     *  Version for optimistic concurrency control, incremented on every update
+     *
+     *  Spring Data REST renders it as the ETag of the resource and checks If-Match headers against it.
+     */
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
+    /**
+     *  Time the mapping expires, in milliseconds since the epoch. Null if it never does
+     *
+     *  Usually set through a time to live in seconds. Expired mappings are hidden from lookups at once and deleted
+     *  shortly after.
+     */
+    @Column(name = "EXPIRES_AT")
+    private Long expiresAt;
+
     public Mapping(String key, String value) {
         this.key = key;
         this.value = value;
@@ -46,6 +91,29 @@ public class Mapping implements Serializable {
 
     }
 
+    /**
+     * Identifier and version are managed by the store and never rendered or read as part of the JSON representation
+     */
+    @JsonIgnore
+    public long getId() {
+        return Id;
+    }
+
+    @JsonIgnore
+    public void setId(long id) {
+        this.Id = id;
+    }
+
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getKey() {
         return key;
     }
@@ -62,6 +130,49 @@ public class Mapping implements Serializable {
         this.value = value;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Let the mapping expire a number of seconds from now. Only read from JSON, as {@code ttl}
+     *
+     * @param ttl, seconds to live, at most {@link #MAX_TTL}. Null, zero or less for never
+     */
+    @Transient
+    public void setTtl(Long ttl) {
+        expiresAt = ttl == null || ttl <= 0 ? null : System.currentTimeMillis() + Math.min(ttl, MAX_TTL) * 1000;
+    }
+
+    /**
+     * @param time, milliseconds since the epoch
+     * @return whether the mapping has expired at the time
+     */
+    public boolean isExpired(long time) {
+        return expiresAt != null && expiresAt <= time;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateValueHash() {
+        valueHash = hash(value);
+    }
+
+    /**
+     * Hash stored alongside a value, for use in queries by value
+     *
+     * @param value, value to hash, may be null
+     * @return hash of the value
+     */
+    public static int hash(String value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
     @Override
     public String toString() {
         return String.format(TEMPLATE, key, value);
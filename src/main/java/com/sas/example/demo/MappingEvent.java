@@ -0,0 +1,85 @@
+package com.sas.example.demo;
+
+/**
+ * Committed change to a mapping, published as an application event once the owning transaction has committed.
+ * Components layered on top of the repository (caches, indexes) listen to these to stay in sync.
+ */
+public class MappingEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final long id;
+
+    private final String key;
+
+    private final String value;
+
+    // Key before an update. Null for creates and deletes, or when the previous state is unknown
+    private final String previousKey;
+
+    // Version of the mapping after the change, or of the deleted mapping. Null when unknown
+    private final Long version;
+
+    // Expiry of the mapping after the change. Null if it never expires, and for deletes
+    private final Long expiresAt;
+
+    public MappingEvent(Type type, long id, String key, String value, String previousKey, Long version) {
+        this(type, id, key, value, previousKey, version, null);
+    }
+
+    public MappingEvent(Type type, long id, String key, String value, String previousKey, Long version,
+                        Long expiresAt) {
+        this.type = type;
+        this.id = id;
+        this.key = key;
+        this.value = value;
+        this.previousKey = previousKey;
+        this.version = version;
+        this.expiresAt = expiresAt;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getPreviousKey() {
+        return previousKey;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return true if this is an update whose previous key could not be determined
+     */
+    public boolean isPreviousKeyUnknown() {
+        return type == Type.UPDATED && previousKey == null;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id + " " + (previousKey == null ? "" : previousKey + " -> ") + key;
+    }
+
+}
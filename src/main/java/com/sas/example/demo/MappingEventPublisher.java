@@ -0,0 +1,90 @@
+package com.sas.example.demo;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Bridges Hibernate post-commit events on {@link Mapping} to Spring application events. Only committed changes are
+ * published, and updates carry the key the row had before, so listeners can invalidate exactly what changed.
+ */
+@Component
+public class MappingEventPublisher implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ApplicationEventPublisher publisher;
+
+    public MappingEventPublisher(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher publisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.publisher = publisher;
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Mapping mapping = (Mapping) event.getEntity();
+        publisher.publishEvent(new MappingEvent(MappingEvent.Type.CREATED, mapping.getId(),
+                mapping.getKey(), mapping.getValue(), null, mapping.getVersion(), mapping.getExpiresAt()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Mapping mapping = (Mapping) event.getEntity();
+        String previousKey = null;
+        if (event.getOldState() != null) {
+            int index = event.getPersister().getEntityMetamodel().getPropertyIndex("key");
+            previousKey = (String) event.getOldState()[index];
+        }
+        publisher.publishEvent(new MappingEvent(MappingEvent.Type.UPDATED, mapping.getId(),
+                mapping.getKey(), mapping.getValue(), previousKey, mapping.getVersion(), mapping.getExpiresAt()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Mapping mapping = (Mapping) event.getEntity();
+        publisher.publishEvent(new MappingEvent(MappingEvent.Type.DELETED, mapping.getId(),
+                mapping.getKey(), mapping.getValue(), null, mapping.getVersion()));
+    }
+
+    // Nothing was committed, so there is nothing to publish
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Mapping.class.equals(persister.getMappedClass());
+    }
+
+}
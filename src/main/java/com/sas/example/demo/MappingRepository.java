@@ -1,11 +1,17 @@
 package com.sas.example.demo;
 
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 
-import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Custom repository for string mapping resource that supports paging and sorting. Paging may be necessary for
@@ -14,15 +20,8 @@ import javax.persistence.LockModeType;
 @RepositoryRestResource
 public interface MappingRepository extends PagingAndSortingRepository<Mapping, Long> {
 
-    // Re-declare save methods to delegate record locking to underlying DB
-
-    @Override
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Mapping save(Mapping entity);
-
-    @Override
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Iterable<Mapping> save(Iterable entities);
+    // Writes are either serialized on row locks or checked against the version of the mapping, depending on
+    // mapping.locking.mode. See PessimisticLockingAspect.
 
     /**
      * Find a mapping by key
@@ -38,6 +37,74 @@ public interface MappingRepository extends PagingAndSortingRepository<Mapping, L
      * @param value, query param
      * @return value. Null if value is not found
      */
+    @Query("select m from Mapping m where m.valueHash = :#{T(com.sas.example.demo.Mapping).hash(#value)}"
+            + " and m.value = :value")
     Mapping findByValue(@Param("value") String value);
 
+    /**
+     * Find all mappings with a value. Values are not unique, unlike keys.
+     *
+     * @param value, query param
+     * @param pageable, page to return
+     * @return page of mappings with the value, in the requested order
+     */
+    @Query(value = "select m from Mapping m where m.valueHash = :#{T(com.sas.example.demo.Mapping).hash(#value)}"
+            + " and m.value = :value",
+            countQuery = "select count(m) from Mapping m"
+                    + " where m.valueHash = :#{T(com.sas.example.demo.Mapping).hash(#value)} and m.value = :value")
+    Page<Mapping> findAllByValue(@Param("value") String value, Pageable pageable);
+
+    // Leaves out mappings that have expired but are not deleted yet. Lookups by id, key and value and pages are
+    // filtered by ExpiryAspect instead; a scan has to be filtered here, or it would return short chunks
+    String LIVE = "(m.expiresAt is null or m.expiresAt > :#{T(java.lang.System).currentTimeMillis()})";
+
+    /**
+     * Stream all mappings that have not expired in id order over a server-side cursor. Entities are loaded read-only;
+     * callers have to consume the stream within a transaction, detach what they have processed and close the stream.
+     *
+     * @return stream of all mappings
+     */
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where " + LIVE + " order by m.id")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    Stream<Mapping> streamAll();
+
+    // Keyset pagination: seek on the unique key index instead of skipping rows, and never count. Only the page size
+    // of the pageable is meant to be used, as a limit.
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where " + LIVE + " order by m.key asc")
+    List<Mapping> findAllByOrderByKeyAsc(Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where m.key > :key and " + LIVE + " order by m.key asc")
+    List<Mapping> findByKeyGreaterThanOrderByKeyAsc(@Param("key") String key, Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where " + LIVE + " order by m.key desc")
+    List<Mapping> findAllByOrderByKeyDesc(Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where m.key < :key and " + LIVE + " order by m.key desc")
+    List<Mapping> findByKeyLessThanOrderByKeyDesc(@Param("key") String key, Pageable pageable);
+
+    // Key range scans, ascending only. See KeyRange for the ranges they run on.
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where m.key >= :from and " + LIVE + " order by m.key asc")
+    List<Mapping> findByKeyGreaterThanEqualOrderByKeyAsc(@Param("from") String from, Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where m.key >= :from and m.key < :to and " + LIVE + " order by m.key asc")
+    List<Mapping> findByKeyGreaterThanEqualAndKeyLessThanOrderByKeyAsc(@Param("from") String from,
+                                                                       @Param("to") String to, Pageable pageable);
+
+    @RestResource(exported = false)
+    @Query("select m from Mapping m where m.key > :after and m.key < :to and " + LIVE + " order by m.key asc")
+    List<Mapping> findByKeyGreaterThanAndKeyLessThanOrderByKeyAsc(@Param("after") String after,
+                                                                  @Param("to") String to, Pageable pageable);
+
 }
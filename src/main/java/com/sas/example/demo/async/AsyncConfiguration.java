@@ -0,0 +1,42 @@
+package com.sas.example.demo.async;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Wires the read and write executors of the asynchronous mapping endpoints
+ */
+@Configuration
+@EnableConfigurationProperties(AsyncProperties.class)
+public class AsyncConfiguration {
+
+    @Bean
+    public ThreadPoolTaskExecutor mappingReadExecutor(AsyncProperties properties) {
+        return executor("mapping-read-", properties.getRead());
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mappingWriteExecutor(AsyncProperties properties) {
+        return executor("mapping-write-", properties.getWrite());
+    }
+
+    @Bean
+    public MappingTasks mappingTasks(ThreadPoolTaskExecutor mappingReadExecutor,
+                                     ThreadPoolTaskExecutor mappingWriteExecutor, AsyncProperties properties) {
+        return new MappingTasks(mappingReadExecutor, mappingWriteExecutor, properties.getTimeout());
+    }
+
+    private static ThreadPoolTaskExecutor executor(String threadNamePrefix, AsyncProperties.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(pool.getThreads());
+        executor.setMaxPoolSize(pool.getThreads());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        // Requests still queued are answered by their timeout, and never run
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.sas.example.demo.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Executors of the asynchronous mapping endpoints. Reads and writes have executors of their own, so that writers
+ * waiting for row locks cannot take the threads of readers.
+ */
+@ConfigurationProperties(prefix = "mapping.async")
+public class AsyncProperties {
+
+    private final Pool read = new Pool(32, 1000);
+
+    private final Pool write = new Pool(8, 1000);
+
+    // Milliseconds a request may wait for an executor thread before it is dropped and answered with 503
+    private long timeout = 30000;
+
+    public Pool getRead() {
+        return read;
+    }
+
+    public Pool getWrite() {
+        return write;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public static class Pool {
+
+        private int threads;
+
+        // Requests beyond it are rejected with 503 rather than queued
+        private int queueCapacity;
+
+        Pool(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+    }
+
+}
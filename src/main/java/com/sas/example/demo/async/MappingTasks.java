@@ -0,0 +1,124 @@
+package com.sas.example.demo.async;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the work of a mapping request on the read or the write executor, and frees the servlet thread in the
+ * meantime. A thread blocked on a row lock or a database connection is then one of a bounded number of executor
+ * threads rather than a Tomcat thread, which keeps serving other requests.
+ *
+ * When an executor and its queue are full, requests are turned away at once with 503 and a Retry-After header,
+ * instead of waiting in line for a thread. The same applies to requests that are still queued when their timeout
+ * elapses, which are then dropped. A request that has started running is answered with its outcome however long it
+ * takes, so that a 503 always means the request was not applied and may be repeated.
+ */
+public class MappingTasks implements Closeable {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Asynchronous requests are answered by their task or its timeout, never by the servlet container's timeout
+    private static final long NO_CONTAINER_TIMEOUT = -1;
+
+    private final AsyncTaskExecutor readExecutor;
+
+    private final AsyncTaskExecutor writeExecutor;
+
+    private final long timeout;
+
+    private final ScheduledThreadPoolExecutor timeouts;
+
+    /**
+     * @param timeout, milliseconds a request may wait in the queue of its executor
+     */
+    public MappingTasks(AsyncTaskExecutor readExecutor, AsyncTaskExecutor writeExecutor, long timeout) {
+        this.readExecutor = readExecutor;
+        this.writeExecutor = writeExecutor;
+        this.timeout = timeout;
+        timeouts = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "mapping-task-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most requests start in time, and their timeouts should not pile up until they would have elapsed
+        timeouts.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @param task, reads of the request and its response
+     */
+    public DeferredResult<ResponseEntity<?>> read(Callable<ResponseEntity<?>> task) {
+        return submit(readExecutor, task);
+    }
+
+    /**
+     * @param task, writes of the request and its response
+     */
+    public DeferredResult<ResponseEntity<?>> write(Callable<ResponseEntity<?>> task) {
+        return submit(writeExecutor, task);
+    }
+
+    /**
+     * @return a response that is complete already, for requests answered without touching the repository
+     */
+    public static DeferredResult<ResponseEntity<?>> done(ResponseEntity<?> response) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        timeouts.shutdownNow();
+    }
+
+    private DeferredResult<ResponseEntity<?>> submit(AsyncTaskExecutor executor, Callable<ResponseEntity<?>> task) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(NO_CONTAINER_TIMEOUT);
+        // Taken by whichever comes first, the task starting or its timeout
+        AtomicBoolean claimed = new AtomicBoolean();
+        ScheduledFuture<?> expiry = timeouts.schedule(() -> {
+            if (claimed.compareAndSet(false, true)) {
+                result.setResult(unavailable());
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        try {
+            executor.execute(() -> {
+                // Answered by its timeout while it was queued
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                expiry.cancel(false);
+                try {
+                    result.setResult(task.call());
+                }
+                catch (Exception ex) {
+                    // Handled as if the controller had thrown it
+                    result.setErrorResult(ex);
+                }
+            });
+        }
+        catch (TaskRejectedException ex) {
+            expiry.cancel(false);
+            result.setResult(unavailable());
+        }
+        return result;
+    }
+
+    private static ResponseEntity<?> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.sas.example.demo.atomic;
+
+import com.sas.example.demo.Mapping;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-modify-write operations on the value of a key, applied on the server with no other write to the key in
+ * between, so that concurrent clients neither lose updates nor need to retry on conflicts.
+ *
+ * This is the JPA engine's implementation: the row of the key is read with {@code SELECT ... FOR UPDATE} and written
+ * in the same transaction, so writers of the key queue up on the row lock whatever the locking mode. Changes are
+ * published on commit like those of any other write. Other storage engines subclass it.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class MappingOperations {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Set the value of a key if it has the expected one
+     *
+     * @param expected, value the key must have. Null if it must not exist, in which case it is created
+     * @param value, new value
+     * @return the new value if it was set. Otherwise, the value the key has
+     */
+    @Transactional
+    public OperationResult compareAndSet(String key, String expected, String value) {
+        return apply(key, current -> {
+            if (!Objects.equals(current, expected)) {
+                throw new Refusal(current == null ? "key does not exist"
+                        : expected == null ? "key already exists" : "value differs");
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Append to the value of a key, which is created if it does not exist
+     *
+     * @param suffix, characters appended
+     * @return the new value. Refused if it would be longer than {@link Mapping#MAX_VALUE_LENGTH}
+     */
+    @Transactional
+    public OperationResult append(String key, String suffix) {
+        return apply(key, current -> {
+            String value = current == null ? suffix : current + suffix;
+            if (value.length() > Mapping.MAX_VALUE_LENGTH) {
+                throw new Refusal("value would be longer than " + Mapping.MAX_VALUE_LENGTH + " characters");
+            }
+            return value;
+        });
+    }
+
+    /**
+     * Add to the value of a key, read as a decimal long integer. A key that does not exist counts as 0 and is created.
+     *
+     * @param delta, amount to add, may be negative
+     * @return the new value. Refused if the value is not an integer or the sum overflows
+     */
+    @Transactional
+    public OperationResult increment(String key, long delta) {
+        return apply(key, current -> {
+            long number;
+            try {
+                number = current == null ? 0 : Long.parseLong(current);
+            }
+            catch (NumberFormatException ex) {
+                throw new Refusal("value is not an integer");
+            }
+            try {
+                return String.valueOf(Math.addExact(number, delta));
+            }
+            catch (ArithmeticException ex) {
+                throw new Refusal("value would overflow");
+            }
+        });
+    }
+
+    /**
+     * Read the value of a key and write the value computed from it, with no other write to the key in between. See
+     * {@link com.sas.example.demo.storage.MappingStore#update}, which this implements for the JPA engine. A mapping
+     * that has expired counts as missing, and its row is taken over by the new value, which does not expire.
+     *
+     * Two transactions creating the same key both find no row to lock, and the second fails with
+     * {@link org.springframework.dao.DataIntegrityViolationException}, after which it can be repeated.
+     */
+    protected Mapping update(String key, UnaryOperator<String> update) {
+        List<Mapping> found = entityManager.createQuery("select m from Mapping m where m.key = :key", Mapping.class)
+                .setParameter("key", key)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        Mapping mapping = found.isEmpty() ? null : found.get(0);
+        boolean live = mapping != null && !mapping.isExpired(System.currentTimeMillis());
+        String value = update.apply(live ? mapping.getValue() : null);
+        if (value == null) {
+            return live ? mapping : null;
+        }
+        if (mapping == null) {
+            mapping = new Mapping(key, value);
+            entityManager.persist(mapping);
+        }
+        else {
+            // Written only if something changed
+            mapping.setValue(value);
+            mapping.setExpiresAt(live ? mapping.getExpiresAt() : null);
+        }
+        entityManager.flush();
+        return mapping;
+    }
+
+    private OperationResult apply(String key, UnaryOperator<String> update) {
+        Refusal[] refusal = new Refusal[1];
+        String[] refusedValue = new String[1];
+        Mapping mapping = update(key, current -> {
+            try {
+                return update.apply(current);
+            }
+            catch (Refusal ex) {
+                refusal[0] = ex;
+                refusedValue[0] = current;
+                return null;
+            }
+        });
+        if (refusal[0] != null) {
+            return OperationResult.refused(key, refusedValue[0], refusal[0].getMessage());
+        }
+        return OperationResult.applied(key, mapping == null ? null : mapping.getValue());
+    }
+
+    // Thrown by an operation that cannot be applied to the current value. Carries no stack trace
+    private static class Refusal extends RuntimeException {
+        Refusal(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.sas.example.demo.atomic;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.async.MappingTasks;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Atomic operations on the value of a key, each in a single request, taking a JSON object with the key and the
+ * operation's arguments:
+ * <ul>
+ *     <li>{@code POST /mappings/compare-and-set} sets {@code value} if the key has the {@code expected} one</li>
+ *     <li>{@code POST /mappings/append} appends {@code value}</li>
+ *     <li>{@code POST /mappings/increment} adds {@code delta}, 1 by default, to an integer value</li>
+ * </ul>
+ * They answer 200 with the new value once applied, and 409 Conflict with the current value and the reason if it
+ * rules the operation out. They run asynchronously on the write executor of {@link MappingTasks}.
+ */
+@RepositoryRestController
+public class MappingOperationsController {
+
+    // Concurrent operations creating the same key conflict on its unique index, and all but one are repeated
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MappingOperations operations;
+
+    private final MappingTasks tasks;
+
+    public MappingOperationsController(MappingOperations operations, MappingTasks tasks) {
+        this.operations = operations;
+        this.tasks = tasks;
+    }
+
+    @RequestMapping(value = "/mappings/compare-and-set", method = RequestMethod.POST)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> compareAndSet(@RequestBody OperationRequest request) {
+        String invalid = validate(request, true);
+        if (invalid != null) {
+            return MappingTasks.done(ResponseEntity.badRequest().body(invalid));
+        }
+        return run(() -> operations.compareAndSet(request.getKey(), request.getExpected(), request.getValue()));
+    }
+
+    @RequestMapping(value = "/mappings/append", method = RequestMethod.POST)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> append(@RequestBody OperationRequest request) {
+        String invalid = validate(request, true);
+        if (invalid != null) {
+            return MappingTasks.done(ResponseEntity.badRequest().body(invalid));
+        }
+        return run(() -> operations.append(request.getKey(), request.getValue()));
+    }
+
+    @RequestMapping(value = "/mappings/increment", method = RequestMethod.POST)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> increment(@RequestBody OperationRequest request) {
+        String invalid = validate(request, false);
+        if (invalid != null) {
+            return MappingTasks.done(ResponseEntity.badRequest().body(invalid));
+        }
+        return run(() -> operations.increment(request.getKey(), request.getDelta()));
+    }
+
+    private DeferredResult<ResponseEntity<?>> run(Callable<OperationResult> operation) {
+        return tasks.write(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    OperationResult result = operation.call();
+                    return ResponseEntity.status(result.isApplied() ? HttpStatus.OK : HttpStatus.CONFLICT)
+                            .body(result);
+                }
+                catch (DataIntegrityViolationException ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @param needsValue, whether the operation takes a value
+     * @return why the request is not valid. Null if it is
+     */
+    private static String validate(OperationRequest request, boolean needsValue) {
+        if (request.getKey() == null) {
+            return "Key is missing";
+        }
+        if (request.getKey().length() > Mapping.MAX_KEY_LENGTH) {
+            return "Key is longer than " + Mapping.MAX_KEY_LENGTH + " characters";
+        }
+        if (needsValue && request.getValue() == null) {
+            return "Value is missing";
+        }
+        if (needsValue && request.getValue().length() > Mapping.MAX_VALUE_LENGTH) {
+            return "Value is longer than " + Mapping.MAX_VALUE_LENGTH + " characters";
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.sas.example.demo.atomic;
+
+/**
+ * Body of an atomic operation request. Each operation reads the fields it needs and ignores the others.
+ */
+public class OperationRequest {
+
+    private String key;
+
+    // Value a compare-and-set expects the key to have. Null if it expects the key not to exist
+    private String expected;
+
+    // New value of a compare-and-set, or the suffix of an append
+    private String value;
+
+    // Amount added by an increment, which may be negative
+    private long delta = 1;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public void setExpected(String expected) {
+        this.expected = expected;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public long getDelta() {
+        return delta;
+    }
+
+    public void setDelta(long delta) {
+        this.delta = delta;
+    }
+
+}
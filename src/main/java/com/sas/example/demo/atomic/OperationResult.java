@@ -0,0 +1,61 @@
+package com.sas.example.demo.atomic;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of an atomic operation on the value of a key
+ */
+public class OperationResult {
+
+    private final boolean applied;
+
+    private final String key;
+
+    private final String value;
+
+    private final String reason;
+
+    private OperationResult(boolean applied, String key, String value, String reason) {
+        this.applied = applied;
+        this.key = key;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    /**
+     * @param value, value of the key once the operation was applied
+     */
+    static OperationResult applied(String key, String value) {
+        return new OperationResult(true, key, value, null);
+    }
+
+    /**
+     * @param value, value the key had, which the operation could not be applied to. Null if the key does not exist
+     * @param reason, why it could not
+     */
+    static OperationResult refused(String key, String value, String reason) {
+        return new OperationResult(false, key, value, reason);
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return value after the operation if it was applied, or the one it was refused on. Null if the key does not
+     * exist
+     */
+    public String getValue() {
+        return value;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getReason() {
+        return reason;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.sas.example.demo.batch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a batch ingest or upsert. Items that could not be written are reported individually by their position in
+ * the request, the rest of the batch is written regardless.
+ */
+public class BatchResult {
+
+    /**
+     * A single item of the batch that was not written
+     */
+    public static class Item {
+
+        private final int index;
+
+        private final String key;
+
+        private final String reason;
+
+        public Item(int index, String key, String reason) {
+            this.index = index;
+            this.key = key;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+    }
+
+    private int created;
+
+    // Existing mappings given a value by an upsert, whether or not it differed from the one they had
+    private int updated;
+
+    // Items whose key already exists, or appears earlier in the same batch
+    private final List<Item> conflicts = new ArrayList<>();
+
+    // Items that are not valid mappings
+    private final List<Item> rejected = new ArrayList<>();
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public List<Item> getConflicts() {
+        return conflicts;
+    }
+
+    public List<Item> getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Order the skipped items by their position in the batch
+     */
+    public void sort() {
+        conflicts.sort(Comparator.comparingInt(Item::getIndex));
+        rejected.sort(Comparator.comparingInt(Item::getIndex));
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.sas.example.demo.batch;
+
+import com.sas.example.demo.Mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a lookup of many keys: the mappings found, and the keys that were not
+ */
+public class LookupResult {
+
+    // In the order of their keys in the request
+    private final List<Mapping> mappings = new ArrayList<>();
+
+    private final List<String> missing = new ArrayList<>();
+
+    public List<Mapping> getMappings() {
+        return mappings;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.sas.example.demo.batch;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.async.MappingTasks;
+import com.sas.example.demo.keyset.KeyRange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bulk access to mappings, in a single request and transaction:
+ * <ul>
+ *     <li>{@code POST /mappings/batch} creates mappings, taking a JSON array of key/value objects</li>
+ *     <li>{@code PUT /mappings/batch} creates or updates mappings, taking a JSON array of key/value objects</li>
+ *     <li>{@code POST /mappings/batch/find} looks up mappings, taking a JSON array of keys</li>
+ *     <li>{@code POST /mappings/batch/delete} deletes mappings, taking a JSON array of keys</li>
+ *     <li>{@code DELETE /mappings/batch} deletes the mappings of a key prefix or range, or all of them</li>
+ * </ul>
+ * They run asynchronously on the executors of {@link MappingTasks}. Deletes commit in chunks rather than in a single
+ * transaction, see {@link MappingBatchRepository#deleteRange}.
+ */
+@RepositoryRestController
+public class MappingBatchController {
+
+    // A key inserted or updated concurrently after our check fails the whole transaction, which is then re-checked
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final MappingBatchRepository batchRepository;
+
+    private final MappingTasks tasks;
+
+    @Value("${mapping.batch.max-size:10000}")
+    private int maxSize;
+
+    public MappingBatchController(MappingBatchRepository batchRepository, MappingTasks tasks) {
+        this.batchRepository = batchRepository;
+        this.tasks = tasks;
+    }
+
+    @RequestMapping(value = "/mappings/batch", method = RequestMethod.POST)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> ingest(@RequestBody List<Mapping> mappings) {
+        if (mappings.size() > maxSize) {
+            return MappingTasks.done(tooLarge(mappings.size()));
+        }
+        return tasks.write(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return ResponseEntity.ok(batchRepository.insert(mappings));
+                }
+                catch (DataIntegrityViolationException ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                }
+            }
+        });
+    }
+
+    @RequestMapping(value = "/mappings/batch", method = RequestMethod.PUT)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> upsert(@RequestBody List<Mapping> mappings) {
+        if (mappings.size() > maxSize) {
+            return MappingTasks.done(tooLarge(mappings.size()));
+        }
+        return tasks.write(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return ResponseEntity.ok(batchRepository.upsert(mappings));
+                }
+                catch (DataIntegrityViolationException | OptimisticLockingFailureException ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                }
+            }
+        });
+    }
+
+    @RequestMapping(value = "/mappings/batch/find", method = RequestMethod.POST)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> find(@RequestBody List<String> keys) {
+        if (keys.size() > maxSize) {
+            return MappingTasks.done(tooLarge(keys.size()));
+        }
+        return tasks.read(() -> ResponseEntity.ok(batchRepository.findByKeys(keys)));
+    }
+
+    @RequestMapping(value = "/mappings/batch/delete", method = RequestMethod.POST)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> delete(@RequestBody List<String> keys) {
+        if (keys.size() > maxSize) {
+            return MappingTasks.done(tooLarge(keys.size()));
+        }
+        return tasks.write(() -> deleted(batchRepository.deleteByKeys(keys)));
+    }
+
+    /**
+     * Delete the mappings of a prefix or a range of keys, given like those of an export. Deleting all mappings takes
+     * {@code all=true} rather than the absence of both, so that a forgotten parameter does not empty the table. All
+     * mappings are deleted like a range, chunk by chunk, not truncated: it takes as long as the table is large.
+     */
+    @RequestMapping(value = "/mappings/batch", method = RequestMethod.DELETE)
+    @ResponseBody
+    public DeferredResult<ResponseEntity<?>> deleteRange(
+            @RequestParam(value = "prefix", required = false) String prefix,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "all", defaultValue = "false") boolean all) {
+        KeyRange range;
+        try {
+            range = KeyRange.of(prefix, from, to);
+        }
+        catch (IllegalArgumentException ex) {
+            return MappingTasks.done(ResponseEntity.badRequest().body(ex.getMessage()));
+        }
+        if (range.isAll() != all) {
+            return MappingTasks.done(ResponseEntity.badRequest()
+                    .body(all ? "Either all or a prefix or range can be given, not both"
+                            : "Give a prefix or range of keys to delete, or all=true to delete all mappings"));
+        }
+        return tasks.write(() -> deleted(batchRepository.deleteRange(range)));
+    }
+
+    private static ResponseEntity<?> deleted(long count) {
+        return ResponseEntity.ok(Collections.singletonMap("deleted", count));
+    }
+
+    private ResponseEntity<?> tooLarge(int size) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body("Batch of " + size + " exceeds the maximum of " + maxSize);
+    }
+
+}
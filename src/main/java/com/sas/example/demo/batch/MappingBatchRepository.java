@@ -0,0 +1,359 @@
+package com.sas.example.demo.batch;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import com.sas.example.demo.keyset.KeyRange;
+import com.sas.example.demo.locking.LockingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Reads and writes many mappings in one transaction. Keys are resolved with set-based queries, IN lists of a bounded
+ * size, and writes are flushed in chunks so Hibernate sends them as JDBC batches. Bulk deletes run in chunks of keys
+ * instead, each in a transaction of its own.
+ *
+ * This is the JPA engine's implementation; other storage engines subclass it.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class MappingBatchRepository {
+
+    // Upper bound on keys bound into a single IN list, and on mappings deleted per transaction
+    protected static final int IN_CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Flush as often as the JDBC batch fills up, which also keeps the persistence context small
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int flushSize;
+
+    @Autowired
+    private LockingProperties locking;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    /**
+     * Find the mappings of many keys
+     *
+     * @param keys, keys to look up. Repeated keys are looked up once, null keys are ignored
+     * @return mappings found, in the order their keys were requested in, and the keys that were not
+     */
+    @Transactional(readOnly = true)
+    public LookupResult findByKeys(List<String> keys) {
+        Set<String> distinct = distinct(keys);
+        Map<String, Mapping> found = new HashMap<>();
+        // Expired mappings that are not deleted yet count as missing
+        long now = System.currentTimeMillis();
+        for (List<String> chunk : chunks(distinct)) {
+            entityManager.createQuery("select m from Mapping m where m.key in :keys"
+                    + " and (m.expiresAt is null or m.expiresAt > :now)", Mapping.class)
+                    .setParameter("keys", chunk)
+                    .setParameter("now", now)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultList()
+                    .forEach(mapping -> found.put(mapping.getKey(), mapping));
+        }
+
+        LookupResult result = new LookupResult();
+        for (String key : distinct) {
+            Mapping mapping = found.get(key);
+            if (mapping == null) {
+                result.getMissing().add(key);
+            }
+            else {
+                result.getMappings().add(mapping);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Insert all mappings that are valid and do not conflict with an existing key
+     *
+     * @param mappings, mappings to insert
+     * @return number of created mappings and the items that were skipped
+     */
+    @Transactional
+    public BatchResult insert(List<Mapping> mappings) {
+        BatchResult result = new BatchResult();
+        Map<String, Integer> candidates = candidates(mappings, result);
+
+        Set<String> existing = findExistingKeys(candidates.keySet());
+        int created = 0;
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            int index = candidate.getValue();
+            if (existing.contains(candidate.getKey())) {
+                result.getConflicts().add(new BatchResult.Item(index, candidate.getKey(), "key already exists"));
+                continue;
+            }
+            Mapping mapping = new Mapping(candidate.getKey(), mappings.get(index).getValue());
+            mapping.setExpiresAt(mappings.get(index).getExpiresAt());
+            entityManager.persist(mapping);
+            if (++created % flushSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        result.setCreated(created);
+        result.sort();
+        return result;
+    }
+
+    /**
+     * Set the value and expiry of many keys, creating the keys that do not exist. The last writer of a key wins in
+     * pessimistic locking mode; in optimistic mode, a key changed concurrently fails the transaction.
+     *
+     * @param mappings, keys and their new values
+     * @return number of created and updated mappings and the items that were skipped
+     */
+    @Transactional
+    public BatchResult upsert(List<Mapping> mappings) {
+        BatchResult result = new BatchResult();
+        Map<String, Integer> candidates = candidates(mappings, result);
+
+        // In key order, so that two batches locking the same rows cannot deadlock
+        Set<String> keys = new TreeSet<>(candidates.keySet());
+        int created = 0;
+        int updated = 0;
+        for (List<String> chunk : chunks(keys)) {
+            TypedQuery<Mapping> query = entityManager
+                    .createQuery("select m from Mapping m where m.key in :keys order by m.key", Mapping.class)
+                    .setParameter("keys", chunk);
+            if (locking.getMode() == LockingProperties.Mode.PESSIMISTIC) {
+                query.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+            }
+            Map<String, Mapping> existing = new HashMap<>();
+            query.getResultList().forEach(mapping -> existing.put(mapping.getKey(), mapping));
+
+            for (String key : chunk) {
+                Mapping source = mappings.get(candidates.get(key));
+                Mapping mapping = existing.get(key);
+                if (mapping == null) {
+                    mapping = new Mapping(key, source.getValue());
+                    mapping.setExpiresAt(source.getExpiresAt());
+                    entityManager.persist(mapping);
+                    created++;
+                }
+                else {
+                    // Written on flush only if the value or expiry changed
+                    mapping.setValue(source.getValue());
+                    mapping.setExpiresAt(source.getExpiresAt());
+                    updated++;
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        result.setCreated(created);
+        result.setUpdated(updated);
+        result.sort();
+        return result;
+    }
+
+    /**
+     * Delete the mappings of many keys
+     *
+     * @param keys, keys to delete. Repeated keys, null keys and keys that do not exist are ignored
+     * @return number of mappings deleted
+     * @see #deleteChunk
+     */
+    public long deleteByKeys(List<String> keys) {
+        long deleted = 0;
+        for (List<String> chunk : chunks(distinct(keys))) {
+            deleted += deleteChunk(chunk);
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete all mappings in a range of keys, walking it in key order. Mappings created in the part of the range
+     * already walked are kept. Each mapping is locked and published as deleted, as by {@link #deleteChunk}, so
+     * emptying the table costs as much per mapping as deleting by key.
+     *
+     * @param range, keys to delete. All keys to empty the table
+     * @return number of mappings deleted
+     * @see #deleteChunk
+     */
+    public long deleteRange(KeyRange range) {
+        long deleted = 0;
+        String after = null;
+        while (true) {
+            List<String> chunk = findKeys(range, after);
+            if (!chunk.isEmpty()) {
+                deleted += deleteChunk(chunk);
+            }
+            if (chunk.size() < IN_CHUNK_SIZE) {
+                return deleted;
+            }
+            after = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    /**
+     * Report invalid items and repeated keys of a batch as rejected and conflicting
+     *
+     * @param mappings, mappings to insert
+     * @param result, collects the skipped items
+     * @return key to position in the batch of the items left to insert, first occurrence wins
+     */
+    protected static Map<String, Integer> candidates(List<Mapping> mappings, BatchResult result) {
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < mappings.size(); i++) {
+            Mapping mapping = mappings.get(i);
+            String reason = validate(mapping);
+            if (reason != null) {
+                result.getRejected().add(new BatchResult.Item(i, mapping == null ? null : mapping.getKey(), reason));
+            }
+            else if (candidates.containsKey(mapping.getKey())) {
+                result.getConflicts().add(new BatchResult.Item(i, mapping.getKey(), "duplicate key in batch"));
+            }
+            else {
+                candidates.put(mapping.getKey(), i);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return the keys without repetitions and nulls, in their order
+     */
+    protected static Set<String> distinct(List<String> keys) {
+        Set<String> distinct = new LinkedHashSet<>(keys);
+        distinct.remove(null);
+        return distinct;
+    }
+
+    private Set<String> findExistingKeys(Set<String> keys) {
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : chunks(keys)) {
+            existing.addAll(queryExistingKeys(chunk));
+        }
+        return existing;
+    }
+
+    /**
+     * @return the keys split into lists of at most {@link #IN_CHUNK_SIZE}, to bind into IN lists
+     */
+    private static List<List<String>> chunks(Collection<String> keys) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(IN_CHUNK_SIZE);
+        for (String key : keys) {
+            chunk.add(key);
+            if (chunk.size() == IN_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IN_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the next keys of the range after the given one, at most {@link #IN_CHUNK_SIZE}, in key order
+     */
+    private List<String> findKeys(KeyRange range, String after) {
+        TypedQuery<String> query = entityManager.createQuery("select m.key from Mapping m where "
+                + (after == null ? "m.key >= :from" : "m.key > :after")
+                + (range.getTo() == null ? "" : " and m.key < :to") + " order by m.key", String.class)
+                .setMaxResults(IN_CHUNK_SIZE);
+        if (after == null) {
+            query.setParameter("from", range.getFrom());
+        }
+        else {
+            query.setParameter("after", after);
+        }
+        if (range.getTo() != null) {
+            query.setParameter("to", range.getTo());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Delete the mappings of up to {@link #IN_CHUNK_SIZE} keys in a transaction of their own: their rows are locked,
+     * in key order like those of upserts, then deleted by a single statement. Such a bulk statement bypasses
+     * Hibernate's events, so the deleted mappings are published here once committed, for everything layered on the
+     * repository to follow. Not meant to be called within a transaction.
+     *
+     * @return number of mappings deleted
+     */
+    private int deleteChunk(List<String> keys) {
+        List<Mapping> deleted = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Mapping> locked = entityManager
+                    .createQuery("select m from Mapping m where m.key in :keys order by m.key", Mapping.class)
+                    .setParameter("keys", keys)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            if (!locked.isEmpty()) {
+                entityManager.createQuery("delete from Mapping m where m.id in :ids")
+                        .setParameter("ids", locked.stream().map(Mapping::getId).collect(Collectors.toList()))
+                        .executeUpdate();
+            }
+            entityManager.clear();
+            return locked;
+        });
+        for (Mapping mapping : deleted) {
+            publisher.publishEvent(new MappingEvent(MappingEvent.Type.DELETED, mapping.getId(), mapping.getKey(),
+                    mapping.getValue(), null, mapping.getVersion()));
+        }
+        return deleted.size();
+    }
+
+    private List<String> queryExistingKeys(List<String> keys) {
+        return entityManager.createQuery("select m.key from Mapping m where m.key in :keys", String.class)
+                .setParameter("keys", keys)
+                .getResultList();
+    }
+
+    private static String validate(Mapping mapping) {
+        if (mapping == null) {
+            return "mapping is null";
+        }
+        if (mapping.getKey() == null) {
+            return "key is null";
+        }
+        if (mapping.getValue() == null) {
+            return "value is null";
+        }
+        if (mapping.getKey().length() > Mapping.MAX_KEY_LENGTH) {
+            return "key is longer than " + Mapping.MAX_KEY_LENGTH + " characters";
+        }
+        if (mapping.getValue().length() > Mapping.MAX_VALUE_LENGTH) {
+            return "value is longer than " + Mapping.MAX_VALUE_LENGTH + " characters";
+        }
+        return null;
+    }
+
+}
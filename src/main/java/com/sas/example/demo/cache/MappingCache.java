@@ -0,0 +1,84 @@
+package com.sas.example.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of mappings by key. Caffeine's W-TinyLFU policy keeps frequently read keys resident rather than
+ * merely recent ones. Entries are invalidated exactly on committed changes to their key.
+ *
+ * Cached entries are detached snapshots; callers always receive their own copy so that modifying a returned mapping
+ * can never leak into the cache.
+ */
+public class MappingCache {
+
+    private final Cache<String, Mapping> cache;
+
+    public MappingCache(MappingCacheProperties properties) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats();
+        if (properties.getTimeToLive() > 0) {
+            builder.expireAfterWrite(properties.getTimeToLive(), TimeUnit.SECONDS);
+        }
+        cache = builder.build();
+    }
+
+    /**
+     * Look up a mapping by key, loading and caching it on a miss. Misses are not cached.
+     *
+     * @param key, key of the mapping
+     * @param loader, loads the mapping from the repository. May return null
+     * @return copy of the mapping. Null if key is not found
+     */
+    public Mapping get(String key, Function<String, Mapping> loader) {
+        return copy(cache.get(key, k -> copy(loader.apply(k))));
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @EventListener
+    public void onMappingEvent(MappingEvent event) {
+        if (event.isPreviousKeyUnknown()) {
+            invalidateAll();
+            return;
+        }
+        invalidate(event.getKey());
+        if (event.getPreviousKey() != null) {
+            invalidate(event.getPreviousKey());
+        }
+    }
+
+    private static Mapping copy(Mapping mapping) {
+        if (mapping == null) {
+            return null;
+        }
+        Mapping copy = new Mapping(mapping.getKey(), mapping.getValue());
+        copy.setId(mapping.getId());
+        copy.setVersion(mapping.getVersion());
+        copy.setExpiresAt(mapping.getExpiresAt());
+        return copy;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.sas.example.demo.cache;
+
+import com.sas.example.demo.Mapping;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Serves {@code MappingRepository.findByKey} from the cache, so REST searches by key and direct repository calls
+ * alike skip the database on a hit.
+ */
+@Aspect
+public class MappingCacheAspect {
+
+    private final MappingCache cache;
+
+    public MappingCacheAspect(MappingCache cache) {
+        this.cache = cache;
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.findByKey(String)) && args(key)")
+    public Object findByKey(ProceedingJoinPoint joinPoint, String key) throws Throwable {
+        try {
+            return cache.get(key, k -> {
+                try {
+                    return (Mapping) joinPoint.proceed();
+                }
+                catch (Throwable ex) {
+                    throw new LoadFailure(ex);
+                }
+            });
+        }
+        catch (LoadFailure ex) {
+            throw ex.getCause();
+        }
+    }
+
+    // Carries whatever the repository threw through the cache loader
+    private static class LoadFailure extends RuntimeException {
+        LoadFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.sas.example.demo.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the mapping cache when {@code mapping.cache.enabled=true}
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mapping.cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(MappingCacheProperties.class)
+public class MappingCacheConfiguration {
+
+    @Bean
+    public MappingCache mappingCache(MappingCacheProperties properties) {
+        return new MappingCache(properties);
+    }
+
+    @Bean
+    public MappingCacheAspect mappingCacheAspect(MappingCache mappingCache) {
+        return new MappingCacheAspect(mappingCache);
+    }
+
+}
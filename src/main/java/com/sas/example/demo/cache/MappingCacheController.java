@@ -0,0 +1,40 @@
+package com.sas.example.demo.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes cache counters for sizing, at {@code GET /cache/stats}
+ */
+@RestController
+@ConditionalOnProperty(prefix = "mapping.cache", name = "enabled", havingValue = "true")
+@RequestMapping("/cache")
+public class MappingCacheController {
+
+    private final MappingCache cache;
+
+    public MappingCacheController(MappingCache cache) {
+        this.cache = cache;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("loadCount", stats.loadCount());
+        result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return result;
+    }
+
+}
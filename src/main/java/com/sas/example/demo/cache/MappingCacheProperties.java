@@ -0,0 +1,44 @@
+package com.sas.example.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the read-through cache in front of {@code MappingRepository.findByKey}
+ */
+@ConfigurationProperties(prefix = "mapping.cache")
+public class MappingCacheProperties {
+
+    // The cache is optional and disabled unless asked for
+    private boolean enabled = false;
+
+    // Upper bound on the number of cached keys
+    private long maximumSize = 10000;
+
+    // Seconds an entry may live after it was loaded. Zero or less means no expiry
+    private long timeToLive = 600;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+}
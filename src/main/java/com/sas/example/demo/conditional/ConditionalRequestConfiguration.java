@@ -0,0 +1,30 @@
+package com.sas.example.demo.conditional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Wires conditional GET requests on the {@code /mappings} endpoints unless {@code mapping.conditional.enabled=false}
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mapping.conditional", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ConditionalRequestProperties.class)
+public class ConditionalRequestConfiguration {
+
+    @Bean
+    public MappingVersions mappingVersions(ConditionalRequestProperties properties) {
+        return new MappingVersions(properties);
+    }
+
+    // Picked up by all handler mappings, including those of Spring Data REST. The change feed is a stream, not a
+    // resource
+    @Bean
+    public MappedInterceptor conditionalRequestInterceptor(MappingVersions mappingVersions) {
+        return new MappedInterceptor(new String[]{"/mappings", "/mappings/**"}, new String[]{"/mappings/changes"},
+                new ConditionalRequestInterceptor(mappingVersions));
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.sas.example.demo.conditional;
+
+import com.sas.example.demo.Mapping;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Enumeration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers GET requests whose If-None-Match header holds the current entity tag with 304 Not Modified, before the
+ * handler runs, so neither a query nor rendering takes place.
+ *
+ * A single mapping is only answered here if its version is known to {@link MappingVersions}; otherwise Spring Data
+ * REST reads it and checks the header itself. The version of a mapping it answers with 200 is remembered once the
+ * request is complete, unless the mapping expires: it would be answered with 304 here after its expiry, until its
+ * delete, while Spring Data REST no longer finds it. A 304 of Spring Data REST does not show whether the mapping
+ * expires, so its version is not remembered either. Any other resource is tagged with the number of changes to the
+ * table, see {@link ConditionalResponseAdvice}.
+ */
+class ConditionalRequestInterceptor extends HandlerInterceptorAdapter {
+
+    static final String TAG_ATTRIBUTE = ConditionalRequestInterceptor.class.getName() + ".tag";
+
+    // Mapping in the body of the response, set by ConditionalResponseAdvice
+    static final String MAPPING_ATTRIBUTE = ConditionalRequestInterceptor.class.getName() + ".mapping";
+
+    private static final String ID_ATTRIBUTE = ConditionalRequestInterceptor.class.getName() + ".id";
+
+    private static final String CHANGES_ATTRIBUTE = ConditionalRequestInterceptor.class.getName() + ".changes";
+
+    private static final Pattern ITEM = Pattern.compile("/mappings/(\\d{1,18})");
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final MappingVersions versions;
+
+    ConditionalRequestInterceptor(MappingVersions versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        long changes = versions.changes();
+        Matcher item = ITEM.matcher(urlPathHelper.getLookupPathForRequest(request));
+        if (item.matches()) {
+            long id = Long.parseLong(item.group(1));
+            Long version = versions.version(id);
+            if (version != null && notModified(request, response, "\"" + version + "\"")) {
+                return false;
+            }
+            request.setAttribute(ID_ATTRIBUTE, id);
+            request.setAttribute(CHANGES_ATTRIBUTE, changes);
+            return true;
+        }
+        String tag = versions.collectionTag(changes, request.getHeader(HttpHeaders.ACCEPT));
+        if (notModified(request, response, tag)) {
+            return false;
+        }
+        request.setAttribute(TAG_ATTRIBUTE, tag);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Long id = (Long) request.getAttribute(ID_ATTRIBUTE);
+        Mapping mapping = (Mapping) request.getAttribute(MAPPING_ATTRIBUTE);
+        if (id == null || response.getStatus() != HttpServletResponse.SC_OK || mapping == null
+                || mapping.getExpiresAt() != null) {
+            return;
+        }
+        Long version = version(response.getHeader(HttpHeaders.ETAG));
+        if (version != null) {
+            versions.read(id, version, (Long) request.getAttribute(CHANGES_ATTRIBUTE));
+        }
+    }
+
+    /**
+     * Answer with 304 if any entity tag of the If-None-Match headers matches, by weak comparison
+     *
+     * @return whether the request was answered
+     */
+    private static boolean notModified(HttpServletRequest request, HttpServletResponse response, String tag) {
+        String opaque = opaque(tag);
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (headers.hasMoreElements()) {
+            for (String candidate : headers.nextElement().split(",")) {
+                candidate = candidate.trim();
+                if (candidate.equals("*") || opaque(candidate).equals(opaque)) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    response.setHeader(HttpHeaders.ETAG, tag);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * @param tag, entity tag of a mapping, as rendered by Spring Data REST
+     * @return version of the mapping. Null if there is no tag or it is not a version
+     */
+    private static Long version(String tag) {
+        if (tag == null || tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.sas.example.demo.conditional;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of conditional GET requests on the {@code /mappings} endpoints
+ */
+@ConfigurationProperties(prefix = "mapping.conditional")
+public class ConditionalRequestProperties {
+
+    // Checking a request costs a counter read and a header comparison, so it is on unless turned off
+    private boolean enabled = true;
+
+    // Upper bound on the number of mapping versions remembered to answer conditional GETs of single mappings
+    private long maximumSize = 100000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+}
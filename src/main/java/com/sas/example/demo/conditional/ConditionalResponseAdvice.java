@@ -0,0 +1,53 @@
+package com.sas.example.demo.conditional;
+
+import com.sas.example.demo.Mapping;
+import org.springframework.core.MethodParameter;
+import org.springframework.hateoas.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Tags the responses of the requests {@link ConditionalRequestInterceptor} let through with the number of changes
+ * to the table, unless the handler tagged it itself, as Spring Data REST does for a search that returns a single
+ * mapping. Set right before the body is written, since a header set in the interceptor would end up next to the one
+ * of the handler.
+ *
+ * A mapping in the body is handed to the interceptor, which remembers its version only if it never expires.
+ */
+@ControllerAdvice
+class ConditionalResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return body;
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        if (response.getHeaders().getETag() == null) {
+            String tag = (String) servletRequest.getAttribute(ConditionalRequestInterceptor.TAG_ATTRIBUTE);
+            if (tag != null) {
+                response.getHeaders().setETag(tag);
+            }
+        }
+        if (body instanceof Resource && ((Resource<?>) body).getContent() instanceof Mapping) {
+            servletRequest.setAttribute(ConditionalRequestInterceptor.MAPPING_ATTRIBUTE,
+                    ((Resource<?>) body).getContent());
+        }
+        return body;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.sas.example.demo.conditional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sas.example.demo.MappingEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What a conditional GET is checked against, kept in memory so that it can be answered without a query.
+ *
+ * Every committed change to any mapping counts as a change of the table. Collections are tagged with the number of
+ * changes so far, so their tag stays the same exactly as long as no mapping changed. Single mappings are tagged by
+ * Spring Data REST with their version; the versions of recently read mappings are remembered by id until the mapping
+ * changes.
+ */
+public class MappingVersions {
+
+    // Tells tags of this run from those of an earlier one, whose count of changes started over
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final AtomicLong changes = new AtomicLong();
+
+    private final Cache<Long, Long> versions;
+
+    public MappingVersions(ConditionalRequestProperties properties) {
+        versions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .build();
+    }
+
+    /**
+     * @return number of committed changes so far. Read it before reading mappings, so that what is read includes at
+     * least these changes
+     */
+    public long changes() {
+        return changes.get();
+    }
+
+    /**
+     * @param changes, number of changes the collection was read after
+     * @param variant, what else the representation depends on, such as the Accept header. May be null
+     * @return weak entity tag of every collection of mappings read after the given number of changes
+     */
+    public String collectionTag(long changes, String variant) {
+        String tag = epoch + "-" + Long.toString(changes, Character.MAX_RADIX);
+        if (variant != null) {
+            tag += "-" + Integer.toString(variant.hashCode() & Integer.MAX_VALUE, Character.MAX_RADIX);
+        }
+        return "W/\"" + tag + "\"";
+    }
+
+    /**
+     * @return version of a mapping. Null if it is not known, in which case the mapping has to be read
+     */
+    public Long version(long id) {
+        return versions.getIfPresent(id);
+    }
+
+    /**
+     * Remember the version of a mapping that was read
+     *
+     * @param changes, number of changes before the mapping was read
+     */
+    public void read(long id, long version, long changes) {
+        Long read = version;
+        versions.put(id, read);
+        // A change committed while the mapping was read may have been dropped from the versions before the outdated
+        // one was put. It has been counted by now, so drop the version again
+        if (this.changes.get() != changes) {
+            versions.asMap().remove(id, read);
+        }
+    }
+
+    @EventListener
+    public void onMappingEvent(MappingEvent event) {
+        // Counted first, so that a concurrent read sees the change either in the count or in the versions
+        changes.incrementAndGet();
+        versions.invalidate(event.getId());
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.sas.example.demo.expiry;
+
+import com.sas.example.demo.Mapping;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hides expired mappings that are not deleted yet from lookups by id, key and value and from pages of the
+ * repository, and lets a save take the key of such a mapping. Runs outside the cache, which may hold them.
+ *
+ * Key range scans, streams and batch lookups leave out expired mappings in their queries instead, since a scan
+ * would take a chunk shortened here for the end of its range.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class ExpiryAspect {
+
+    private final MappingExpiry expiry;
+
+    public ExpiryAspect(MappingExpiry expiry) {
+        this.expiry = expiry;
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.findOne(..))"
+            + " || execution(* com.sas.example.demo.MappingRepository.findByKey(String))"
+            + " || execution(* com.sas.example.demo.MappingRepository.findByValue(String))")
+    public Object find(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object mapping = joinPoint.proceed();
+        return mapping instanceof Mapping && ((Mapping) mapping).isExpired(System.currentTimeMillis())
+                ? null : mapping;
+    }
+
+    @Around("execution(org.springframework.data.domain.Page com.sas.example.demo.MappingRepository.*(..))")
+    public Object findPage(ProceedingJoinPoint joinPoint) throws Throwable {
+        @SuppressWarnings("unchecked")
+        Page<Mapping> page = (Page<Mapping>) joinPoint.proceed();
+        List<Mapping> content = live(page.getContent());
+        if (content == null) {
+            return page;
+        }
+        int hidden = page.getNumberOfElements() - content.size();
+        return page.getSize() == 0 ? new PageImpl<>(content)
+                : new PageImpl<>(content, new PageRequest(page.getNumber(), page.getSize(), page.getSort()),
+                page.getTotalElements() - hidden);
+    }
+
+    @Around("execution(Iterable com.sas.example.demo.MappingRepository.findAll(..))")
+    public Object findAll(ProceedingJoinPoint joinPoint) throws Throwable {
+        @SuppressWarnings("unchecked")
+        Iterable<Mapping> mappings = (Iterable<Mapping>) joinPoint.proceed();
+        List<Mapping> all = new ArrayList<>();
+        mappings.forEach(all::add);
+        List<Mapping> live = live(all);
+        return live == null ? all : live;
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.save(..)) && args(mapping)")
+    public Object save(ProceedingJoinPoint joinPoint, Mapping mapping) throws Throwable {
+        long id = mapping.getId();
+        Long version = mapping.getVersion();
+        try {
+            return joinPoint.proceed();
+        }
+        catch (DataIntegrityViolationException ex) {
+            // Within a transaction of the caller, the failed write has spoilt it
+            if (TransactionSynchronizationManager.isActualTransactionActive() || !expiry.purge(mapping.getKey())) {
+                throw ex;
+            }
+            // As it was before the failed write assigned them
+            mapping.setId(id);
+            mapping.setVersion(version);
+            return joinPoint.proceed();
+        }
+    }
+
+    /**
+     * @return the mappings that have not expired. Null if none has
+     */
+    private static List<Mapping> live(List<Mapping> mappings) {
+        long now = System.currentTimeMillis();
+        if (mappings.stream().noneMatch(mapping -> mapping.isExpired(now))) {
+            return null;
+        }
+        List<Mapping> live = new ArrayList<>(mappings.size());
+        for (Mapping mapping : mappings) {
+            if (!mapping.isExpired(now)) {
+                live.add(mapping);
+            }
+        }
+        return live;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.sas.example.demo.expiry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Wires the expiry of mappings unless {@code mapping.expiry.enabled=false}. Only the JPA engine stores expiries;
+ * the other engines refuse mappings that carry one.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mapping.expiry", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ExpiryProperties.class)
+public class ExpiryConfiguration {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+    static class JpaExpiryConfiguration {
+
+        @Bean
+        public MappingExpiry mappingExpiry(EntityManagerFactory entityManagerFactory,
+                                           PlatformTransactionManager transactionManager,
+                                           ExpiryProperties properties) {
+            return new MappingExpiry(entityManagerFactory, transactionManager, properties);
+        }
+
+        @Bean
+        public ExpiryAspect expiryAspect(MappingExpiry mappingExpiry) {
+            return new ExpiryAspect(mappingExpiry);
+        }
+
+        @Bean
+        public ExpiryController expiryController(MappingExpiry mappingExpiry) {
+            return new ExpiryController(mappingExpiry);
+        }
+
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.sas.example.demo.expiry;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+/**
+ * Exposes the mappings waiting to expire and those deleted so far at {@code GET /expiry/stats}.
+ *
+ * Declared by {@link ExpiryConfiguration} along with the expiry rather than found by component scanning, so it only
+ * exists when the expiry does.
+ */
+@RequestMapping("/expiry")
+@ResponseBody
+public class ExpiryController {
+
+    private final MappingExpiry expiry;
+
+    public ExpiryController(MappingExpiry expiry) {
+        this.expiry = expiry;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return expiry.stats();
+    }
+
+}
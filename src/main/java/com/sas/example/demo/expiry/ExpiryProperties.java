@@ -0,0 +1,44 @@
+package com.sas.example.demo.expiry;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the expiry of mappings, see {@link MappingExpiry}
+ */
+@ConfigurationProperties(prefix = "mapping.expiry")
+public class ExpiryProperties {
+
+    // Mappings without an expiry cost nothing, so expiry is on unless turned off
+    private boolean enabled = true;
+
+    // Milliseconds per tick of the timing wheel. Expired mappings are deleted within a tick, and hidden until then
+    private long tick = 1000;
+
+    // Expired mappings deleted per transaction
+    private int batchSize = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+}
@@ -0,0 +1,271 @@
+package com.sas.example.demo.expiry;
+
+import com.sas.example.demo.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes mappings once they expire, driven by a {@link TimingWheel} of their ids.
+ *
+ * The id of every mapping committed with an expiry goes into the wheel, at the tick its expiry falls in; on startup,
+ * those of all stored mappings with an expiry are read by keyset. A mapping is in the wheel once: a later commit moves
+ * it to its new expiry, and one that removes the expiry or deletes the mapping takes it out, so the wheel holds no
+ * more ids than there are mappings with an expiry, whatever the write rate. Every tick the ids due are deleted in
+ * chunks, each chunk in one transaction whose deletes Hibernate sends as JDBC batches, so the cost per expired mapping
+ * does not depend on the size of the table and nothing ever scans it. Only rows whose expiry has passed are deleted;
+ * one whose expiry lies ahead, because commits of the mapping were scheduled out of order, is put back at its stored
+ * expiry. The deletes publish change events like any other, so caches, the change feed and replicas follow.
+ */
+public class MappingExpiry implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappingExpiry.class);
+
+    // Rows read at once on startup
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ExpiryProperties properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Guarded by itself
+    private final TimingWheel wheel;
+
+    private final ScheduledExecutorService ticker;
+
+    private final AtomicLong deleted = new AtomicLong();
+
+    public MappingExpiry(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+                         ExpiryProperties properties) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        wheel = new TimingWheel(System.currentTimeMillis() / properties.getTick());
+        ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mapping-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Schedule the stored mappings with an expiry, and start deleting them as they expire
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long loaded = 0;
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Object[]> chunk = entityManager.createQuery("select m.id, m.expiresAt from Mapping m"
+                    + " where m.expiresAt is not null and m.id > :after order by m.id", Object[].class)
+                    .setParameter("after", after)
+                    .setMaxResults(LOAD_CHUNK_SIZE)
+                    .getResultList();
+            for (Object[] row : chunk) {
+                schedule((Long) row[0], (Long) row[1]);
+            }
+            loaded += chunk.size();
+            if (chunk.size() < LOAD_CHUNK_SIZE) {
+                break;
+            }
+            after = (Long) chunk.get(chunk.size() - 1)[0];
+        }
+        logger.info("Scheduled {} mappings to expire", loaded);
+        ticker.scheduleWithFixedDelay(this::tick, properties.getTick(), properties.getTick(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Delete the mapping holding a key if it has expired, so that the key can be taken before its tick comes
+     *
+     * @return whether the key is free, that is no mapping holds it any more or the one holding it has expired. The
+     * wheel may have deleted it in the meantime
+     */
+    public boolean purge(String key) {
+        long now = System.currentTimeMillis();
+        return transactionTemplate.execute(status -> {
+            List<Mapping> holders = entityManager
+                    .createQuery("select m from Mapping m where m.key = :key", Mapping.class)
+                    .setParameter("key", key)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            boolean free = true;
+            for (Mapping mapping : holders) {
+                if (mapping.isExpired(now)) {
+                    entityManager.remove(mapping);
+                    deleted.incrementAndGet();
+                }
+                else {
+                    free = false;
+                }
+            }
+            return free;
+        });
+    }
+
+    /**
+     * @return ids waiting in the wheel and mappings deleted since startup
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (wheel) {
+            result.put("scheduled", wheel.size());
+        }
+        result.put("deleted", deleted.get());
+        result.put("tick", properties.getTick());
+        return result;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Mapping mapping = (Mapping) event.getEntity();
+        if (mapping.getExpiresAt() != null) {
+            schedule(mapping.getId(), mapping.getExpiresAt());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Mapping mapping = (Mapping) event.getEntity();
+        if (mapping.getExpiresAt() != null) {
+            schedule(mapping.getId(), mapping.getExpiresAt());
+        }
+        else {
+            unschedule(mapping.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        unschedule(((Mapping) event.getEntity()).getId());
+    }
+
+    // Nothing was committed, so there is nothing to schedule
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Mapping.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private void schedule(long id, long expiresAt) {
+        synchronized (wheel) {
+            wheel.add(id, tick(expiresAt));
+        }
+    }
+
+    // The first tick that starts at or after the expiry. Rounded up without adding to it, which could overflow
+    private long tick(long expiresAt) {
+        long tick = expiresAt / properties.getTick();
+        return expiresAt % properties.getTick() > 0 ? tick + 1 : tick;
+    }
+
+    private void unschedule(long id) {
+        synchronized (wheel) {
+            wheel.remove(id);
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<Long> due;
+        synchronized (wheel) {
+            due = wheel.advance(now / properties.getTick());
+        }
+        for (int from = 0; from < due.size(); from += properties.getBatchSize()) {
+            List<Long> chunk = due.subList(from, Math.min(due.size(), from + properties.getBatchSize()));
+            try {
+                deleted.addAndGet(transactionTemplate.execute(status -> delete(chunk, now)));
+            }
+            catch (RuntimeException ex) {
+                logger.warn("Deleting {} expired mappings failed, trying again next tick", chunk.size(), ex);
+                synchronized (wheel) {
+                    // Unless committed again meanwhile, and scheduled at their new expiry
+                    chunk.stream().filter(id -> !wheel.contains(id))
+                            .forEach(id -> schedule(id, now + properties.getTick()));
+                }
+            }
+        }
+    }
+
+    private int delete(List<Long> ids, long now) {
+        List<Mapping> expired = entityManager
+                .createQuery("select m from Mapping m where m.id in :ids and m.expiresAt <= :now", Mapping.class)
+                .setParameter("ids", ids)
+                .setParameter("now", now)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        expired.forEach(entityManager::remove);
+        List<Object[]> ahead = entityManager.createQuery("select m.id, m.expiresAt from Mapping m"
+                + " where m.id in :ids and m.expiresAt > :now", Object[].class)
+                .setParameter("ids", ids)
+                .setParameter("now", now)
+                .getResultList();
+        synchronized (wheel) {
+            for (Object[] row : ahead) {
+                if (!wheel.contains((Long) row[0])) {
+                    wheel.add((Long) row[0], tick((Long) row[1]));
+                }
+            }
+        }
+        return expired.size();
+    }
+
+}
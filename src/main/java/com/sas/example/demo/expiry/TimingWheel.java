@@ -0,0 +1,208 @@
+package com.sas.example.demo.expiry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel of mapping ids, each due at a tick.
+ *
+ * Level 0 has a slot per tick for the next 64 ticks, level 1 a slot per 64 ticks for the next 64 * 64, and so on.
+ * An id goes into the slot of the lowest level that reaches its tick, and is moved down a level each time the slot
+ * below wraps around, so adding costs O(1) and an id is moved at most once per level before it is due. Ids further out
+ * than the top level reaches wait in its last slot and are placed again when they get there.
+ *
+ * An id is in the wheel at most once. Its entry is found by id, and unlinked from its slot in O(1) when the id is
+ * scheduled again or removed, so the wheel holds one entry per mapping with an expiry however often it is written.
+ *
+ * Not thread safe; the caller synchronizes.
+ */
+final class TimingWheel {
+
+    private static final int BITS = 6;
+
+    private static final int SLOTS = 1 << BITS;
+
+    private static final int MASK = SLOTS - 1;
+
+    // 64^5 ticks, 34 years of one second ticks
+    private static final int LEVELS = 5;
+
+    // Level of the overdue ids
+    private static final int OVERDUE = -1;
+
+    private final Entry[][] slots = new Entry[LEVELS][SLOTS];
+
+    // Ticks up to and including this one have been advanced over
+    private long current;
+
+    // Ids due at a tick already advanced over, returned by the next advance
+    private Entry overdue;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    TimingWheel(long current) {
+        this.current = current;
+    }
+
+    /**
+     * @param id, id of the mapping. Moved if it is in the wheel already
+     * @param tick, tick the id is due at. Returned by the next advance if it was advanced over already
+     */
+    void add(long id, long tick) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            entry = new Entry(id);
+            entries.put(id, entry);
+        }
+        else if (entry.tick == tick) {
+            return;
+        }
+        else {
+            unlink(entry);
+        }
+        entry.tick = tick;
+        if (tick <= current) {
+            link(entry, OVERDUE, 0);
+        }
+        else {
+            place(entry);
+        }
+    }
+
+    /**
+     * @return whether the id was in the wheel
+     */
+    boolean remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Advance over the ticks up to and including the given one
+     *
+     * @return ids due, in no particular order
+     */
+    List<Long> advance(long tick) {
+        List<Long> due = new ArrayList<>();
+        Entry entry = overdue;
+        overdue = null;
+        collect(entry, due);
+        while (current < tick) {
+            current++;
+            // Move the slot of each level that comes up down to the levels below, before level 0 is read
+            for (int level = 1; level < LEVELS && (current & ((1L << (BITS * level)) - 1)) == 0; level++) {
+                int slot = (int) (current >>> (BITS * level)) & MASK;
+                Entry cascaded = slots[level][slot];
+                slots[level][slot] = null;
+                while (cascaded != null) {
+                    Entry next = cascaded.next;
+                    place(cascaded);
+                    cascaded = next;
+                }
+            }
+            int slot = (int) current & MASK;
+            entry = slots[0][slot];
+            slots[0][slot] = null;
+            collect(entry, due);
+        }
+        return due;
+    }
+
+    /**
+     * @return ids waiting, whether due or not
+     */
+    long size() {
+        return entries.size();
+    }
+
+    long getCurrent() {
+        return current;
+    }
+
+    private void collect(Entry entry, List<Long> due) {
+        while (entry != null) {
+            due.add(entry.id);
+            entries.remove(entry.id);
+            entry = entry.next;
+        }
+    }
+
+    // An entry due at the current tick goes into the slot of level 0 about to be read
+    private void place(Entry entry) {
+        long delay = entry.tick - current;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        // Beyond the reach of the top level: wait in the slot it reaches last
+        long tick = delay >= 1L << (BITS * LEVELS) ? current + (1L << (BITS * LEVELS)) - 1 : entry.tick;
+        link(entry, level, (int) (tick >>> (BITS * level)) & MASK);
+    }
+
+    // Push onto the head of a slot, or of the overdue ids
+    private void link(Entry entry, int level, int slot) {
+        Entry head = level == OVERDUE ? overdue : slots[level][slot];
+        entry.level = level;
+        entry.slot = slot;
+        entry.previous = null;
+        entry.next = head;
+        if (head != null) {
+            head.previous = entry;
+        }
+        if (level == OVERDUE) {
+            overdue = entry;
+        }
+        else {
+            slots[level][slot] = entry;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        }
+        else if (entry.level == OVERDUE) {
+            overdue = entry.next;
+        }
+        else {
+            slots[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.next = null;
+        entry.previous = null;
+    }
+
+    private static final class Entry {
+
+        private final long id;
+
+        private long tick;
+
+        // Where it is linked: level and slot, or OVERDUE
+        private int level;
+
+        private int slot;
+
+        private Entry next;
+
+        private Entry previous;
+
+        private Entry(long id) {
+            this.id = id;
+        }
+
+    }
+
+}
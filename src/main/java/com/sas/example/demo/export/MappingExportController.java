@@ -0,0 +1,52 @@
+package com.sas.example.demo.export;
+
+import com.sas.example.demo.keyset.KeyRange;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Streams the whole mapping table as newline-delimited JSON at {@code GET /mappings/export}, in id order. Given a
+ * prefix, or a range with from and to, only the mappings of those keys are streamed, in key order.
+ */
+@RepositoryRestController
+public class MappingExportController {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final MappingExporter exporter;
+
+    public MappingExportController(MappingExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    // No produces condition: Spring Data REST treats a missing or wildcard Accept header as its own HAL type, which
+    // would otherwise route this path to the item resource
+    @RequestMapping(value = "/mappings/export", method = RequestMethod.GET)
+    public void export(@RequestParam(value = "prefix", required = false) String prefix,
+                       @RequestParam(value = "from", required = false) String from,
+                       @RequestParam(value = "to", required = false) String to,
+                       HttpServletResponse response) throws IOException {
+        KeyRange range;
+        try {
+            range = KeyRange.of(prefix, from, to);
+        }
+        catch (IllegalArgumentException ex) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
+            return;
+        }
+        response.setContentType(APPLICATION_NDJSON_VALUE + ";charset=UTF-8");
+        if (range.isAll()) {
+            exporter.export(response.getOutputStream());
+        }
+        else {
+            exporter.export(response.getOutputStream(), range);
+        }
+    }
+
+}
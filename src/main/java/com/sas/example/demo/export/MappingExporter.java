@@ -0,0 +1,132 @@
+package com.sas.example.demo.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.keyset.KeyRange;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes all mappings as newline-delimited JSON, one {@code {"id":..,"key":..,"value":..,"version":..}} object per
+ * line, with the {@code expiresAt} of mappings that expire.
+ *
+ * Rows are read over a cursor and detached as soon as they are written, so neither the persistence context nor the
+ * output grows with the size of the table. A range of keys is read in chunks by keyset instead, seeking on the key
+ * index from the last key of the previous chunk.
+ */
+@Component
+public class MappingExporter {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // Lines are separated by hand; the default separator of root values would start each line after the first with a
+    // space
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+
+    private final MappingRepository repository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public MappingExporter(MappingRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Export all mappings in id order
+     *
+     * @param out, stream to write to. Left open
+     * @return number of exported mappings
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out) throws IOException {
+        long count = 0;
+        setLazyQueryExecution(true);
+        try (Stream<Mapping> mappings = repository.streamAll();
+             JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            Iterator<Mapping> iterator = mappings.iterator();
+            while (iterator.hasNext()) {
+                Mapping mapping = iterator.next();
+                write(generator, mapping);
+                // Mappings of storage engines other than JPA are not managed
+                if (entityManager.contains(mapping)) {
+                    entityManager.detach(mapping);
+                }
+                count++;
+            }
+        }
+        finally {
+            setLazyQueryExecution(false);
+        }
+        return count;
+    }
+
+    /**
+     * Export the mappings of a range of keys in key order
+     *
+     * @param out, stream to write to. Left open
+     * @param range, keys to export
+     * @return number of exported mappings
+     */
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, KeyRange range) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            List<Mapping> chunk = range.scan(repository, null, CHUNK_SIZE);
+            while (!chunk.isEmpty()) {
+                for (Mapping mapping : chunk) {
+                    write(generator, mapping);
+                }
+                count += chunk.size();
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                entityManager.clear();
+                chunk = range.scan(repository, chunk.get(chunk.size() - 1).getKey(), CHUNK_SIZE);
+            }
+        }
+        return count;
+    }
+
+    private static void write(JsonGenerator generator, Mapping mapping) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", mapping.getId());
+        generator.writeStringField("key", mapping.getKey());
+        generator.writeStringField("value", mapping.getValue());
+        if (mapping.getVersion() != null) {
+            generator.writeNumberField("version", mapping.getVersion());
+        }
+        if (mapping.getExpiresAt() != null) {
+            generator.writeNumberField("expiresAt", mapping.getExpiresAt());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Embedded H2 materializes a whole result set in memory unless it runs the query lazily. Only the connection of
+     * this transaction is switched, and switched back before it returns to the pool.
+     */
+    private void setLazyQueryExecution(boolean lazy) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? 1 : 0));
+            }
+        });
+    }
+
+}
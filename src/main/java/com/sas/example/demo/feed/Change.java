@@ -0,0 +1,55 @@
+package com.sas.example.demo.feed;
+
+import com.sas.example.demo.MappingEvent;
+
+/**
+ * Committed change to a mapping, numbered in the order it was published
+ */
+final class Change {
+
+    private final long sequence;
+
+    private final MappingEvent event;
+
+    // Milliseconds since the epoch when the change was published
+    private final long time;
+
+    // Server-sent event, rendered once for all streams. Rendering it twice concurrently does no harm
+    private volatile String frame;
+
+    Change(long sequence, MappingEvent event) {
+        this.sequence = sequence;
+        this.event = event;
+        this.time = System.currentTimeMillis();
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    MappingEvent getEvent() {
+        return event;
+    }
+
+    long getTime() {
+        return time;
+    }
+
+    String getFrame() {
+        return frame;
+    }
+
+    void setFrame(String frame) {
+        this.frame = frame;
+    }
+
+    /**
+     * @param prefix, key prefix a consumer asked for. Null for all changes
+     * @return whether the change concerns a key that starts with the prefix, before or after it
+     */
+    boolean matches(String prefix) {
+        return prefix == null || event.getKey().startsWith(prefix)
+                || (event.getPreviousKey() != null && event.getPreviousKey().startsWith(prefix));
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.sas.example.demo.feed;
+
+import com.sas.example.demo.MappingEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring buffer of the latest changes. Appending takes a short lock among writers; reading takes none, so any number
+ * of streams can read without holding up writers.
+ *
+ * Sequence numbers start at 1 and have no gaps. A reader that falls further behind than the capacity of the buffer
+ * is told so, rather than silently skipping changes.
+ */
+final class ChangeBuffer {
+
+    private final AtomicReferenceArray<Change> slots;
+
+    private final Object appendLock = new Object();
+
+    // Sequence of the latest change, 0 before the first. Its slot is written before it is published here
+    private volatile long last;
+
+    ChangeBuffer(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    Change append(MappingEvent event) {
+        synchronized (appendLock) {
+            Change change = new Change(last + 1, event);
+            slots.set(index(change.getSequence()), change);
+            last = change.getSequence();
+            return change;
+        }
+    }
+
+    /**
+     * @return sequence of the latest change, 0 if there is none
+     */
+    long last() {
+        return last;
+    }
+
+    /**
+     * @return whether all changes after the given one are still buffered
+     */
+    boolean isBuffered(long after) {
+        long last = this.last;
+        return after >= 0 && after <= last && last - after <= slots.length();
+    }
+
+    /**
+     * @param after, sequence of the last change read
+     * @param limit, maximum number of changes to return
+     * @return the next changes in sequence order, empty if there are none. Null if some of them were overwritten
+     */
+    List<Change> after(long after, int limit) {
+        long last = this.last;
+        if (after >= last) {
+            return Collections.emptyList();
+        }
+        if (last - after > slots.length()) {
+            return null;
+        }
+        List<Change> changes = new ArrayList<>((int) Math.min(limit, last - after));
+        for (long sequence = after + 1; sequence <= last && changes.size() < limit; sequence++) {
+            Change change = slots.get(index(sequence));
+            // Overwritten by a later change since the latest sequence was read
+            if (change.getSequence() != sequence) {
+                return null;
+            }
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % slots.length());
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.sas.example.demo.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sas.example.demo.MappingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams committed changes to mappings as server-sent events.
+ *
+ * A write only appends its change to a {@link ChangeBuffer} and wakes up a dispatcher when it is idle; it never
+ * waits for a stream. The dispatcher then has every stream write what it has not seen yet, on the feed executor.
+ * Each event is rendered once, and a stream writes all changes that piled up since its last write at once, so a
+ * burst of changes costs a stream one write rather than one per change.
+ *
+ * Every event carries its sequence number as its id. A consumer that falls further behind than the buffer has its
+ * stream closed; resuming from the last id it saw then fails, and it has to read the mappings again.
+ */
+public class ChangeFeed implements Closeable {
+
+    public static final MediaType TEXT_EVENT_STREAM = new MediaType("text", "event-stream", StandardCharsets.UTF_8);
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+
+    // Changes written to a stream at once
+    private static final int BATCH_SIZE = 256;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // Tells event ids of this run from those of an earlier one, whose sequence numbers started over
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final ChangeBuffer buffer;
+
+    private final TaskExecutor executor;
+
+    private final ChangeFeedProperties properties;
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    // Dispatches requested while a dispatch runs. The writer that raises it from 0 starts one
+    private final AtomicInteger dispatches = new AtomicInteger();
+
+    private final ScheduledExecutorService heartbeats;
+
+    public ChangeFeed(TaskExecutor executor, ChangeFeedProperties properties) {
+        this.buffer = new ChangeBuffer(properties.getBufferSize());
+        this.executor = executor;
+        this.properties = properties;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mapping-feed-heartbeats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, properties.getHeartbeatInterval(),
+                properties.getHeartbeatInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onMappingEvent(MappingEvent event) {
+        buffer.append(event);
+        if (dispatches.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::dispatch);
+            }
+            catch (TaskRejectedException ex) {
+                // Shutting down, the streams are being closed
+                dispatches.set(0);
+            }
+        }
+    }
+
+    /**
+     * @return sequence number of the latest change, 0 if there is none
+     */
+    public long last() {
+        return buffer.last();
+    }
+
+    /**
+     * @return id of the latest change, to resume from. Refers to the start of the feed if there is none
+     */
+    public String lastEventId() {
+        return epoch + "-" + buffer.last();
+    }
+
+    /**
+     * @param id, id of an event of the feed
+     * @return sequence number of the event. Null if it is from an earlier run, or its changes after it are no
+     * longer buffered
+     * @throws IllegalArgumentException if it is not an event id
+     */
+    public Long resumeFrom(String id) {
+        int separator = id.lastIndexOf('-');
+        long sequence;
+        try {
+            sequence = Long.parseLong(id.substring(separator + 1));
+        }
+        catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Not an event id: " + id);
+        }
+        if (separator >= 0 && !id.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        return buffer.isBuffered(sequence) ? sequence : null;
+    }
+
+    /**
+     * Open a stream of the changes after the given one
+     *
+     * @param after, sequence number of the last change the consumer has seen
+     * @param prefix, key prefix of the changes to stream. Null for all changes
+     * @return stream. Null if there are as many streams open as allowed
+     */
+    public ResponseBodyEmitter subscribe(long after, String prefix) {
+        if (subscribers.size() >= properties.getMaxSubscribers()) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(after, prefix);
+        subscribers.add(subscriber);
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        // Writes what was buffered after the given change, or a comment to show the stream is open
+        subscriber.heartbeat = true;
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    /**
+     * @return number of open streams
+     */
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private void dispatch() {
+        int missed = 1;
+        do {
+            subscribers.forEach(Subscriber::schedule);
+            missed = dispatches.addAndGet(-missed);
+        }
+        while (missed != 0);
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            subscriber.schedule();
+        }
+    }
+
+    private String frame(Change change) {
+        String frame = change.getFrame();
+        if (frame == null) {
+            MappingEvent event = change.getEvent();
+            ObjectNode data = mapper.createObjectNode();
+            data.put("sequence", change.getSequence());
+            data.put("type", event.getType().name());
+            data.put("id", event.getId());
+            data.put("key", event.getKey());
+            data.put("value", event.getValue());
+            if (event.getPreviousKey() != null) {
+                data.put("previousKey", event.getPreviousKey());
+            }
+            if (event.getVersion() != null) {
+                data.put("version", event.getVersion());
+            }
+            if (event.getExpiresAt() != null) {
+                data.put("expiresAt", event.getExpiresAt());
+            }
+            data.put("time", change.getTime());
+            try {
+                frame = "id:" + epoch + "-" + change.getSequence() + "\nevent:"
+                        + event.getType().name().toLowerCase() + "\ndata:" + mapper.writeValueAsString(data) + "\n\n";
+            }
+            catch (JsonProcessingException ex) {
+                throw new IllegalStateException(ex);
+            }
+            change.setFrame(frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Stream of one consumer. Written by one thread at a time, see {@link #schedule()}
+     */
+    private final class Subscriber implements Runnable {
+
+        private final ResponseBodyEmitter emitter;
+
+        private final String prefix;
+
+        // Sequence of the last change written, or skipped by the prefix
+        private long cursor;
+
+        // Whether to write a comment if there is no change to write
+        private volatile boolean heartbeat;
+
+        // Writes requested while a write runs. The caller that raises it from 0 starts one
+        private final AtomicInteger writes = new AtomicInteger();
+
+        private volatile boolean closed;
+
+        Subscriber(long after, String prefix) {
+            this.emitter = new ResponseBodyEmitter(properties.getTimeout());
+            this.cursor = after;
+            this.prefix = prefix;
+        }
+
+        void schedule() {
+            if (writes.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                }
+                catch (TaskRejectedException ex) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!closed) {
+                    write();
+                }
+                missed = writes.addAndGet(-missed);
+            }
+            while (missed != 0);
+        }
+
+        private void write() {
+            try {
+                boolean written = false;
+                List<Change> changes = buffer.after(cursor, BATCH_SIZE);
+                while (changes != null && !changes.isEmpty()) {
+                    StringBuilder frames = new StringBuilder();
+                    for (Change change : changes) {
+                        if (change.matches(prefix)) {
+                            frames.append(frame(change));
+                        }
+                        cursor = change.getSequence();
+                    }
+                    if (frames.length() > 0) {
+                        emitter.send(frames.toString(), TEXT_EVENT_STREAM);
+                        written = true;
+                    }
+                    changes = buffer.after(cursor, BATCH_SIZE);
+                }
+                if (changes == null) {
+                    // Fell behind the buffer
+                    close();
+                    return;
+                }
+                if (heartbeat) {
+                    heartbeat = false;
+                    if (!written) {
+                        // Carries the time it was sent, for replicas to measure their lag against
+                        emitter.send(":" + System.currentTimeMillis() + "\n\n", TEXT_EVENT_STREAM);
+                    }
+                }
+            }
+            catch (IOException | IllegalStateException ex) {
+                // Gone away, or completed meanwhile
+                logger.debug("Closing a change stream", ex);
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            try {
+                emitter.complete();
+            }
+            catch (IllegalStateException ex) {
+                // Already completed
+            }
+        }
+
+    }
+
+}
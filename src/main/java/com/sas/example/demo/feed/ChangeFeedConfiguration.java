@@ -0,0 +1,31 @@
+package com.sas.example.demo.feed;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Wires the change feed and the executor that writes its streams
+ */
+@Configuration
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfiguration {
+
+    @Bean
+    public ThreadPoolTaskExecutor mappingFeedExecutor(ChangeFeedProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("mapping-feed-");
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        // Unbounded, yet never holds more than one task per stream and the dispatcher
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    @Bean
+    public ChangeFeed changeFeed(ThreadPoolTaskExecutor mappingFeedExecutor, ChangeFeedProperties properties) {
+        return new ChangeFeed(mappingFeedExecutor, properties);
+    }
+
+}
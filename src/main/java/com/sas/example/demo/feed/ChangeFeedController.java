@@ -0,0 +1,64 @@
+package com.sas.example.demo.feed;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * Change feed of the mappings at {@code /mappings/changes}, as server-sent events. See {@link ChangeFeed}.
+ *
+ * An EventSource resumes on its own after a disconnect, sending the id of the last event it received as
+ * Last-Event-ID. Other consumers can pass it as the after parameter.
+ */
+@RestController
+public class ChangeFeedController {
+
+    private final ChangeFeed feed;
+
+    public ChangeFeedController(ChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * @param prefix, only stream changes to keys that start with it
+     * @param after, id of the last event seen, to resume from. Without it, the stream starts with the next change
+     * @param lastEventId, same as after, sent by an EventSource when it reconnects
+     * @return stream of changes. 410 if the changes after the given event are no longer buffered, in which case the
+     * consumer has to read the mappings again. 503 if too many streams are open
+     */
+    @GetMapping("/mappings/changes")
+    public ResponseEntity<ResponseBodyEmitter> changes(
+            @RequestParam(value = "prefix", required = false) String prefix,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String resume = lastEventId != null ? lastEventId : after;
+        long sequence = feed.last();
+        if (resume != null) {
+            Long resumed;
+            try {
+                resumed = feed.resumeFrom(resume);
+            }
+            catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (resumed == null) {
+                return ResponseEntity.status(HttpStatus.GONE).build();
+            }
+            sequence = resumed;
+        }
+        ResponseBodyEmitter emitter = feed.subscribe(sequence, prefix == null || prefix.isEmpty() ? null : prefix);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return ResponseEntity.ok()
+                .contentType(ChangeFeed.TEXT_EVENT_STREAM)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .body(emitter);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.sas.example.demo.feed;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the change feed at {@code /mappings/changes}
+ */
+@ConfigurationProperties(prefix = "mapping.feed")
+public class ChangeFeedProperties {
+
+    // Latest changes kept in memory, for consumers to resume from after a disconnect
+    private int bufferSize = 65536;
+
+    // Upper bound on the number of open streams
+    private int maxSubscribers = 1000;
+
+    // Threads writing changes to the streams. A stream is written by one thread at a time
+    private int threads = 4;
+
+    // Milliseconds after which a stream is closed, and the consumer expected to reconnect
+    private long timeout = 3600000;
+
+    // Milliseconds between comments sent to idle streams, so that dead connections are noticed
+    private long heartbeatInterval = 15000;
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.sas.example.demo.filter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of strings, sized for a number of insertions and a false positive probability. Adds and lookups run
+ * concurrently without locks; a lookup started after an add has returned sees it.
+ *
+ * Each string sets or tests {@code hashes} bits, derived from two 64-bit hashes of its characters.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bits;
+
+    private final int hashes;
+
+    private final long capacity;
+
+    /**
+     * @param capacity, number of distinct strings the filter is sized for
+     * @param falsePositiveProbability, chance that a string that was never added is reported as present, once the
+     *                                  filter holds its capacity
+     */
+    BloomFilter(long capacity, double falsePositiveProbability) {
+        long capacityOrOne = Math.max(1, capacity);
+        double bitsPerString = -Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        // Whole words, at most as many as an array holds
+        int length = (int) Math.min(Integer.MAX_VALUE - 8,
+                Math.max(1, (long) Math.ceil(capacityOrOne * bitsPerString / 64)));
+        this.words = new AtomicLongArray(length);
+        this.bits = (long) length * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacityOrOne * Math.log(2)));
+        this.capacity = capacityOrOne;
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        long first = mix(hash);
+        long second = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(first + i * second, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * @return false if the string was certainly never added
+     */
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long first = mix(hash);
+        long second = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(first + i * second, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    long getBits() {
+        return bits;
+    }
+
+    int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * @return share of the bits set, from 0 to 1. Counts every word, so meant for reporting only
+     */
+    double fill() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return (double) set / bits;
+    }
+
+    /**
+     * @return chance that a string that was never added is reported as present, given the bits set so far
+     */
+    double falsePositiveProbability() {
+        return Math.pow(fill(), hashes);
+    }
+
+    // FNV-1a over the characters, spread by the finalizer of MurmurHash3
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53ef2c1L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,263 @@
+package com.sas.example.demo.filter;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.Closeable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter over the keys of all mappings, so that lookups of keys that certainly do not exist are answered
+ * without a query.
+ *
+ * The filter is built from the table once the application is ready; until then every key may exist. A key is added
+ * by Hibernate before its row is inserted or updated, so no lookup can miss a committed key, and again once the change
+ * is published, for a rebuild that read the table before the commit. Deleted keys, and the keys mappings had before an
+ * update, cannot be taken out of a Bloom filter and keep costing a query until the next rebuild. The filter is
+ * rebuilt in the background once more keys were added than it was sized for, which keeps its false positive rate near
+ * the configured one as the table grows and churns.
+ */
+public class KeyFilter implements PreInsertEventListener, PreUpdateEventListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyFilter.class);
+
+    // Keys read at once while building
+    private static final int CHUNK_SIZE = 1000;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final KeyFilterProperties properties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ExecutorService rebuilds;
+
+    // Whether a rebuild is queued on the executor
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Filter lookups are checked against. Null until it is built
+    private volatile BloomFilter filter;
+
+    // Filter being built, which receives every key added meanwhile
+    private volatile BloomFilter next;
+
+    // Keys the filter was built from, plus those created or renamed since
+    private final AtomicLong keys = new AtomicLong();
+
+    private final AtomicLong builds = new AtomicLong();
+
+    private final LongAdder negatives = new LongAdder();
+
+    private final LongAdder positives = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    public KeyFilter(EntityManagerFactory entityManagerFactory, KeyFilterProperties properties) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+        rebuilds = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "mapping-key-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, this);
+        registry.appendListeners(EventType.PRE_UPDATE, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * @param key, key of a mapping
+     * @return false if there is certainly no mapping with the key. Counted as a negative
+     */
+    public boolean mightContain(String key) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(key)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Record the outcome of a lookup the filter let through
+     *
+     * @param found, whether the key existed
+     */
+    public void looked(boolean found) {
+        if (found) {
+            positives.increment();
+        }
+        else {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Build the filter again from the keys in the table, sized for twice their number or the expected insertions,
+     * whichever is larger. Waits for a rebuild that is already running.
+     */
+    public synchronized void rebuild() {
+        try {
+            long started = System.currentTimeMillis();
+            long count = entityManager.createQuery("select count(m) from Mapping m", Long.class).getSingleResult();
+            BloomFilter built = new BloomFilter(Math.max(properties.getExpectedInsertions(), count * 2),
+                    properties.getFalsePositiveProbability());
+            next = built;
+            keys.set(0);
+
+            long read = 0;
+            List<String> chunk = entityManager.createQuery("select m.key from Mapping m order by m.key", String.class)
+                    .setMaxResults(CHUNK_SIZE)
+                    .getResultList();
+            while (!chunk.isEmpty()) {
+                chunk.forEach(built::add);
+                read += chunk.size();
+                if (chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                chunk = entityManager.createQuery("select m.key from Mapping m where m.key > :after order by m.key",
+                        String.class)
+                        .setParameter("after", chunk.get(chunk.size() - 1))
+                        .setMaxResults(CHUNK_SIZE)
+                        .getResultList();
+            }
+
+            // Published before the filter being built is let go, see add
+            filter = built;
+            next = null;
+            keys.addAndGet(read);
+            builds.incrementAndGet();
+            logger.info("Built key filter of {} keys, {} bytes, in {} ms", read, built.getBits() / 8,
+                    System.currentTimeMillis() - started);
+        }
+        finally {
+            next = null;
+        }
+    }
+
+    /**
+     * @return size, fill and false positive rates of the filter, and the outcome of lookups since startup
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        BloomFilter current = filter;
+        result.put("ready", current != null);
+        result.put("builds", builds.get());
+        if (current != null) {
+            result.put("keys", keys.get());
+            result.put("capacity", current.getCapacity());
+            result.put("bytes", current.getBits() / 8);
+            result.put("hashes", current.getHashes());
+            result.put("fill", current.fill());
+            result.put("expectedFalsePositiveProbability", current.falsePositiveProbability());
+        }
+        long negatives = this.negatives.sum();
+        long falsePositives = this.falsePositives.sum();
+        result.put("negatives", negatives);
+        result.put("positives", positives.sum());
+        result.put("falsePositives", falsePositives);
+        // Share of lookups of missing keys that still ran a query
+        result.put("falsePositiveRate",
+                negatives + falsePositives == 0 ? 0.0 : (double) falsePositives / (negatives + falsePositives));
+        return result;
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        if (event.getEntity() instanceof Mapping) {
+            add(((Mapping) event.getEntity()).getKey());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        if (event.getEntity() instanceof Mapping) {
+            add(((Mapping) event.getEntity()).getKey());
+        }
+        return false;
+    }
+
+    @EventListener
+    public void onMappingEvent(MappingEvent event) {
+        if (event.getType() == MappingEvent.Type.DELETED) {
+            return;
+        }
+        add(event.getKey());
+        if (event.getType() == MappingEvent.Type.CREATED || !event.getKey().equals(event.getPreviousKey())) {
+            keys.incrementAndGet();
+            if (isFull() && scheduled.compareAndSet(false, true)) {
+                rebuilds.execute(this::rebuildQuietly);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        rebuilds.shutdownNow();
+    }
+
+    // The filter being built is read first: once it is let go, the filter in use is the one it became
+    private void add(String key) {
+        BloomFilter building = next;
+        BloomFilter current = filter;
+        if (building != null) {
+            building.add(key);
+        }
+        if (current != null) {
+            current.add(key);
+        }
+    }
+
+    // Holds more keys than it was sized for
+    private boolean isFull() {
+        BloomFilter current = filter;
+        return current != null && keys.get() > current.getCapacity();
+    }
+
+    private void rebuildQuietly() {
+        scheduled.set(false);
+        try {
+            if (isFull()) {
+                rebuild();
+            }
+        }
+        catch (RuntimeException ex) {
+            logger.warn("Rebuilding the key filter failed, keeping the current one", ex);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.sas.example.demo.filter;
+
+import com.sas.example.demo.batch.LookupResult;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers lookups of keys the {@link KeyFilter} rules out without a query, for {@code MappingRepository.findByKey}
+ * and batch lookups alike. Runs before the cache, so that misses, which the cache does not keep, never reach it.
+ *
+ * Lookups within a transaction of the caller always run their query, which flushes the mappings the transaction has
+ * saved but not written yet, and which the filter has therefore not seen.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class KeyFilterAspect {
+
+    private final KeyFilter filter;
+
+    public KeyFilterAspect(KeyFilter filter) {
+        this.filter = filter;
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.findByKey(String)) && args(key)")
+    public Object findByKey(ProceedingJoinPoint joinPoint, String key) throws Throwable {
+        if (key == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        if (!filter.mightContain(key)) {
+            return null;
+        }
+        Object mapping = joinPoint.proceed();
+        filter.looked(mapping != null);
+        return mapping;
+    }
+
+    @Around("execution(* com.sas.example.demo.batch.MappingBatchRepository.findByKeys(java.util.List)) && args(keys)")
+    public Object findByKeys(ProceedingJoinPoint joinPoint, List<String> keys) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        List<String> candidates = new ArrayList<>(keys.size());
+        Set<String> ruledOut = new HashSet<>();
+        for (String key : keys) {
+            if (key == null || filter.mightContain(key)) {
+                candidates.add(key);
+            }
+            else {
+                ruledOut.add(key);
+            }
+        }
+        if (ruledOut.isEmpty()) {
+            return joinPoint.proceed();
+        }
+
+        LookupResult result = (LookupResult) joinPoint.proceed(new Object[]{candidates});
+        // Put the keys ruled out back among the missing ones, in the order of the request
+        Set<String> missing = new HashSet<>(result.getMissing());
+        missing.addAll(ruledOut);
+        result.getMissing().clear();
+        for (String key : new LinkedHashSet<>(keys)) {
+            if (missing.contains(key)) {
+                result.getMissing().add(key);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.sas.example.demo.filter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Wires the key filter unless {@code mapping.filter.enabled=false}. Only the JPA engine queries for a lookup; the
+ * other engines look keys up in memory anyway.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mapping.filter", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(KeyFilterProperties.class)
+public class KeyFilterConfiguration {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+    static class JpaKeyFilterConfiguration {
+
+        @Bean
+        public KeyFilter keyFilter(EntityManagerFactory entityManagerFactory, KeyFilterProperties properties) {
+            return new KeyFilter(entityManagerFactory, properties);
+        }
+
+        @Bean
+        public KeyFilterAspect keyFilterAspect(KeyFilter keyFilter) {
+            return new KeyFilterAspect(keyFilter);
+        }
+
+        @Bean
+        public KeyFilterController keyFilterController(KeyFilter keyFilter) {
+            return new KeyFilterController(keyFilter);
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.sas.example.demo.filter;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+/**
+ * Exposes the size and false positive rates of the key filter at {@code GET /filter/stats}.
+ * {@code POST /filter/rebuild} builds it again from the table, which drops the keys deleted since.
+ *
+ * Declared by {@link KeyFilterConfiguration} along with the filter rather than found by component scanning, so it
+ * only exists when the filter does.
+ */
+@RequestMapping("/filter")
+@ResponseBody
+public class KeyFilterController {
+
+    private final KeyFilter filter;
+
+    public KeyFilterController(KeyFilter filter) {
+        this.filter = filter;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return filter.stats();
+    }
+
+    @PostMapping("/rebuild")
+    public Map<String, Object> rebuild() {
+        filter.rebuild();
+        return filter.stats();
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.sas.example.demo.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the Bloom filter over the keys of all mappings, see {@link KeyFilter}
+ */
+@ConfigurationProperties(prefix = "mapping.filter")
+public class KeyFilterProperties {
+
+    // A lookup costs a few memory reads, and a miss no query at all, so the filter is on unless turned off
+    private boolean enabled = true;
+
+    // Keys the filter is sized for at least. It is sized for twice the keys in the table when there are more
+    private long expectedInsertions = 1000000;
+
+    // Chance that a lookup of a missing key still runs a query, once the filter holds as many keys as it was sized for
+    private double falsePositiveProbability = 0.01;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    public void setExpectedInsertions(long expectedInsertions) {
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+
+    public void setFalsePositiveProbability(double falsePositiveProbability) {
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+}
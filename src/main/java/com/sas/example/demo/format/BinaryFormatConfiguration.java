@@ -0,0 +1,54 @@
+package com.sas.example.demo.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.rest.webmvc.config.RepositoryRestConfigurerAdapter;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+import java.util.List;
+
+/**
+ * Lets clients of the Spring Data REST endpoints, including those of the {@code /mappings} controllers of this
+ * application, ask for CBOR or Smile instead of HAL JSON with the Accept header, and send request bodies in them.
+ * JSON stays the default.
+ */
+@Configuration
+public class BinaryFormatConfiguration extends RepositoryRestConfigurerAdapter {
+
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    // Picked up by all handler mappings, including those of Spring Data REST
+    @Bean
+    public MappedInterceptor binaryFormatInterceptor() {
+        return new MappedInterceptor(null, new BinaryFormatInterceptor());
+    }
+
+    @Override
+    public void configureHttpMessageConverters(List<HttpMessageConverter<?>> messageConverters) {
+        ObjectMapper halObjectMapper = null;
+        for (HttpMessageConverter<?> converter : messageConverters) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter
+                    && converter.getSupportedMediaTypes().contains(MediaTypes.HAL_JSON)) {
+                halObjectMapper = ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper();
+                break;
+            }
+        }
+        if (halObjectMapper == null) {
+            throw new IllegalStateException("No HAL message converter to take the object mapper from");
+        }
+        messageConverters.add(new BinaryJacksonHttpMessageConverter(halObjectMapper, new CBORFactory(),
+                APPLICATION_CBOR));
+        messageConverters.add(new BinaryJacksonHttpMessageConverter(halObjectMapper, new SmileFactory(),
+                APPLICATION_SMILE));
+    }
+
+}
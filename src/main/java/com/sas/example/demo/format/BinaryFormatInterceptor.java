@@ -0,0 +1,33 @@
+package com.sas.example.demo.format;
+
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Spring Data REST limits what its endpoints produce to HAL and JSON. For the endpoints it matched, the binary
+ * formats are added to the media types the response may be written in, before the handler runs.
+ */
+class BinaryFormatInterceptor extends HandlerInterceptorAdapter {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Set<MediaType> producible = (Set<MediaType>) request.getAttribute(
+                HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+        if (producible != null && producible.contains(MediaTypes.HAL_JSON)) {
+            Set<MediaType> types = new LinkedHashSet<>(producible);
+            types.add(BinaryFormatConfiguration.APPLICATION_CBOR);
+            types.add(BinaryFormatConfiguration.APPLICATION_SMILE);
+            request.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, types);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.sas.example.demo.format;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+/**
+ * Reads and writes a binary Jackson format, like CBOR or Smile, with the serializers of a JSON object mapper. The
+ * mapper only walks the objects and the factory encodes what it walks, so resources come out with the same HAL
+ * structure, links and property names as in JSON.
+ */
+public class BinaryJacksonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonFactory factory;
+
+    /**
+     * @param objectMapper, mapper whose serializers and deserializers are used
+     * @param factory, generators and parsers of the binary format
+     * @param mediaType, media type of the format
+     */
+    public BinaryJacksonHttpMessageConverter(ObjectMapper objectMapper, JsonFactory factory, MediaType mediaType) {
+        super(mediaType);
+        this.objectMapper = objectMapper;
+        // The servlet container closes the streams of the request and the response
+        this.factory = factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(mediaType) && objectMapper.canDeserialize(javaType(type, contextClass));
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && objectMapper.canSerialize(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = factory.createParser(inputMessage.getBody())) {
+            return objectMapper.readValue(parser, javaType(type, contextClass));
+        }
+        catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("Could not read document: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(outputMessage.getBody())) {
+            objectMapper.writeValue(generator, object);
+        }
+        catch (JsonProcessingException ex) {
+            throw new HttpMessageNotWritableException("Could not write document: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    /**
+     * @param contextClass, class whose type arguments fill in the type variables of the type, as for a parameter of a
+     * method declared by a generic superclass. May be null
+     */
+    @SuppressWarnings("deprecation")
+    private JavaType javaType(Type type, Class<?> contextClass) {
+        // Since Jackson 2.7 the context class no longer resolves a type variable that it does not declare itself
+        if (type instanceof TypeVariable && contextClass != null) {
+            Class<?> resolved = resolve((TypeVariable<?>) type, ResolvableType.forClass(contextClass));
+            if (resolved != null) {
+                return objectMapper.getTypeFactory().constructType(resolved);
+            }
+        }
+        return objectMapper.getTypeFactory().constructType(type, contextClass);
+    }
+
+    /**
+     * @return the argument of the type variable in the type or its supertypes. Null if none of them has one
+     */
+    private static Class<?> resolve(TypeVariable<?> variable, ResolvableType type) {
+        if (type == ResolvableType.NONE) {
+            return null;
+        }
+        if (type.hasGenerics()) {
+            Class<?> resolved = ResolvableType.forType(variable, type).resolve();
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+        Class<?> resolved = resolve(variable, type.getSuperType());
+        for (ResolvableType supertype : type.getInterfaces()) {
+            if (resolved == null) {
+                resolved = resolve(variable, supertype);
+            }
+        }
+        return resolved;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.sas.example.demo.keyset;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token of a keyset page. It carries the last key of the page, URL-safe encoded, which is where
+ * the next page seeks to.
+ */
+public final class ContinuationToken {
+
+    private ContinuationToken() {
+
+    }
+
+    public static String encode(String lastKey) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token, token as handed out with a previous page
+     * @return last key of the previous page
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static String decode(String token) {
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.sas.example.demo.keyset;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Half-open range of keys, from inclusive to exclusive, in the order of {@link String#compareTo(String)}. Scans seek
+ * on the unique key index to the start of the range and stop at its end, so they cost the same wherever the range
+ * lies in the table.
+ *
+ * A prefix is the range from the prefix itself to the first key past all keys that start with it. Unlike a LIKE
+ * pattern, it has no wildcard characters to escape, and every database can run it as an index range scan.
+ */
+public final class KeyRange {
+
+    // Never null, the empty key sorts first
+    private final String from;
+
+    // Null for no upper bound
+    private final String to;
+
+    private KeyRange(String from, String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Range of request parameters, of which either the prefix or the bounds may be given
+     *
+     * @param prefix, common prefix of all keys in the range. Null for a range by bounds
+     * @param from, first key, inclusive. Null to start at the first key
+     * @param to, key to stop at, exclusive. Null to continue to the last key
+     * @throws IllegalArgumentException if both a prefix and bounds are given, or to sorts before from
+     */
+    public static KeyRange of(String prefix, String from, String to) {
+        if (prefix == null) {
+            return between(from, to);
+        }
+        if (from != null || to != null) {
+            throw new IllegalArgumentException("Either a prefix or a range can be given, not both");
+        }
+        return startingWith(prefix);
+    }
+
+    /**
+     * @param from, first key, inclusive. Null to start at the first key
+     * @param to, key to stop at, exclusive. Null to continue to the last key
+     * @throws IllegalArgumentException if to sorts before from
+     */
+    public static KeyRange between(String from, String to) {
+        if (from == null) {
+            from = "";
+        }
+        if (to != null && to.compareTo(from) < 0) {
+            throw new IllegalArgumentException("Range ends before it starts");
+        }
+        return new KeyRange(from, to);
+    }
+
+    /**
+     * @param prefix, common prefix of all keys in the range. Empty for all keys
+     */
+    public static KeyRange startingWith(String prefix) {
+        return new KeyRange(prefix, prefixEnd(prefix));
+    }
+
+    /**
+     * @return the smallest key greater than all keys that start with the prefix. Null if there is none, which is
+     * when the prefix is empty or only made of {@link Character#MAX_VALUE}
+     */
+    static String prefixEnd(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            return null;
+        }
+        char[] chars = prefix.substring(0, end).toCharArray();
+        chars[end - 1]++;
+        return new String(chars);
+    }
+
+    /**
+     * @return whether the range holds all keys
+     */
+    public boolean isAll() {
+        return from.isEmpty() && to == null;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Fetch the next mappings of the range in ascending key order
+     *
+     * @param after, last key of the previous scan, exclusive. Null to start at the beginning of the range
+     * @param limit, maximum number of mappings to return
+     * @return mappings in key order
+     */
+    public List<Mapping> scan(MappingRepository repository, String after, int limit) {
+        if (to != null && from.compareTo(to) >= 0) {
+            return Collections.emptyList();
+        }
+        PageRequest pageable = new PageRequest(0, limit);
+        // A continuation outside of the range can only come from a made-up token. Before the range, start over at its
+        // beginning
+        if (after != null && to != null && after.compareTo(to) >= 0) {
+            return Collections.emptyList();
+        }
+        if (after == null || after.compareTo(from) < 0) {
+            return to == null ? repository.findByKeyGreaterThanEqualOrderByKeyAsc(from, pageable)
+                    : repository.findByKeyGreaterThanEqualAndKeyLessThanOrderByKeyAsc(from, to, pageable);
+        }
+        return to == null ? repository.findByKeyGreaterThanOrderByKeyAsc(after, pageable)
+                : repository.findByKeyGreaterThanAndKeyLessThanOrderByKeyAsc(after, to, pageable);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.sas.example.demo.keyset;
+
+import com.sas.example.demo.Mapping;
+
+import java.util.List;
+
+/**
+ * One page of mappings in key order, with the token to fetch the following page. There is no total count; the last
+ * page is the one without a continuation.
+ */
+public class KeysetPage {
+
+    private final List<Mapping> mappings;
+
+    // Null on the last page
+    private final String continuation;
+
+    public KeysetPage(List<Mapping> mappings, String continuation) {
+        this.mappings = mappings;
+        this.continuation = continuation;
+    }
+
+    public List<Mapping> getMappings() {
+        return mappings;
+    }
+
+    public String getContinuation() {
+        return continuation;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.sas.example.demo.keyset;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * Cursor-based paging of mappings by key at {@code GET /mappings/keyset}. Each page seeks past the last key of the
+ * previous one, so it costs the same at any depth, and no total count is computed.
+ *
+ * The pages may be limited to a prefix or a range of keys, see {@link KeyRange}. {@code GET
+ * /mappings/search/findByKeyStartingWith} pages through a prefix the same way.
+ */
+@RepositoryRestController
+public class MappingKeysetController {
+
+    private static final int DEFAULT_SIZE = 20;
+
+    // Same cap as Spring Data REST applies to regular pages
+    private static final int MAX_SIZE = 1000;
+
+    private final MappingRepository repository;
+
+    public MappingKeysetController(MappingRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @param continuation, token from the previous page. Absent for the first page
+     * @param size, page size, capped at 1000
+     * @param direction, key order, asc or desc. Prefixes and ranges are paged in ascending order only
+     * @param prefix, only return keys that start with it. Not together with from or to
+     * @param from, first key of the range, inclusive
+     * @param to, key the range stops at, exclusive
+     */
+    @RequestMapping(value = "/mappings/keyset", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<?> page(@RequestParam(value = "continuation", required = false) String continuation,
+                                  @RequestParam(value = "size", defaultValue = "" + DEFAULT_SIZE) int size,
+                                  @RequestParam(value = "direction", defaultValue = "asc") String direction,
+                                  @RequestParam(value = "prefix", required = false) String prefix,
+                                  @RequestParam(value = "from", required = false) String from,
+                                  @RequestParam(value = "to", required = false) String to) {
+        Sort.Direction order = Sort.Direction.fromStringOrNull(direction);
+        if (order == null) {
+            return ResponseEntity.badRequest().body("Invalid direction " + direction);
+        }
+        KeyRange range;
+        try {
+            range = KeyRange.of(prefix, from, to);
+        }
+        catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+        if (!order.isAscending() && !range.isAll()) {
+            return ResponseEntity.badRequest().body("Prefixes and ranges are paged in ascending order only");
+        }
+        return page(range, order, continuation, size);
+    }
+
+    /**
+     * All mappings whose key starts with the prefix, in ascending key order
+     *
+     * @param prefix, common prefix of the keys. Empty for all keys
+     * @param continuation, token from the previous page. Absent for the first page
+     * @param size, page size, capped at 1000
+     */
+    @RequestMapping(value = "/mappings/search/findByKeyStartingWith", method = RequestMethod.GET)
+    @ResponseBody
+    public ResponseEntity<?> startingWith(@RequestParam("prefix") String prefix,
+                                          @RequestParam(value = "continuation", required = false) String continuation,
+                                          @RequestParam(value = "size", defaultValue = "" + DEFAULT_SIZE) int size) {
+        return page(KeyRange.startingWith(prefix), Sort.Direction.ASC, continuation, size);
+    }
+
+    private ResponseEntity<?> page(KeyRange range, Sort.Direction order, String continuation, int size) {
+        String after;
+        try {
+            after = continuation == null ? null : ContinuationToken.decode(continuation);
+        }
+        catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body("Invalid continuation token");
+        }
+        size = Math.max(1, Math.min(size, MAX_SIZE));
+
+        // Fetch one more than asked for to learn whether there is a next page
+        List<Mapping> mappings;
+        if (order.isAscending()) {
+            mappings = range.scan(repository, after, size + 1);
+        }
+        else {
+            Pageable limit = new PageRequest(0, size + 1);
+            mappings = after == null ? repository.findAllByOrderByKeyDesc(limit)
+                    : repository.findByKeyLessThanOrderByKeyDesc(after, limit);
+        }
+
+        String next = null;
+        if (mappings.size() > size) {
+            mappings = mappings.subList(0, size);
+            next = ContinuationToken.encode(mappings.get(size - 1).getKey());
+        }
+        return ResponseEntity.ok(new KeysetPage(mappings, next));
+    }
+
+}
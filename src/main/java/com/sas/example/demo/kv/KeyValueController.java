@@ -0,0 +1,178 @@
+package com.sas.example.demo.kv;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.async.MappingTasks;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Raw access to the value of a key at {@code /kv/{key}}, for clients that only need the value. The value is the
+ * whole body, as text/plain or application/octet-stream in UTF-8, so neither links nor resources are built and no
+ * JSON is written or parsed.
+ *
+ * Reads and writes go through {@link MappingRepository} like every other endpoint, so storage engine, locking, cache
+ * and change events apply as usual. They run asynchronously on the executors of {@link MappingTasks}.
+ */
+@RestController
+@RequestMapping("/kv")
+public class KeyValueController {
+
+    // A concurrent writer of the same key may create or update it between our read and write
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final MediaType TEXT = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final MappingRepository repository;
+
+    private final MappingTasks tasks;
+
+    public KeyValueController(MappingRepository repository, MappingTasks tasks) {
+        this.repository = repository;
+        this.tasks = tasks;
+    }
+
+    /**
+     * Read the value, as application/octet-stream if the client prefers it over text/plain. 404 if the key is not
+     * found.
+     *
+     * The content type is chosen here rather than by content negotiation, which would also take the extension of
+     * keys like config.json for the requested media type.
+     */
+    @GetMapping("/{key:.+}")
+    public DeferredResult<ResponseEntity<?>> get(@PathVariable String key,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                         String accept) {
+        MediaType type = mediaType(accept);
+        if (type == null) {
+            return MappingTasks.done(ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build());
+        }
+        return tasks.read(() -> {
+            Mapping mapping = repository.findByKey(key);
+            if (mapping == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().contentType(type).body(mapping.getValue().getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * Set the value of a key, whether it exists or not. The last writer wins.
+     *
+     * @param value, new value. An empty body sets an empty value
+     * @param ttl, seconds until the key expires. Without it, the key never expires
+     * @return 201 if the key was created, 204 if it existed
+     */
+    @PutMapping("/{key:.+}")
+    public DeferredResult<ResponseEntity<?>> put(@PathVariable String key,
+                                                 @RequestBody(required = false) String body,
+                                                 @RequestParam(value = "ttl", required = false) Long ttl) {
+        String value = body == null ? "" : body;
+        Mapping requested = new Mapping(key, value);
+        requested.setTtl(ttl);
+        if (key.length() > Mapping.MAX_KEY_LENGTH) {
+            return MappingTasks.done(ResponseEntity.badRequest()
+                    .body("Key is longer than " + Mapping.MAX_KEY_LENGTH + " characters"));
+        }
+        if (value.length() > Mapping.MAX_VALUE_LENGTH) {
+            return MappingTasks.done(ResponseEntity.badRequest()
+                    .body("Value is longer than " + Mapping.MAX_VALUE_LENGTH + " characters"));
+        }
+        return tasks.write(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    Mapping mapping = repository.findByKey(key);
+                    if (mapping == null) {
+                        Mapping created = new Mapping(key, value);
+                        created.setExpiresAt(requested.getExpiresAt());
+                        repository.save(created);
+                        return ResponseEntity.status(HttpStatus.CREATED).build();
+                    }
+                    if (!mapping.getValue().equals(value)
+                            || !Objects.equals(mapping.getExpiresAt(), requested.getExpiresAt())) {
+                        mapping.setValue(value);
+                        mapping.setExpiresAt(requested.getExpiresAt());
+                        repository.save(mapping);
+                    }
+                    return ResponseEntity.noContent().build();
+                }
+                catch (DataIntegrityViolationException | OptimisticLockingFailureException ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return 204 if the key was deleted, 404 if it was not found
+     */
+    @DeleteMapping("/{key:.+}")
+    public DeferredResult<ResponseEntity<?>> delete(@PathVariable String key) {
+        return tasks.write(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    Mapping mapping = repository.findByKey(key);
+                    if (mapping == null) {
+                        return ResponseEntity.notFound().build();
+                    }
+                    repository.delete(mapping);
+                    return ResponseEntity.noContent().build();
+                }
+                catch (OptimisticLockingFailureException ex) {
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw ex;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @param accept, Accept header of the request
+     * @return text/plain or application/octet-stream, whichever the client prefers. Null if it accepts neither
+     */
+    private static MediaType mediaType(String accept) {
+        if (accept == null) {
+            return TEXT;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        }
+        catch (InvalidMediaTypeException ex) {
+            return TEXT;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            if (type.includes(MediaType.TEXT_PLAIN)) {
+                return TEXT;
+            }
+            if (type.includes(MediaType.APPLICATION_OCTET_STREAM)) {
+                return MediaType.APPLICATION_OCTET_STREAM;
+            }
+        }
+        return null;
+    }
+
+}
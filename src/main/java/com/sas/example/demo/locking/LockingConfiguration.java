@@ -0,0 +1,26 @@
+package com.sas.example.demo.locking;
+
+import com.sas.example.demo.metrics.MappingMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Applies the locking mode chosen by {@code mapping.locking.mode}. Optimistic locking needs nothing beyond the
+ * version column of the mapping, pessimistic locking is added around the repository.
+ */
+@Configuration
+@EnableConfigurationProperties(LockingProperties.class)
+public class LockingConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mapping.locking", name = "mode", havingValue = "pessimistic", matchIfMissing = true)
+    public PessimisticLockingAspect pessimisticLockingAspect(PlatformTransactionManager transactionManager,
+                                                             ObjectProvider<MappingMetrics> metrics) {
+        return new PessimisticLockingAspect(transactionManager, metrics.getIfAvailable());
+    }
+
+}
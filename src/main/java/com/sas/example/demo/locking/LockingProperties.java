@@ -0,0 +1,33 @@
+package com.sas.example.demo.locking;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How concurrent writes to the same mapping are handled
+ */
+@ConfigurationProperties(prefix = "mapping.locking")
+public class LockingProperties {
+
+    public enum Mode {
+        /**
+         * Writers lock the row before applying their change and wait for each other. The last writer wins.
+         */
+        PESSIMISTIC,
+
+        /**
+         * Writers do not wait. A write based on an outdated version of the mapping fails with a conflict.
+         */
+        OPTIMISTIC
+    }
+
+    private Mode mode = Mode.PESSIMISTIC;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+}
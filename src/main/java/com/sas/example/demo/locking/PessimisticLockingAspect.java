@@ -0,0 +1,140 @@
+package com.sas.example.demo.locking;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.metrics.MappingMetrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Pessimistic locking of existing mappings on save and delete. Within one transaction, the stored row is read with
+ * {@code SELECT ... FOR UPDATE}, the caller's key, value and expiry are applied to it, and then it is written. Concurrent
+ * writers to a row therefore queue up behind each other and never fail on the version the caller happened to read.
+ */
+@Aspect
+public class PessimisticLockingAspect {
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Null when metrics are disabled
+    private final MappingMetrics metrics;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public PessimisticLockingAspect(PlatformTransactionManager transactionManager, MappingMetrics metrics) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.save(..)) && args(mapping)")
+    public Object save(ProceedingJoinPoint joinPoint, Mapping mapping) throws Throwable {
+        return inTransaction(() -> joinPoint.proceed(new Object[]{lock(mapping)}));
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.save(..)) && args(mappings)")
+    public Object saveAll(ProceedingJoinPoint joinPoint, Iterable<?> mappings) throws Throwable {
+        return inTransaction(() -> {
+            List<Mapping> original = new ArrayList<>();
+            mappings.forEach(mapping -> original.add((Mapping) mapping));
+
+            // Lock in id order, so that two batches touching the same rows cannot deadlock
+            Map<Mapping, Mapping> locked = new IdentityHashMap<>();
+            original.stream()
+                    .sorted(Comparator.comparingLong(Mapping::getId))
+                    .forEach(mapping -> locked.put(mapping, lock(mapping)));
+
+            return joinPoint.proceed(new Object[]{original.stream().map(locked::get).collect(Collectors.toList())});
+        });
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.delete(..)) && args(mapping)")
+    public Object delete(ProceedingJoinPoint joinPoint, Mapping mapping) throws Throwable {
+        return inTransaction(() -> {
+            if (mapping.getId() == 0 || entityManager.contains(mapping)) {
+                return joinPoint.proceed();
+            }
+            Mapping stored = findLocked(mapping.getId());
+            // Already gone, nothing to delete
+            return stored == null ? null : joinPoint.proceed(new Object[]{stored});
+        });
+    }
+
+    /**
+     * @return the stored mapping, locked and carrying the key and value of the given one. The given mapping itself if
+     * it is new, already managed by the current transaction, or not stored
+     */
+    private Mapping lock(Mapping mapping) {
+        if (mapping.getId() == 0 || entityManager.contains(mapping)) {
+            return mapping;
+        }
+        // Repeated finds within the transaction return the same, already locked instance
+        Mapping stored = findLocked(mapping.getId());
+        if (stored == null) {
+            return mapping;
+        }
+        stored.setKey(mapping.getKey());
+        stored.setValue(mapping.getValue());
+        stored.setExpiresAt(mapping.getExpiresAt());
+        return stored;
+    }
+
+    /**
+     * Read a stored mapping with {@code SELECT ... FOR UPDATE}. The time taken is reported as lock wait; it is mostly
+     * spent waiting for other writers of the row to commit, once there are any.
+     */
+    private Mapping findLocked(long id) {
+        long start = System.nanoTime();
+        try {
+            return entityManager.find(Mapping.class, id, LockModeType.PESSIMISTIC_WRITE);
+        }
+        finally {
+            if (metrics != null) {
+                metrics.lockWait(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private Object inTransaction(Invocation invocation) throws Throwable {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return invocation.proceed();
+                }
+                catch (RuntimeException | Error ex) {
+                    throw ex;
+                }
+                catch (Throwable ex) {
+                    throw new InvocationFailure(ex);
+                }
+            });
+        }
+        catch (InvocationFailure ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private interface Invocation {
+        Object proceed() throws Throwable;
+    }
+
+    // Carries checked exceptions of the repository through the transaction callback
+    private static class InvocationFailure extends RuntimeException {
+        InvocationFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+
+}
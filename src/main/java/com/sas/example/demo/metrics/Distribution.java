@@ -0,0 +1,70 @@
+package com.sas.example.demo.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Histogram of values recorded concurrently, such as latencies in nanoseconds or row counts.
+ *
+ * Recording is wait-free: writers only increment counters of a histogram that a reader swaps out when it reports.
+ * Readers fold what was recorded since the previous report into a running total, and serialize among themselves.
+ */
+public final class Distribution {
+
+    private final Recorder recorder = new Recorder(2);
+
+    // Guarded by this
+    private final Histogram total = new Histogram(2);
+    private Histogram interval;
+
+    /**
+     * @param value, zero or more
+     */
+    public void record(long value) {
+        recorder.recordValue(value);
+    }
+
+    /**
+     * @return number of values recorded so far
+     */
+    public synchronized long count() {
+        collect();
+        return total.getTotalCount();
+    }
+
+    /**
+     * Summarize the values recorded so far
+     *
+     * @param scale, divides every value, e.g. 1000 to report nanoseconds in microseconds
+     * @return count, mean, 50th to 99.9th percentile and max
+     */
+    public synchronized Map<String, Object> summary(double scale) {
+        collect();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", total.getTotalCount());
+        summary.put("mean", total.getTotalCount() == 0 ? 0 : total.getMean() / scale);
+        summary.put("p50", total.getValueAtPercentile(50) / scale);
+        summary.put("p90", total.getValueAtPercentile(90) / scale);
+        summary.put("p99", total.getValueAtPercentile(99) / scale);
+        summary.put("p99.9", total.getValueAtPercentile(99.9) / scale);
+        summary.put("max", total.getMaxValue() / scale);
+        return summary;
+    }
+
+    /**
+     * Forget the values recorded so far
+     */
+    public synchronized void reset() {
+        collect();
+        total.reset();
+    }
+
+    private void collect() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+    }
+
+}
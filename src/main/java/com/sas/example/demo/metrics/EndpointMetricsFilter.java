@@ -0,0 +1,104 @@
+package com.sas.example.demo.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Times every request, response rendering included, per HTTP method and path pattern of the handler, e.g.
+ * {@code GET /mappings/{id}}. The repository and search names of Spring Data REST patterns are filled in, so every
+ * resource and search gets its own histogram, while ids and query parameters do not. Asynchronous requests are timed
+ * until their response is complete.
+ */
+public class EndpointMetricsFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED = "(unmatched)";
+
+    private final MappingMetrics metrics;
+
+    public EndpointMetricsFilter(MappingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        }
+        finally {
+            String endpoint = request.getMethod() + " " + pattern(request);
+            if (isAsyncStarted(request)) {
+                // The response is written on another thread, later
+                request.getAsyncContext().addListener(new CompletionListener(endpoint, start));
+            }
+            else {
+                metrics.endpoint(endpoint, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private class CompletionListener implements AsyncListener {
+
+        private final String endpoint;
+
+        private final long start;
+
+        CompletionListener(String endpoint, long start) {
+            this.endpoint = endpoint;
+            this.start = start;
+        }
+
+        // Also called after a timeout or an error
+        @Override
+        public void onComplete(AsyncEvent event) {
+            int status = ((HttpServletResponse) event.getSuppliedResponse()).getStatus();
+            metrics.endpoint(endpoint, System.nanoTime() - start, status >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+    }
+
+    private static String pattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return UNMATCHED;
+        }
+        String endpoint = pattern.toString();
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables != null) {
+            for (String name : new String[]{"repository", "search"}) {
+                String value = variables.get(name);
+                if (value != null) {
+                    endpoint = endpoint.replace("{" + name + "}", value);
+                }
+            }
+        }
+        return endpoint;
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.sas.example.demo.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Timings of the hot paths of the service: HTTP endpoints, repository methods and waits for row locks. Times are
+ * recorded in nanoseconds and reported in microseconds.
+ *
+ * Nothing on the recording path locks. Statistics are kept in concurrent maps, which are only written to the first
+ * time a name is seen, and recorded into {@link Distribution}s and {@link LongAdder}s.
+ */
+public class MappingMetrics {
+
+    private static final double MICROS = 1000;
+
+    private final ConcurrentMap<String, Timer> endpoints = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, QueryTimer> queries = new ConcurrentHashMap<>();
+
+    private final Timer lockWaits = new Timer();
+
+    /**
+     * @param endpoint, HTTP method and path pattern
+     * @param nanos, time to handle the request, response included
+     * @param failed, whether the response was a server error
+     */
+    public void endpoint(String endpoint, long nanos, boolean failed) {
+        get(endpoints, endpoint, name -> new Timer()).record(nanos, failed);
+    }
+
+    /**
+     * @param query, repository method
+     * @param nanos, time the method took
+     * @param rows, mappings returned
+     * @param failed, whether the method threw
+     */
+    public void query(String query, long nanos, long rows, boolean failed) {
+        QueryTimer timer = get(queries, query, name -> new QueryTimer());
+        timer.record(nanos, failed);
+        timer.rows.record(rows);
+    }
+
+    /**
+     * @param nanos, time spent acquiring the row lock of a mapping before writing it
+     */
+    public void lockWait(long nanos) {
+        lockWaits.record(nanos, false);
+    }
+
+    public Map<String, Object> getEndpoints() {
+        Map<String, Object> summary = new TreeMap<>();
+        endpoints.forEach((name, timer) -> summary.put(name, timer.summary()));
+        return summary;
+    }
+
+    public Map<String, Object> getQueries() {
+        Map<String, Object> summary = new TreeMap<>();
+        queries.forEach((name, timer) -> summary.put(name, timer.summary()));
+        return summary;
+    }
+
+    public Map<String, Object> getLockWaits() {
+        return lockWaits.summary();
+    }
+
+    /**
+     * Forget everything recorded so far, e.g. between two load tests
+     */
+    public void reset() {
+        endpoints.values().forEach(Timer::reset);
+        queries.values().forEach(Timer::reset);
+        lockWaits.reset();
+    }
+
+    private static <T> T get(ConcurrentMap<String, T> map, String name, Function<String, T> factory) {
+        // computeIfAbsent locks the entry even when it is present, so look it up first
+        T value = map.get(name);
+        return value != null ? value : map.computeIfAbsent(name, factory);
+    }
+
+    private static class Timer {
+        final Distribution nanos = new Distribution();
+        final LongAdder failures = new LongAdder();
+
+        void record(long nanos, boolean failed) {
+            this.nanos.record(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        Map<String, Object> summary() {
+            Map<String, Object> summary = nanos.summary(MICROS);
+            summary.put("failures", failures.sum());
+            return summary;
+        }
+
+        void reset() {
+            nanos.reset();
+            failures.reset();
+        }
+    }
+
+    private static class QueryTimer extends Timer {
+        final Distribution rows = new Distribution();
+
+        @Override
+        Map<String, Object> summary() {
+            Map<String, Object> summary = super.summary();
+            summary.put("rows", rows.summary(1));
+            return summary;
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            rows.reset();
+        }
+    }
+
+}
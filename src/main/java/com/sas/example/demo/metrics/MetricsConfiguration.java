@@ -0,0 +1,31 @@
+package com.sas.example.demo.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the hot path metrics unless {@code mapping.metrics.enabled=false}
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mapping.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(MetricsProperties.class)
+public class MetricsConfiguration {
+
+    @Bean
+    public MappingMetrics mappingMetrics() {
+        return new MappingMetrics();
+    }
+
+    @Bean
+    public RepositoryMetricsAspect repositoryMetricsAspect(MappingMetrics mappingMetrics) {
+        return new RepositoryMetricsAspect(mappingMetrics);
+    }
+
+    @Bean
+    public EndpointMetricsFilter endpointMetricsFilter(MappingMetrics mappingMetrics) {
+        return new EndpointMetricsFilter(mappingMetrics);
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.sas.example.demo.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadata;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProviders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the metrics of the hot paths, at {@code GET /metrics} and below:
+ * <ul>
+ *     <li>/metrics/endpoints, latency per HTTP endpoint</li>
+ *     <li>/metrics/queries, latency and mappings returned per repository method</li>
+ *     <li>/metrics/locks, time waited for row locks before a save or delete</li>
+ *     <li>/metrics/pool, connections of the database pool in use</li>
+ * </ul>
+ * Latencies are in microseconds. {@code DELETE /metrics} starts over.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "mapping.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private final MappingMetrics metrics;
+
+    private final DataSourcePoolMetadata pool;
+
+    public MetricsController(MappingMetrics metrics, DataSource dataSource,
+                             Collection<DataSourcePoolMetadataProvider> poolMetadataProviders) {
+        this.metrics = metrics;
+        this.pool = new DataSourcePoolMetadataProviders(poolMetadataProviders).getDataSourcePoolMetadata(dataSource);
+    }
+
+    @GetMapping
+    public Map<String, Object> all() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoints", endpoints());
+        result.put("queries", queries());
+        result.put("locks", locks());
+        result.put("pool", pool());
+        return result;
+    }
+
+    @GetMapping("/endpoints")
+    public Map<String, Object> endpoints() {
+        return metrics.getEndpoints();
+    }
+
+    @GetMapping("/queries")
+    public Map<String, Object> queries() {
+        return metrics.getQueries();
+    }
+
+    @GetMapping("/locks")
+    public Map<String, Object> locks() {
+        return metrics.getLockWaits();
+    }
+
+    @GetMapping("/pool")
+    public Map<String, Object> pool() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (pool != null) {
+            result.put("active", pool.getActive());
+            result.put("min", pool.getMin());
+            result.put("max", pool.getMax());
+            // Active connections as a share of the maximum, from 0 to 1
+            result.put("usage", pool.getUsage());
+        }
+        return result;
+    }
+
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void reset() {
+        metrics.reset();
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.sas.example.demo.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the hot path metrics
+ */
+@ConfigurationProperties(prefix = "mapping.metrics")
+public class MetricsProperties {
+
+    // Recording costs a few counter increments per request and query, so it is on unless turned off
+    private boolean enabled = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+}
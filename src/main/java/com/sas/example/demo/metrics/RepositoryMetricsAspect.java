@@ -0,0 +1,87 @@
+package com.sas.example.demo.metrics;
+
+import com.sas.example.demo.Mapping;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Times every call to {@code MappingRepository} and counts the mappings it returns. Runs outside all other advice on
+ * the repository, so the time includes the transaction and locking around a query, and the storage engine routing;
+ * cache hits count as fast queries.
+ *
+ * Streams are returned before they are read, so they count as no rows.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RepositoryMetricsAspect {
+
+    private final MappingMetrics metrics;
+
+    // Name per method, e.g. findAll(Pageable)
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MappingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        }
+        finally {
+            metrics.query(name(method), System.nanoTime() - start, rows(result), failed);
+        }
+    }
+
+    private String name(Method method) {
+        String name = names.get(method);
+        if (name == null) {
+            name = method.getName() + Arrays.stream(method.getParameterTypes())
+                    .map(Class::getSimpleName)
+                    .collect(Collectors.joining(",", "(", ")"));
+            names.put(method, name);
+        }
+        return name;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Iterable) {
+            long rows = 0;
+            for (Object ignored : (Iterable<?>) result) {
+                rows++;
+            }
+            return rows;
+        }
+        // A single mapping, or a count or flag that took no rows to return
+        return result instanceof Mapping ? 1 : 0;
+    }
+
+}
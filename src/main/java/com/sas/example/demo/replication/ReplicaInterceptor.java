@@ -0,0 +1,66 @@
+package com.sas.example.demo.replication;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Serves reads from the replica while it keeps up with the leader, and sends writes to the leader.
+ *
+ * A read is refused with 503 Service Unavailable while the replica is further behind than allowed, or has not loaded
+ * the mappings yet, so that clients can turn to another instance. A write is redirected to the same path on the leader
+ * with 307 Temporary Redirect, which clients repeat with the same method and body.
+ */
+class ReplicaInterceptor extends HandlerInterceptorAdapter {
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final Replicator replicator;
+
+    ReplicaInterceptor(Replicator replicator) {
+        this.replicator = replicator;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Let through when the request started
+            return true;
+        }
+        if (!isRead(request)) {
+            String query = request.getQueryString();
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, replicator.getLeader()
+                    + urlPathHelper.getPathWithinApplication(request) + (query == null ? "" : "?" + query));
+            return false;
+        }
+        if (replicator.isBehind()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Replica is behind " + replicator.getLeader());
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isRead(HttpServletRequest request) {
+        switch (request.getMethod()) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+                return true;
+            case "POST":
+                // Looks up keys, with their list in the body
+                return "/mappings/batch/find".equals(urlPathHelper.getPathWithinApplication(request));
+            default:
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.sas.example.demo.replication;
+
+import com.sas.example.demo.storage.ReplicaMappingStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * Wires the replicator of an instance running the replica engine. Any instance can be a leader as it is
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "replica")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationConfiguration {
+
+    @Bean
+    public Replicator replicator(ReplicaMappingStore store, ReplicationProperties properties) {
+        return new Replicator(store, properties);
+    }
+
+    // Picked up by all handler mappings, including those of Spring Data REST. The change feed of the replica is read
+    // whatever its lag, the consumer sees it in the events
+    @Bean
+    public MappedInterceptor replicaInterceptor(Replicator replicator) {
+        return new MappedInterceptor(new String[]{"/mappings", "/mappings/**", "/kv/**"},
+                new String[]{"/mappings/changes"}, new ReplicaInterceptor(replicator));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.sas.example.demo.replication;
+
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.feed.ChangeFeed;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replication status of the instance at {@code GET /replication}. Every instance can be the leader of others; one
+ * running the replica engine also tells how far it is behind its own leader.
+ */
+@RestController
+public class ReplicationController {
+
+    private final ChangeFeed feed;
+
+    private final MappingRepository repository;
+
+    private final ObjectProvider<Replicator> replicator;
+
+    public ReplicationController(ChangeFeed feed, MappingRepository repository, ObjectProvider<Replicator> replicator) {
+        this.feed = feed;
+        this.repository = repository;
+        this.replicator = replicator;
+    }
+
+    /**
+     * @return the id of the latest change of this instance, for replicas to follow its change feed from, its time, and
+     * the state of the replicator if there is one
+     */
+    @GetMapping("/replication")
+    public Map<String, Object> status() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Replicator replicator = this.replicator.getIfAvailable();
+        // Read before the mappings are counted, as a replica does before it exports them
+        result.put("lastEventId", feed.lastEventId());
+        result.put("mappings", repository.count());
+        // For replicas to measure their lag against until they receive a heartbeat
+        result.put("time", System.currentTimeMillis());
+        if (replicator != null) {
+            result.put("leader", replicator.getLeader());
+            result.put("state", replicator.getState());
+            result.put("position", replicator.getPosition());
+            result.put("lag", replicator.getLag());
+            result.put("behind", replicator.isBehind());
+            result.put("applied", replicator.getApplied());
+            result.put("snapshots", replicator.getSnapshots());
+        }
+        return result;
+    }
+
+}
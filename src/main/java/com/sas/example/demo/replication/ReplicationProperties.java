@@ -0,0 +1,55 @@
+package com.sas.example.demo.replication;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of an instance running the replica engine, see {@link Replicator}
+ */
+@ConfigurationProperties(prefix = "mapping.replication")
+public class ReplicationProperties {
+
+    // Base URL of the instance to copy, e.g. http://localhost:8080
+    private String leader;
+
+    // Milliseconds the copy may be behind the leader before reads are refused. 0 for no limit
+    private long maxLag = 10000;
+
+    // Milliseconds without anything from the leader, heartbeats of the change feed included, before reconnecting
+    private int timeout = 45000;
+
+    // Milliseconds to wait before reconnecting after a failure
+    private long retryInterval = 1000;
+
+    public String getLeader() {
+        return leader;
+    }
+
+    public void setLeader(String leader) {
+        this.leader = leader;
+    }
+
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    public void setMaxLag(long maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public long getRetryInterval() {
+        return retryInterval;
+    }
+
+    public void setRetryInterval(long retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+}
@@ -0,0 +1,426 @@
+package com.sas.example.demo.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.export.MappingExportController;
+import com.sas.example.demo.feed.ChangeFeed;
+import com.sas.example.demo.storage.ReplicaMappingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeps a {@link ReplicaMappingStore} in step with the leader, over the HTTP endpoints every instance serves.
+ *
+ * The replicator first reads the id of the latest change of the leader at {@code /replication}, then loads all its
+ * mappings from {@code /mappings/export}, and from then on follows the change feed at {@code /mappings/changes} from
+ * that id. Changes committed during the export are applied twice, which does no harm, since a change only applies to
+ * an older version. After a disconnect the feed is resumed from the last change applied; if the leader no longer
+ * buffers the changes after it, or was restarted, the mappings are loaded again.
+ *
+ * The lag is the time between the leader publishing a change and the replica applying it, and drops to 0 when the
+ * leader sends a heartbeat to the idle stream. While disconnected, it grows with the time since the stream was lost.
+ * The clocks of both machines are never compared: every heartbeat carries the time of the leader, and the time of a
+ * change is measured against the latest heartbeat, plus the time the replica has spent since receiving it.
+ *
+ * Stopping does not wait for the replicating thread. A read from the leader can neither be interrupted nor its
+ * connection closed while it blocks, so the thread leaves as soon as the read returns, at the next heartbeat of the
+ * leader at the latest, without applying what it read. A thread started again meanwhile replicates on its own.
+ */
+public class Replicator implements SmartLifecycle {
+
+    public enum State {
+        STOPPED, SNAPSHOT, STREAMING, DISCONNECTED
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(Replicator.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final ReplicaMappingStore store;
+
+    private final ReplicationProperties properties;
+
+    private final String leader;
+
+    private volatile boolean running;
+
+    // Thread replicating. Replaced when started again, so that a thread still reading after a stop leaves
+    private volatile Thread thread;
+
+    private volatile State state = State.STOPPED;
+
+    // Id of the last change of the leader applied. Null until the mappings are loaded
+    private volatile String position;
+
+    // Lag when last measured, and when that was. Never measured until the mappings are loaded
+    private volatile long lag;
+
+    private volatile long measured;
+
+    // Time of the leader in its latest heartbeat, or status before the first one, and when it was received here
+    private volatile long leaderTime;
+
+    private volatile long leaderTimeReceived;
+
+    private volatile long applied;
+
+    private volatile long snapshots;
+
+    public Replicator(ReplicaMappingStore store, ReplicationProperties properties) {
+        if (properties.getLeader() == null || properties.getLeader().isEmpty()) {
+            throw new IllegalStateException("mapping.replication.leader is required by the replica engine");
+        }
+        this.store = store;
+        this.properties = properties;
+        this.leader = properties.getLeader().replaceAll("/+$", "");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread replicating = new Thread(this::replicate, "mapping-replicator");
+        replicating.setDaemon(true);
+        thread = replicating;
+        replicating.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Ends a sleep before reconnecting. A read from the leader only ends when it returns
+        thread.interrupt();
+        thread = null;
+        state = State.STOPPED;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    // Started after everything else, and stopped before
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    public String getLeader() {
+        return leader;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return id of the last change of the leader applied. Null until the mappings are loaded
+     */
+    public String getPosition() {
+        return position;
+    }
+
+    /**
+     * @return milliseconds the copy is behind the leader. -1 until the mappings are loaded
+     */
+    public long getLag() {
+        long measured = this.measured;
+        if (measured == 0) {
+            return -1;
+        }
+        long lag = this.lag;
+        return state == State.STREAMING ? lag : lag + System.currentTimeMillis() - measured;
+    }
+
+    /**
+     * @return changes applied from the feed of the leader
+     */
+    public long getApplied() {
+        return applied;
+    }
+
+    /**
+     * @return times all mappings were loaded from the leader
+     */
+    public long getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * @return whether the copy is further behind the leader than allowed, or not loaded yet
+     */
+    public boolean isBehind() {
+        long lag = getLag();
+        return lag < 0 || (properties.getMaxLag() > 0 && lag > properties.getMaxLag());
+    }
+
+    private void replicate() {
+        while (replicating()) {
+            try {
+                if (position == null) {
+                    snapshot();
+                }
+                follow();
+            }
+            catch (IOException | RuntimeException ex) {
+                if (replicating()) {
+                    logger.warn("Replication from {} failed: {}", leader, ex.toString());
+                    disconnected();
+                    sleep(properties.getRetryInterval());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the current thread is to go on replicating, that is the replicator has been neither stopped nor
+     * started again since the thread was started
+     */
+    private boolean replicating() {
+        return running && thread == Thread.currentThread();
+    }
+
+    /**
+     * Load all mappings of the leader
+     */
+    private void snapshot() throws IOException {
+        state = State.SNAPSHOT;
+        long started = System.currentTimeMillis();
+        HttpURLConnection status = open("/replication", MediaType.APPLICATION_JSON_VALUE);
+        check(status);
+        String latest;
+        try (InputStream in = status.getInputStream()) {
+            JsonNode node = mapper.readTree(in);
+            latest = node.path("lastEventId").asText(null);
+            if (node.hasNonNull("time")) {
+                leaderTime(node.get("time").asLong());
+            }
+        }
+        if (latest == null) {
+            throw new IOException(leader + " did not tell its latest change");
+        }
+
+        HttpURLConnection export = open("/mappings/export", MappingExportController.APPLICATION_NDJSON_VALUE);
+        check(export);
+        long loaded;
+        try (BufferedReader reader = reader(export)) {
+            loaded = store.load(new Iterator<Mapping>() {
+
+                private String line = nextLine(reader);
+
+                @Override
+                public boolean hasNext() {
+                    try {
+                        stopped();
+                    }
+                    catch (InterruptedIOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return line != null;
+                }
+
+                @Override
+                public Mapping next() {
+                    if (line == null) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        return mapping(mapper.readTree(line));
+                    }
+                    catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    finally {
+                        line = nextLine(reader);
+                    }
+                }
+            });
+        }
+        catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        stopped();
+        position = latest;
+        snapshots++;
+        measure(System.currentTimeMillis() - started);
+        logger.info("Loaded {} mappings from {}", loaded, leader);
+    }
+
+    /**
+     * Apply the changes of the leader after the position, until the stream ends
+     */
+    private void follow() throws IOException {
+        HttpURLConnection feed = open("/mappings/changes?after=" + URLEncoder.encode(position, "UTF-8"),
+                ChangeFeed.TEXT_EVENT_STREAM.toString());
+        if (feed.getResponseCode() == HttpStatus.GONE.value()) {
+            logger.info("{} no longer has the changes after {}, loading all mappings again", leader, position);
+            position = null;
+            return;
+        }
+        check(feed);
+        measure(getLag());
+        state = State.STREAMING;
+        try (BufferedReader reader = reader(feed)) {
+            String id = null;
+            String data = null;
+            String line;
+            while ((line = reader.readLine()) != null && replicating()) {
+                if (line.isEmpty()) {
+                    if (data != null) {
+                        apply(id, mapper.readTree(data));
+                    }
+                    id = null;
+                    data = null;
+                }
+                else if (line.startsWith(":")) {
+                    // Heartbeat, only sent once every change published before it is written
+                    try {
+                        leaderTime(Long.parseLong(line.substring(1).trim()));
+                    }
+                    catch (NumberFormatException ex) {
+                        // A leader that does not tell its time
+                    }
+                    measure(0);
+                }
+                else if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                }
+                else if (line.startsWith("data:")) {
+                    data = line.substring(5);
+                }
+            }
+        }
+        if (replicating()) {
+            disconnected();
+        }
+    }
+
+    private void apply(String id, JsonNode change) {
+        if ("DELETED".equals(change.path("type").asText())) {
+            store.remove(change.path("id").asLong());
+        }
+        else {
+            store.apply(mapping(change));
+        }
+        position = id;
+        applied++;
+        if (leaderTimeReceived != 0 && change.hasNonNull("time")) {
+            long leaderNow = leaderTime + System.currentTimeMillis() - leaderTimeReceived;
+            measure(Math.max(0, leaderNow - change.get("time").asLong()));
+        }
+    }
+
+    /**
+     * @param time, current time of the leader, by its own clock
+     */
+    private void leaderTime(long time) {
+        leaderTime = time;
+        leaderTimeReceived = System.currentTimeMillis();
+    }
+
+    private void measure(long lag) {
+        this.lag = lag;
+        measured = System.currentTimeMillis();
+    }
+
+    private void disconnected() {
+        if (state == State.STREAMING) {
+            measure(lag);
+        }
+        state = State.DISCONNECTED;
+    }
+
+    private HttpURLConnection open(String path, String accept) throws IOException {
+        HttpURLConnection open = (HttpURLConnection) new URL(leader + path).openConnection();
+        open.setConnectTimeout(properties.getTimeout());
+        open.setReadTimeout(properties.getTimeout());
+        open.setRequestProperty(HttpHeaders.ACCEPT, accept);
+        return open;
+    }
+
+    private void check(HttpURLConnection response) throws IOException {
+        if (response.getResponseCode() != HttpStatus.OK.value()) {
+            throw new IOException(response.getURL() + " answered " + response.getResponseCode());
+        }
+        stopped();
+    }
+
+    /**
+     * @throws InterruptedIOException if the current thread is no longer to replicate, see {@link #replicating()}
+     */
+    private void stopped() throws InterruptedIOException {
+        if (!replicating()) {
+            throw new InterruptedIOException("Replicator stopped");
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex) {
+            // Stopped
+        }
+    }
+
+    private static BufferedReader reader(HttpURLConnection response) throws IOException {
+        return new BufferedReader(new InputStreamReader(response.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static String nextLine(BufferedReader reader) {
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+            }
+            while (line != null && line.isEmpty());
+            return line;
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Mapping mapping(JsonNode node) {
+        Mapping mapping = new Mapping(node.path("key").asText(), node.path("value").asText());
+        mapping.setId(node.path("id").asLong());
+        mapping.setVersion(node.hasNonNull("version") ? node.get("version").asLong() : null);
+        mapping.setExpiresAt(node.hasNonNull("expiresAt") ? node.get("expiresAt").asLong() : null);
+        return mapping;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+
+/**
+ * Receives the changes of a {@link MemoryMappingStore} before they are applied, while the store holds the locks of the
+ * change. Changes of the same mapping therefore arrive in the order they are applied. A change becomes visible only
+ * once the journal returns, and is not applied at all if it throws. Writers of the same lock stripe wait meanwhile.
+ */
+interface Journal {
+
+    Journal NONE = new Journal() {
+        @Override
+        public void written(Mapping mapping) {
+        }
+
+        @Override
+        public void deleted(long id) {
+        }
+    };
+
+    /**
+     * A mapping was created or updated
+     *
+     * @param mapping, the stored mapping, with its id and new version. Must not be retained
+     */
+    void written(Mapping mapping);
+
+    /**
+     * The mapping with the id was deleted
+     */
+    void deleted(long id);
+
+}
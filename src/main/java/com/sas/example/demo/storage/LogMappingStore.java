@@ -0,0 +1,317 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine that keeps all mappings on the heap, in a {@link MemoryMappingStore}, and makes every change durable
+ * in a {@link WriteAheadLog} before it is applied. Readers, snapshots and listeners never see a change that could be
+ * lost in a crash, and a change the log fails to take is not applied at all.
+ *
+ * The log holds the full state of a mapping after each change, so recovery never needs the state before it. Every so
+ * often the log is rolled over to a new segment and a snapshot of all mappings is written next to it; the segments it
+ * covers are then deleted, which bounds recovery time and disk usage. On startup the latest snapshot is loaded and
+ * the segments written after it are replayed. A record cut off by a crash at the end of the last segment is dropped.
+ *
+ * Files are named after the segment they belong to: log-N holds the changes of segment N, and snapshot-N all mappings
+ * as of the end of segment N, possibly with some changes of later segments already applied. Replaying those changes
+ * again gives the same result, since each record carries the full state. The log is rolled over while no write is in
+ * progress, so every change in the segments a snapshot replaces is applied before the snapshot is read.
+ */
+public class LogMappingStore implements MappingStore, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogMappingStore.class);
+
+    private final Path directory;
+
+    private final WriteAheadLog log;
+
+    private final MemoryMappingStore memory;
+
+    private final ScheduledExecutorService snapshots;
+
+    // Records appended when the last snapshot was started
+    private volatile long snapshotted;
+
+    /**
+     * Recover the mappings found in the directory, and continue the log there
+     *
+     * @param directory, directory of log and snapshot files, created if missing
+     * @param settings, log settings
+     * @param stripes, number of write locks of the memory store
+     * @param optimistic, whether writes of a stale version fail rather than overwrite
+     * @param publisher, receives an event for every change
+     * @throws DataAccessResourceFailureException if the files could not be read, or are damaged
+     */
+    public LogMappingStore(Path directory, StorageProperties.Log settings, int stripes, boolean optimistic,
+                           ApplicationEventPublisher publisher) {
+        this.directory = directory;
+        this.memory = new MemoryMappingStore(stripes, optimistic, publisher, new Journal() {
+            @Override
+            public void written(Mapping mapping) {
+                log.await(log.append(WriteAheadLog.written(mapping)));
+            }
+
+            @Override
+            public void deleted(long id) {
+                log.await(log.append(WriteAheadLog.deleted(id)));
+            }
+        });
+        try {
+            this.log = new WriteAheadLog(directory, recover(), settings.getSync(), settings.getSyncInterval());
+        }
+        catch (IOException ex) {
+            throw new DataAccessResourceFailureException("Could not recover the mappings in " + directory, ex);
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mapping-log-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshots.scheduleWithFixedDelay(this::snapshotIfChanged, settings.getSnapshotInterval(),
+                settings.getSnapshotInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Mapping findOne(long id) {
+        return memory.findOne(id);
+    }
+
+    @Override
+    public Mapping findByKey(String key) {
+        return memory.findByKey(key);
+    }
+
+    @Override
+    public List<Mapping> findAllByValue(String value) {
+        return memory.findAllByValue(value);
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String after, boolean ascending, int limit) {
+        return memory.findKeyRange(after, ascending, limit);
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String from, boolean inclusive, String to, int limit) {
+        return memory.findKeyRange(from, inclusive, to, limit);
+    }
+
+    @Override
+    public Stream<Mapping> streamAll() {
+        return memory.streamAll();
+    }
+
+    @Override
+    public long count() {
+        return memory.count();
+    }
+
+    @Override
+    public Mapping save(Mapping mapping) {
+        return memory.save(mapping);
+    }
+
+    @Override
+    public Mapping insert(Mapping mapping) {
+        return memory.insert(mapping);
+    }
+
+    @Override
+    public Mapping update(String key, UnaryOperator<String> update) {
+        return memory.update(key, update);
+    }
+
+    @Override
+    public void delete(Mapping mapping) {
+        memory.delete(mapping);
+    }
+
+    @Override
+    public void deleteAll() {
+        memory.deleteAll();
+    }
+
+    /**
+     * Roll the log over and write a snapshot of all mappings, then delete the files the snapshot replaces. Writes go
+     * on meanwhile.
+     */
+    public synchronized void snapshot() throws IOException {
+        long appendedBefore = log.getAppended();
+        long segment;
+        // A write between appending its record and applying it would have the record in a segment the snapshot
+        // replaces, but not the change in the snapshot
+        memory.lockAll();
+        try {
+            segment = log.roll();
+        }
+        finally {
+            memory.unlockAll();
+        }
+        Path snapshot = WriteAheadLog.snapshotFile(directory, segment);
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            // Taken after the roll, so that no id of the segments covered by the snapshot is missed
+            out.write(WriteAheadLog.lastId(memory.getLastId()));
+            try (Stream<Mapping> mappings = memory.streamAll()) {
+                for (Iterator<Mapping> i = mappings.iterator(); i.hasNext(); ) {
+                    out.write(WriteAheadLog.written(i.next()));
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        deleteBefore(segment);
+        snapshotted = appendedBefore;
+    }
+
+    /**
+     * Stop taking snapshots and close the log, after writing everything appended so far
+     */
+    @Override
+    public void close() throws IOException {
+        snapshots.shutdown();
+        try {
+            snapshots.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    private void snapshotIfChanged() {
+        try {
+            if (log.getAppended() > snapshotted) {
+                snapshot();
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            // Tried again next time, the log still holds everything
+            logger.warn("Taking a snapshot of the mappings in {} failed", directory, ex);
+        }
+    }
+
+    /**
+     * Load the latest snapshot and replay the segments after it into the memory store
+     *
+     * @return number of the segment to continue the log in
+     */
+    private long recover() throws IOException {
+        Files.createDirectories(directory);
+        // Left by a crash while writing a snapshot
+        try (DirectoryStream<Path> unfinished = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : unfinished) {
+                Files.delete(file);
+            }
+        }
+
+        Map<Long, Mapping> mappings = new HashMap<>();
+        long[] lastId = new long[1];
+        WriteAheadLog.RecordHandler replay = (type, id, mapping) -> {
+            if (type == WriteAheadLog.WRITTEN) {
+                mappings.put(id, mapping);
+            }
+            else if (type == WriteAheadLog.DELETED) {
+                mappings.remove(id);
+            }
+            lastId[0] = Math.max(lastId[0], id);
+        };
+
+        List<Long> snapshots = WriteAheadLog.list(directory, "snapshot");
+        long base = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        if (base > 0) {
+            Path snapshot = WriteAheadLog.snapshotFile(directory, base);
+            if (WriteAheadLog.read(snapshot, replay) != Files.size(snapshot)) {
+                // Snapshots only appear once complete, so this is not a crash while writing one
+                throw new IOException(snapshot + " is damaged");
+            }
+        }
+
+        List<Long> segments = WriteAheadLog.list(directory, "log");
+        long last = base;
+        for (long segment : segments) {
+            if (segment <= base) {
+                continue;
+            }
+            Path file = WriteAheadLog.segmentFile(directory, segment);
+            long intact = WriteAheadLog.read(file, replay);
+            if (intact != Files.size(file)) {
+                if (segment != segments.get(segments.size() - 1)) {
+                    throw new IOException(file + " is damaged");
+                }
+                logger.warn("Dropping {} bytes cut off at the end of {}", Files.size(file) - intact, file);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(intact);
+                    channel.force(true);
+                }
+            }
+            last = segment;
+        }
+
+        try {
+            memory.restore(mappings.values(), lastId[0]);
+        }
+        catch (DataIntegrityViolationException ex) {
+            throw new IOException("The mappings in " + directory + " are damaged", ex);
+        }
+        deleteBefore(base);
+        return last + 1;
+    }
+
+    /**
+     * Delete the segments covered by the snapshot of a segment, and older snapshots
+     */
+    private void deleteBefore(long segment) throws IOException {
+        for (long number : WriteAheadLog.list(directory, "log")) {
+            if (number <= segment) {
+                Files.deleteIfExists(WriteAheadLog.segmentFile(directory, number));
+            }
+        }
+        for (long number : WriteAheadLog.list(directory, "snapshot")) {
+            if (number < segment) {
+                Files.deleteIfExists(WriteAheadLog.snapshotFile(directory, number));
+            }
+        }
+    }
+
+    /**
+     * Make a renamed file survive a crash. Not supported on every platform, where it is left to the file system
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException ex) {
+            // Directories cannot be opened on Windows
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine SPI. An engine keeps mappings unique by key, assigns ids and versions, and publishes a
+ * {@link com.sas.example.demo.MappingEvent} for every change it applies. The REST layer reaches it through
+ * {@link MappingStoreRepository}, which implements the rest of the {@code MappingRepository} contract on top.
+ *
+ * Mappings passed in are never retained, and mappings returned belong to the caller.
+ *
+ * The JPA engine is not an implementation of this interface: it is {@code MappingRepository} as implemented by
+ * Spring Data, which stays in place when {@code mapping.storage.engine=jpa}.
+ */
+public interface MappingStore {
+
+    /**
+     * @return mapping with the id. Null if not found
+     */
+    Mapping findOne(long id);
+
+    /**
+     * @return mapping with the key. Null if not found
+     */
+    Mapping findByKey(String key);
+
+    /**
+     * @return all mappings with the value, in no particular order
+     */
+    List<Mapping> findAllByValue(String value);
+
+    /**
+     * Seek in key order
+     *
+     * @param after, key to start after, exclusive. Null to start at the first key in the given direction
+     * @param ascending, direction of the scan
+     * @param limit, maximum number of mappings to return
+     * @return mappings in key order
+     */
+    List<Mapping> findKeyRange(String after, boolean ascending, int limit);
+
+    /**
+     * Scan a range of keys in ascending order, stopping at its end
+     *
+     * @param from, key to start at. The empty key to start at the first key
+     * @param inclusive, whether the mapping of the from key itself is included
+     * @param to, key to stop at, exclusive. Null to scan to the last key
+     * @param limit, maximum number of mappings to return
+     * @return mappings in key order
+     */
+    List<Mapping> findKeyRange(String from, boolean inclusive, String to, int limit);
+
+    /**
+     * @return all mappings in id order. Changes made while the stream is consumed may or may not be seen
+     */
+    Stream<Mapping> streamAll();
+
+    long count();
+
+    /**
+     * Create a mapping, or update the stored mapping with the same id. Updates of a stale version fail in
+     * optimistic locking mode and overwrite in pessimistic mode.
+     *
+     * @param mapping, mapping to write. A new mapping is created if its id is not stored
+     * @return the stored mapping
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is taken by another mapping, or the
+     * mapping is not valid
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException on a stale version in optimistic mode
+     */
+    Mapping save(Mapping mapping);
+
+    /**
+     * Create a mapping unless its key is taken
+     *
+     * @param mapping, mapping to create. Its id and version are ignored
+     * @return the created mapping. Null if the key is taken
+     * @throws org.springframework.dao.DataIntegrityViolationException if the mapping is not valid
+     */
+    Mapping insert(Mapping mapping);
+
+    /**
+     * Read the value of a key and write the value computed from it, with no other write to the key in between. The
+     * key is created if it does not exist. Writes of the key wait meanwhile, so the computation must be quick.
+     *
+     * @param key, key to update
+     * @param update, computes the new value from the current one, which is null if the key does not exist. Returns
+     *                null or the current value to leave the key as it is. Exceptions it throws are passed on, and
+     *                nothing is written
+     * @return the stored mapping after the update. Null if the key neither existed nor was created
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key or the new value is not valid
+     */
+    Mapping update(String key, UnaryOperator<String> update);
+
+    /**
+     * Delete the stored mapping with the id of the given one. Nothing happens if there is none.
+     *
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the given mapping carries a stale
+     * version in optimistic mode
+     */
+    void delete(Mapping mapping);
+
+    void deleteAll();
+
+}
@@ -0,0 +1,46 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.MappingRepository;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Hands every call to the Spring Data {@code MappingRepository} over to a {@link MappingStore}. The repository bean
+ * stays in place, so Spring Data REST and everything else injecting it are unaware of the engine behind it.
+ *
+ * Runs before any other advice on the repository but the metrics, and never proceeds, so neither Hibernate nor the
+ * JPA transaction and locking around it are involved.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class MappingStoreAspect {
+
+    private final MappingRepository repository;
+
+    public MappingStoreAspect(MappingStore store) {
+        // Deliberately not a bean, so that no advice applies to it, this one included
+        this.repository = new MappingStoreRepository(store);
+    }
+
+    @Around("execution(* com.sas.example.demo.MappingRepository.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return joinPoint.proceed();
+        }
+        try {
+            return method.invoke(repository, joinPoint.getArgs());
+        }
+        catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.batch.BatchResult;
+import com.sas.example.demo.batch.LookupResult;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import com.sas.example.demo.keyset.KeyRange;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.sas.example.demo.storage.StoreSupport.mapping;
+
+/**
+ * Batch reads and writes of a {@link MappingStore}. Lookups by key are as cheap as the store's own, so keys are looked
+ * up one by one. There are no transactions: each mapping is written atomically, and concurrent writers see the batch
+ * applied one mapping at a time. On insert, each mapping is claimed and created in one step, so a key taken by a
+ * concurrent writer shows up as a conflict rather than failing the batch. Bulk deletes delete one mapping at a time
+ * too, each publishing its change as usual.
+ */
+public class MappingStoreBatchRepository extends MappingBatchRepository {
+
+    private final MappingStore store;
+
+    public MappingStoreBatchRepository(MappingStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public BatchResult insert(List<Mapping> mappings) {
+        BatchResult result = new BatchResult();
+        int created = 0;
+        for (Map.Entry<String, Integer> candidate : candidates(mappings, result).entrySet()) {
+            int index = candidate.getValue();
+            if (expires(mappings, candidate, result)) {
+                continue;
+            }
+            if (store.insert(new Mapping(candidate.getKey(), mappings.get(index).getValue())) == null) {
+                result.getConflicts().add(new BatchResult.Item(index, candidate.getKey(), "key already exists"));
+            }
+            else {
+                created++;
+            }
+        }
+        result.setCreated(created);
+        result.sort();
+        return result;
+    }
+
+    @Override
+    public LookupResult findByKeys(List<String> keys) {
+        LookupResult result = new LookupResult();
+        for (String key : distinct(keys)) {
+            Mapping mapping = store.findByKey(key);
+            if (mapping == null) {
+                result.getMissing().add(key);
+            }
+            else {
+                result.getMappings().add(mapping);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public BatchResult upsert(List<Mapping> mappings) {
+        BatchResult result = new BatchResult();
+        int created = 0;
+        int updated = 0;
+        for (Map.Entry<String, Integer> candidate : candidates(mappings, result).entrySet()) {
+            if (expires(mappings, candidate, result)) {
+                continue;
+            }
+            String value = mappings.get(candidate.getValue()).getValue();
+            // Starts over when a concurrent writer creates or changes the key in between
+            while (true) {
+                Mapping stored = store.findByKey(candidate.getKey());
+                if (stored == null) {
+                    if (store.insert(new Mapping(candidate.getKey(), value)) != null) {
+                        created++;
+                        break;
+                    }
+                }
+                else {
+                    try {
+                        if (!stored.getValue().equals(value)) {
+                            stored.setValue(value);
+                            store.save(stored);
+                        }
+                        updated++;
+                        break;
+                    }
+                    catch (OptimisticLockingFailureException ex) {
+                        // Read again
+                    }
+                }
+            }
+        }
+        result.setCreated(created);
+        result.setUpdated(updated);
+        result.sort();
+        return result;
+    }
+
+    @Override
+    public long deleteByKeys(List<String> keys) {
+        long deleted = 0;
+        for (String key : distinct(keys)) {
+            deleted += delete(store.findByKey(key));
+        }
+        return deleted;
+    }
+
+    @Override
+    public long deleteRange(KeyRange range) {
+        long deleted = 0;
+        String after = null;
+        while (true) {
+            List<Mapping> chunk = store.findKeyRange(after == null ? range.getFrom() : after, after == null,
+                    range.getTo(), IN_CHUNK_SIZE);
+            for (Mapping mapping : chunk) {
+                deleted += delete(mapping);
+            }
+            if (chunk.size() < IN_CHUNK_SIZE) {
+                return deleted;
+            }
+            after = chunk.get(chunk.size() - 1).getKey();
+        }
+    }
+
+    /**
+     * Delete a mapping whatever its version
+     *
+     * @return number of mappings deleted
+     */
+    private int delete(Mapping mapping) {
+        if (mapping == null) {
+            return 0;
+        }
+        store.delete(mapping(mapping.getId(), mapping.getKey(), mapping.getValue(), null));
+        return 1;
+    }
+
+    /**
+     * Reject a candidate that carries an expiry, which stores do not keep
+     *
+     * @return whether it was rejected
+     */
+    private static boolean expires(List<Mapping> mappings, Map.Entry<String, Integer> candidate, BatchResult result) {
+        if (mappings.get(candidate.getValue()).getExpiresAt() == null) {
+            return false;
+        }
+        result.getRejected().add(new BatchResult.Item(candidate.getValue(), candidate.getKey(),
+                "expiry is only supported by the jpa engine"));
+        return true;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.atomic.MappingOperations;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Routing shared by all engines other than JPA. The configuration of such an engine extends this class and declares
+ * its {@link MappingStore} bean.
+ */
+abstract class MappingStoreConfigurationSupport {
+
+    @Bean
+    public MappingStoreAspect mappingStoreAspect(MappingStore store) {
+        return new MappingStoreAspect(store);
+    }
+
+    @Bean
+    public MappingBatchRepository mappingBatchRepository(MappingStore store) {
+        return new MappingStoreBatchRepository(store);
+    }
+
+    @Bean
+    public MappingOperations mappingOperations(MappingStore store) {
+        return new MappingStoreOperations(store);
+    }
+
+}
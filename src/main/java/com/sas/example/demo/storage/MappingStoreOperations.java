@@ -0,0 +1,25 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.atomic.MappingOperations;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Atomic operations on a {@link MappingStore}. Each runs within the store's own write lock of the key, which the
+ * memory and log engines stripe by key, so operations on different keys rarely wait for each other.
+ */
+public class MappingStoreOperations extends MappingOperations {
+
+    private final MappingStore store;
+
+    public MappingStoreOperations(MappingStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Mapping update(String key, UnaryOperator<String> update) {
+        return store.update(key, update);
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The {@code MappingRepository} contract implemented over a {@link MappingStore}: paging, sorting and the derived
+ * queries are done here, so engines only need to provide the primitives.
+ *
+ * Unlike with JPA, writes of several mappings are not atomic; each mapping is written on its own.
+ */
+public class MappingStoreRepository implements MappingRepository {
+
+    private final MappingStore store;
+
+    public MappingStoreRepository(MappingStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Mapping findByKey(String key) {
+        return store.findByKey(key);
+    }
+
+    @Override
+    public Mapping findByValue(String value) {
+        List<Mapping> mappings = store.findAllByValue(value);
+        if (mappings.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, mappings.size());
+        }
+        return mappings.isEmpty() ? null : mappings.get(0);
+    }
+
+    @Override
+    public Page<Mapping> findAllByValue(String value, Pageable pageable) {
+        List<Mapping> mappings = store.findAllByValue(value);
+        if (pageable == null) {
+            mappings.sort(Comparator.comparingLong(Mapping::getId));
+            return new PageImpl<>(mappings);
+        }
+        mappings.sort(comparator(pageable.getSort()));
+        return new PageImpl<>(slice(mappings.stream(), pageable), pageable, mappings.size());
+    }
+
+    @Override
+    public Stream<Mapping> streamAll() {
+        return store.streamAll();
+    }
+
+    @Override
+    public List<Mapping> findAllByOrderByKeyAsc(Pageable pageable) {
+        return store.findKeyRange(null, true, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Mapping> findByKeyGreaterThanOrderByKeyAsc(String key, Pageable pageable) {
+        return store.findKeyRange(key, true, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Mapping> findAllByOrderByKeyDesc(Pageable pageable) {
+        return store.findKeyRange(null, false, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Mapping> findByKeyLessThanOrderByKeyDesc(String key, Pageable pageable) {
+        return store.findKeyRange(key, false, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Mapping> findByKeyGreaterThanEqualOrderByKeyAsc(String from, Pageable pageable) {
+        return store.findKeyRange(from, true, null, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Mapping> findByKeyGreaterThanEqualAndKeyLessThanOrderByKeyAsc(String from, String to,
+                                                                            Pageable pageable) {
+        return store.findKeyRange(from, true, to, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Mapping> findByKeyGreaterThanAndKeyLessThanOrderByKeyAsc(String after, String to, Pageable pageable) {
+        return store.findKeyRange(after, false, to, pageable.getPageSize());
+    }
+
+    @Override
+    public Iterable<Mapping> findAll(Sort sort) {
+        try (Stream<Mapping> mappings = store.streamAll()) {
+            return sort == null ? mappings.collect(Collectors.toList())
+                    : mappings.sorted(comparator(sort)).collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Page<Mapping> findAll(Pageable pageable) {
+        if (pageable == null) {
+            return new PageImpl<>(findAll());
+        }
+        long total = store.count();
+        try (Stream<Mapping> mappings = store.streamAll()) {
+            // Already in id order, only sort if asked for something else
+            Stream<Mapping> ordered = pageable.getSort() == null ? mappings
+                    : mappings.sorted(comparator(pageable.getSort()));
+            return new PageImpl<>(slice(ordered, pageable), pageable, total);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Mapping> S save(S mapping) {
+        return (S) store.save(mapping);
+    }
+
+    @Override
+    public <S extends Mapping> Iterable<S> save(Iterable<S> mappings) {
+        List<S> saved = new ArrayList<>();
+        for (S mapping : mappings) {
+            saved.add(save(mapping));
+        }
+        return saved;
+    }
+
+    @Override
+    public Mapping findOne(Long id) {
+        return store.findOne(id);
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        return store.findOne(id) != null;
+    }
+
+    @Override
+    public List<Mapping> findAll() {
+        try (Stream<Mapping> mappings = store.streamAll()) {
+            return mappings.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Iterable<Mapping> findAll(Iterable<Long> ids) {
+        List<Mapping> mappings = new ArrayList<>();
+        for (Long id : ids) {
+            Mapping mapping = store.findOne(id);
+            if (mapping != null) {
+                mappings.add(mapping);
+            }
+        }
+        return mappings;
+    }
+
+    @Override
+    public long count() {
+        return store.count();
+    }
+
+    @Override
+    public void delete(Long id) {
+        Mapping mapping = store.findOne(id);
+        if (mapping == null) {
+            throw new EmptyResultDataAccessException(
+                    String.format("No %s entity with id %s exists!", Mapping.class, id), 1);
+        }
+        // Deleted whatever its version
+        mapping.setVersion(null);
+        store.delete(mapping);
+    }
+
+    @Override
+    public void delete(Mapping mapping) {
+        store.delete(mapping);
+    }
+
+    @Override
+    public void delete(Iterable<? extends Mapping> mappings) {
+        for (Mapping mapping : mappings) {
+            store.delete(mapping);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        store.deleteAll();
+    }
+
+    private static List<Mapping> slice(Stream<Mapping> mappings, Pageable pageable) {
+        return mappings.skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Comparator for the sortable properties of a mapping, in the order given. Ties are broken by id, so pages are
+     * stable.
+     */
+    private static Comparator<Mapping> comparator(Sort sort) {
+        Comparator<Mapping> comparator = (a, b) -> 0;
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                comparator = comparator.thenComparing(comparator(order));
+            }
+        }
+        return comparator.thenComparingLong(Mapping::getId);
+    }
+
+    private static Comparator<Mapping> comparator(Sort.Order order) {
+        // Fails the same way as a JPA query on an unknown property
+        PropertyPath.from(order.getProperty(), Mapping.class);
+
+        Comparator<String> strings = order.isIgnoreCase() ? String.CASE_INSENSITIVE_ORDER : Comparator.naturalOrder();
+        Comparator<Mapping> comparator;
+        switch (order.getProperty()) {
+            case "id":
+                comparator = Comparator.comparingLong(Mapping::getId);
+                break;
+            case "key":
+                comparator = Comparator.comparing(Mapping::getKey, strings);
+                break;
+            case "value":
+                comparator = Comparator.comparing(Mapping::getValue, strings);
+                break;
+            case "version":
+                comparator = Comparator.comparing(Mapping::getVersion);
+                break;
+            default:
+                throw new IllegalArgumentException("Mappings cannot be sorted by " + order.getProperty());
+        }
+        return order.isAscending() ? comparator : comparator.reversed();
+    }
+
+}
@@ -0,0 +1,412 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.sas.example.demo.storage.StoreSupport.checkVersion;
+import static com.sas.example.demo.storage.StoreSupport.duplicateKey;
+import static com.sas.example.demo.storage.StoreSupport.mapping;
+import static com.sas.example.demo.storage.StoreSupport.validate;
+
+/**
+ * Storage engine that keeps all mappings on the heap. Nothing survives a restart.
+ *
+ * Reads never lock: they go straight to concurrent maps holding immutable snapshots. Writes lock the stripe of the
+ * key they write, so writers of different keys rarely wait for each other, while a key is only ever claimed by one
+ * writer at a time. A write that changes the key of a mapping holds the stripes of both keys, taken in stripe order.
+ *
+ * Changes are passed to a {@link Journal} with the locks held, before they are applied, so that the changes of a
+ * mapping reach it in the order they are applied, and a change the journal refuses leaves the store as it was.
+ */
+public class MemoryMappingStore implements MappingStore {
+
+    private final ConcurrentNavigableMap<Long, Mapping> byId = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentNavigableMap<String, Mapping> byKey = new ConcurrentSkipListMap<>();
+
+    // Value to the ids of the mappings holding it. Values are not unique
+    private final Map<String, Set<Long>> byValue = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastId = new AtomicLong();
+
+    private final ReentrantLock[] stripes;
+
+    private final boolean optimistic;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final Journal journal;
+
+    /**
+     * @param stripes, number of write locks, rounded up to a power of two
+     * @param optimistic, whether writes of a stale version fail rather than overwrite
+     * @param publisher, receives an event for every change
+     */
+    public MemoryMappingStore(int stripes, boolean optimistic, ApplicationEventPublisher publisher) {
+        this(stripes, optimistic, publisher, Journal.NONE);
+    }
+
+    /**
+     * @param journal, receives every change while its locks are still held
+     */
+    MemoryMappingStore(int stripes, boolean optimistic, ApplicationEventPublisher publisher, Journal journal) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.optimistic = optimistic;
+        this.publisher = publisher;
+        this.journal = journal;
+    }
+
+    @Override
+    public Mapping findOne(long id) {
+        return copy(byId.get(id));
+    }
+
+    @Override
+    public Mapping findByKey(String key) {
+        return key == null ? null : copy(byKey.get(key));
+    }
+
+    @Override
+    public List<Mapping> findAllByValue(String value) {
+        Set<Long> ids = value == null ? null : byValue.get(value);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        // The index is updated after the mappings themselves, so check each hit against the mapping
+        return ids.stream()
+                .map(byId::get)
+                .filter(mapping -> mapping != null && mapping.getValue().equals(value))
+                .map(MemoryMappingStore::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String after, boolean ascending, int limit) {
+        ConcurrentNavigableMap<String, Mapping> range = ascending ? byKey : byKey.descendingMap();
+        if (after != null) {
+            range = range.tailMap(after, false);
+        }
+        return range.values().stream()
+                .limit(limit)
+                .map(MemoryMappingStore::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String from, boolean inclusive, String to, int limit) {
+        if (to != null && from.compareTo(to) >= 0) {
+            return Collections.emptyList();
+        }
+        ConcurrentNavigableMap<String, Mapping> range = to == null ? byKey.tailMap(from, inclusive)
+                : byKey.subMap(from, inclusive, to, false);
+        return range.values().stream()
+                .limit(limit)
+                .map(MemoryMappingStore::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Mapping> streamAll() {
+        return byId.values().stream().map(MemoryMappingStore::copy);
+    }
+
+    @Override
+    public long count() {
+        return byId.size();
+    }
+
+    @Override
+    public Mapping save(Mapping mapping) {
+        validate(mapping);
+        while (true) {
+            Mapping current = byId.get(mapping.getId());
+            if (current == null) {
+                return create(mapping, true);
+            }
+            MappingEvent event;
+            Mapping stored;
+            ReentrantLock[] locks = lock(current.getKey(), mapping.getKey());
+            try {
+                if (byId.get(mapping.getId()) != current) {
+                    // Changed or deleted while waiting for the locks
+                    continue;
+                }
+                checkVersion(optimistic, mapping, current.getId(), current.getVersion());
+                if (current.getKey().equals(mapping.getKey()) && current.getValue().equals(mapping.getValue())) {
+                    // Nothing to write, the version stays as it is
+                    return copy(current);
+                }
+                Mapping owner = byKey.get(mapping.getKey());
+                if (owner != null && owner.getId() != current.getId()) {
+                    throw duplicateKey(mapping.getKey());
+                }
+
+                stored = mapping(current.getId(), mapping.getKey(), mapping.getValue(), current.getVersion() + 1);
+                journal.written(stored);
+                byId.put(stored.getId(), stored);
+                byKey.put(stored.getKey(), stored);
+                if (!stored.getKey().equals(current.getKey())) {
+                    byKey.remove(current.getKey(), current);
+                }
+                if (!stored.getValue().equals(current.getValue())) {
+                    unindex(current);
+                    index(stored);
+                }
+                event = new MappingEvent(MappingEvent.Type.UPDATED, stored.getId(), stored.getKey(),
+                        stored.getValue(), current.getKey(), stored.getVersion());
+            }
+            finally {
+                unlock(locks);
+            }
+            publisher.publishEvent(event);
+            return copy(stored);
+        }
+    }
+
+    @Override
+    public Mapping insert(Mapping mapping) {
+        validate(mapping);
+        return create(mapping, false);
+    }
+
+    @Override
+    public Mapping update(String key, UnaryOperator<String> update) {
+        validate(new Mapping(key, ""));
+        ReentrantLock[] locks = lock(key, key);
+        try {
+            Mapping current = byKey.get(key);
+            String value = update.apply(current == null ? null : current.getValue());
+            if (value == null || current != null && current.getValue().equals(value)) {
+                return copy(current);
+            }
+            // Takes the stripe again, which the locks held let through, and publishes the change before they are
+            // released
+            return save(current == null ? new Mapping(key, value)
+                    : mapping(current.getId(), key, value, current.getVersion()));
+        }
+        finally {
+            unlock(locks);
+        }
+    }
+
+    @Override
+    public void delete(Mapping mapping) {
+        while (true) {
+            Mapping current = byId.get(mapping.getId());
+            if (current == null) {
+                return;
+            }
+            ReentrantLock[] locks = lock(current.getKey(), current.getKey());
+            try {
+                if (byId.get(mapping.getId()) != current) {
+                    continue;
+                }
+                checkVersion(optimistic, mapping, current.getId(), current.getVersion());
+                journal.deleted(current.getId());
+                byId.remove(current.getId(), current);
+                byKey.remove(current.getKey(), current);
+                unindex(current);
+            }
+            finally {
+                unlock(locks);
+            }
+            publisher.publishEvent(new MappingEvent(MappingEvent.Type.DELETED, current.getId(), current.getKey(),
+                    current.getValue(), null, current.getVersion()));
+            return;
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for (Mapping mapping : byId.values()) {
+            // Deleted regardless of its version
+            delete(mapping(mapping.getId(), mapping.getKey(), mapping.getValue(), null));
+        }
+    }
+
+    private Mapping create(Mapping mapping, boolean failIfTaken) {
+        Mapping stored;
+        ReentrantLock[] locks = lock(mapping.getKey(), mapping.getKey());
+        try {
+            if (byKey.containsKey(mapping.getKey())) {
+                if (failIfTaken) {
+                    throw duplicateKey(mapping.getKey());
+                }
+                return null;
+            }
+            stored = mapping(lastId.incrementAndGet(), mapping.getKey(), mapping.getValue(), 0L);
+            journal.written(stored);
+            byId.put(stored.getId(), stored);
+            byKey.put(stored.getKey(), stored);
+            index(stored);
+        }
+        finally {
+            unlock(locks);
+        }
+        publisher.publishEvent(new MappingEvent(MappingEvent.Type.CREATED, stored.getId(), stored.getKey(),
+                stored.getValue(), null, stored.getVersion()));
+        return copy(stored);
+    }
+
+    /**
+     * Store a mapping as it is, with its id and version, in place of the mapping of the same id. Changes are published
+     * like those of any other write. Meant for a copy of another store, written by one thread: the caller deletes the
+     * mapping of another id holding the key first.
+     *
+     * @return whether anything changed
+     */
+    boolean put(Mapping mapping) {
+        while (true) {
+            Mapping current = byId.get(mapping.getId());
+            Mapping stored = copy(mapping);
+            MappingEvent event;
+            ReentrantLock[] locks = lock(current == null ? stored.getKey() : current.getKey(), stored.getKey());
+            try {
+                if (byId.get(stored.getId()) != current) {
+                    continue;
+                }
+                if (current != null && current.getKey().equals(stored.getKey())
+                        && current.getValue().equals(stored.getValue())
+                        && Objects.equals(current.getVersion(), stored.getVersion())) {
+                    return false;
+                }
+                Mapping owner = byKey.get(stored.getKey());
+                if (owner != null && owner.getId() != stored.getId()) {
+                    throw duplicateKey(stored.getKey());
+                }
+
+                journal.written(stored);
+                byId.put(stored.getId(), stored);
+                byKey.put(stored.getKey(), stored);
+                if (current != null) {
+                    if (!stored.getKey().equals(current.getKey())) {
+                        byKey.remove(current.getKey(), current);
+                    }
+                    unindex(current);
+                }
+                index(stored);
+                lastId.accumulateAndGet(stored.getId(), Math::max);
+                event = current == null
+                        ? new MappingEvent(MappingEvent.Type.CREATED, stored.getId(), stored.getKey(),
+                        stored.getValue(), null, stored.getVersion())
+                        : new MappingEvent(MappingEvent.Type.UPDATED, stored.getId(), stored.getKey(),
+                        stored.getValue(), current.getKey(), stored.getVersion());
+            }
+            finally {
+                unlock(locks);
+            }
+            publisher.publishEvent(event);
+            return true;
+        }
+    }
+
+    /**
+     * Replace the contents of the store, without publishing events. Meant for loading a store before it is used.
+     *
+     * @param mappings, mappings with the ids and versions they were stored with
+     * @param lastId, highest id ever assigned, including those of deleted mappings
+     * @throws org.springframework.dao.DataIntegrityViolationException if two of the mappings have the same key. The
+     * store is left empty
+     */
+    void restore(Collection<Mapping> mappings, long lastId) {
+        byId.clear();
+        byKey.clear();
+        byValue.clear();
+        for (Mapping mapping : mappings) {
+            Mapping stored = copy(mapping);
+            if (byKey.putIfAbsent(stored.getKey(), stored) != null) {
+                byKey.clear();
+                byId.clear();
+                byValue.clear();
+                throw duplicateKey(stored.getKey());
+            }
+            byId.put(stored.getId(), stored);
+            index(stored);
+        }
+        this.lastId.set(lastId);
+    }
+
+    /**
+     * Take every stripe, so that no write is in progress until {@link #unlockAll()}: each change passed to the journal
+     * so far has been applied, and no other is passed meanwhile
+     */
+    void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    void unlockAll() {
+        unlock(stripes);
+    }
+
+    /**
+     * @return highest id assigned so far
+     */
+    long getLastId() {
+        return lastId.get();
+    }
+
+    private void index(Mapping mapping) {
+        byValue.computeIfAbsent(mapping.getValue(), value -> ConcurrentHashMap.newKeySet()).add(mapping.getId());
+    }
+
+    private void unindex(Mapping mapping) {
+        byValue.computeIfPresent(mapping.getValue(), (value, ids) -> {
+            ids.remove(mapping.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Lock the stripes of both keys, lower stripe first so that two writers can never wait for each other
+     */
+    private ReentrantLock[] lock(String key, String otherKey) {
+        int stripe = stripe(key);
+        int otherStripe = stripe(otherKey);
+        ReentrantLock[] locks = stripe == otherStripe
+                ? new ReentrantLock[]{stripes[stripe]}
+                : new ReentrantLock[]{stripes[Math.min(stripe, otherStripe)], stripes[Math.max(stripe, otherStripe)]};
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        return locks;
+    }
+
+    private static void unlock(ReentrantLock[] locks) {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    private int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    private static Mapping copy(Mapping mapping) {
+        return mapping == null ? null
+                : mapping(mapping.getId(), mapping.getKey(), mapping.getValue(), mapping.getVersion());
+    }
+
+}
@@ -0,0 +1,798 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.sas.example.demo.storage.StoreSupport.checkVersion;
+import static com.sas.example.demo.storage.StoreSupport.duplicateKey;
+import static com.sas.example.demo.storage.StoreSupport.mapping;
+import static com.sas.example.demo.storage.StoreSupport.validate;
+
+/**
+ * Storage engine that keeps keys and values outside the Java heap, as UTF-8 in direct buffers (see {@link Slabs}).
+ * Nothing survives a restart.
+ *
+ * Every mapping is an entry number. The indexes by id, key and value are open-addressing tables of entry numbers,
+ * and key order is kept by a treap whose links are entry numbers too. All of it lives in a handful of primitive
+ * arrays, so the heap holds no object per mapping and the garbage collector has next to nothing to trace. Mapping
+ * objects are only created for the caller.
+ *
+ * Reads run concurrently, writes one at a time.
+ */
+public class OffHeapMappingStore implements MappingStore, Closeable {
+
+    private static final int NONE = -1;
+
+    private static final long FREE = -1L;
+
+    // Entries to start with, doubled whenever they run out
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Slabs slabs;
+
+    private final boolean optimistic;
+
+    private final ApplicationEventPublisher publisher;
+
+    // Per entry: address of its record, or FREE
+    private long[] addresses;
+
+    // Per entry: hashes of key and value, which the indexes do not keep themselves
+    private int[] keyHashes;
+    private int[] valueHashes;
+
+    // Per entry: links to the other entries of the same value hash. Only the first of them is in byValue, so that
+    // a popular value takes one slot of the index rather than a run of probes
+    private int[] nextByValue;
+    private int[] previousByValue;
+
+    // Per entry: treap links, ordering entries by key
+    private int[] left;
+    private int[] right;
+    private int root = NONE;
+
+    // Entry numbers in use or freed so far, and the freed ones
+    private int entries;
+    private int[] freeEntries = new int[16];
+    private int freeEntryCount;
+
+    private final OpenHashIndex byId;
+    private final OpenHashIndex byKey;
+    private final OpenHashIndex byValue;
+
+    private long lastId;
+
+    // Decoding buffers, so that comparisons do not allocate
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param slabSize, bytes of direct memory reserved at a time
+     * @param optimistic, whether writes of a stale version fail rather than overwrite
+     * @param publisher, receives an event for every change
+     */
+    public OffHeapMappingStore(int slabSize, boolean optimistic, ApplicationEventPublisher publisher) {
+        this.slabs = new Slabs(slabSize);
+        this.optimistic = optimistic;
+        this.publisher = publisher;
+        addresses = new long[INITIAL_CAPACITY];
+        keyHashes = new int[INITIAL_CAPACITY];
+        valueHashes = new int[INITIAL_CAPACITY];
+        nextByValue = new int[INITIAL_CAPACITY];
+        previousByValue = new int[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        byId = new OpenHashIndex(INITIAL_CAPACITY, entry -> idHash(slabs.id(addresses[entry])));
+        byKey = new OpenHashIndex(INITIAL_CAPACITY, entry -> keyHashes[entry]);
+        byValue = new OpenHashIndex(INITIAL_CAPACITY, entry -> valueHashes[entry]);
+    }
+
+    @Override
+    public Mapping findOne(long id) {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            int entry = entryById(id);
+            return entry == NONE ? null : read(entry);
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Mapping findByKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            int entry = entryByKey(key);
+            return entry == NONE ? null : read(entry);
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Mapping> findAllByValue(String value) {
+        List<Mapping> mappings = new ArrayList<>();
+        if (value == null) {
+            return mappings;
+        }
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            char[] chars = scratch.get().value;
+            int hash = value.hashCode();
+            for (int entry = byValue.find(hash, first -> true); entry != NONE; entry = nextByValue[entry]) {
+                if (equal(chars, slabs.value(addresses[entry], chars), value)) {
+                    mappings.add(read(entry));
+                }
+            }
+            return mappings;
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String after, boolean ascending, int limit) {
+        List<Mapping> mappings = new ArrayList<>();
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            char[] key = scratch.get().key;
+            int entry;
+            if (after == null) {
+                entry = ascending ? first() : last();
+            }
+            else {
+                char[] chars = after.length() <= key.length ? key : new char[after.length()];
+                after.getChars(0, after.length(), chars, 0);
+                entry = ascending ? higher(chars, after.length()) : lower(chars, after.length());
+            }
+            while (entry != NONE && mappings.size() < limit) {
+                mappings.add(read(entry));
+                int length = slabs.key(addresses[entry], key);
+                entry = ascending ? higher(key, length) : lower(key, length);
+            }
+            return mappings;
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String from, boolean inclusive, String to, int limit) {
+        List<Mapping> mappings = new ArrayList<>();
+        char[] end = to == null ? null : to.toCharArray();
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            char[] key = scratch.get().key;
+            char[] chars = from.length() <= key.length ? key : new char[from.length()];
+            from.getChars(0, from.length(), chars, 0);
+            int entry = inclusive ? ceiling(chars, from.length()) : higher(chars, from.length());
+            while (entry != NONE && mappings.size() < limit && (end == null || compare(entry, end, end.length) < 0)) {
+                mappings.add(read(entry));
+                int length = slabs.key(addresses[entry], key);
+                entry = higher(key, length);
+            }
+            return mappings;
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Stream<Mapping> streamAll() {
+        long[] ids;
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            ids = new long[entries - freeEntryCount];
+            int count = 0;
+            for (int entry = 0; entry < entries; entry++) {
+                if (addresses[entry] != FREE) {
+                    ids[count++] = slabs.id(addresses[entry]);
+                }
+            }
+        }
+        finally {
+            read.unlock();
+        }
+        Arrays.sort(ids);
+        return LongStream.of(ids).mapToObj(this::findOne).filter(Objects::nonNull);
+    }
+
+    @Override
+    public long count() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return entries - freeEntryCount;
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    @Override
+    public Mapping save(Mapping mapping) {
+        validate(mapping);
+        MappingEvent event;
+        Mapping stored;
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            int entry = entryById(mapping.getId());
+            if (entry == NONE) {
+                stored = create(mapping, true);
+                event = event(MappingEvent.Type.CREATED, stored, null);
+            }
+            else {
+                checkVersion(optimistic, mapping, mapping.getId(), slabs.version(addresses[entry]));
+                String previousKey = update(entry, mapping);
+                stored = read(entry);
+                if (previousKey == null) {
+                    // Nothing written, the version stays as it is
+                    return stored;
+                }
+                event = event(MappingEvent.Type.UPDATED, stored, previousKey);
+            }
+        }
+        finally {
+            write.unlock();
+        }
+        publisher.publishEvent(event);
+        return stored;
+    }
+
+    @Override
+    public Mapping insert(Mapping mapping) {
+        validate(mapping);
+        Mapping stored;
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            stored = create(mapping, false);
+        }
+        finally {
+            write.unlock();
+        }
+        if (stored != null) {
+            publisher.publishEvent(event(MappingEvent.Type.CREATED, stored, null));
+        }
+        return stored;
+    }
+
+    @Override
+    public Mapping update(String key, UnaryOperator<String> update) {
+        validate(new Mapping(key, ""));
+        MappingEvent event;
+        Mapping stored;
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            int entry = entryByKey(key);
+            Mapping current = entry == NONE ? null : read(entry);
+            String value = update.apply(current == null ? null : current.getValue());
+            if (value == null || current != null && current.getValue().equals(value)) {
+                return current;
+            }
+            if (current == null) {
+                Mapping created = new Mapping(key, value);
+                validate(created);
+                stored = create(created, true);
+                event = event(MappingEvent.Type.CREATED, stored, null);
+            }
+            else {
+                Mapping changed = mapping(current.getId(), key, value, current.getVersion());
+                validate(changed);
+                update(entry, changed);
+                stored = read(entry);
+                event = event(MappingEvent.Type.UPDATED, stored, key);
+            }
+        }
+        finally {
+            write.unlock();
+        }
+        publisher.publishEvent(event);
+        return stored;
+    }
+
+    @Override
+    public void delete(Mapping mapping) {
+        Mapping deleted;
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            int entry = entryById(mapping.getId());
+            if (entry == NONE) {
+                return;
+            }
+            checkVersion(optimistic, mapping, mapping.getId(), slabs.version(addresses[entry]));
+            deleted = remove(entry);
+        }
+        finally {
+            write.unlock();
+        }
+        publisher.publishEvent(event(MappingEvent.Type.DELETED, deleted, null));
+    }
+
+    @Override
+    public void deleteAll() {
+        List<Mapping> deleted = new ArrayList<>();
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            for (int entry = 0; entry < entries; entry++) {
+                if (addresses[entry] != FREE) {
+                    deleted.add(remove(entry));
+                }
+            }
+        }
+        finally {
+            write.unlock();
+        }
+        deleted.forEach(mapping -> publisher.publishEvent(event(MappingEvent.Type.DELETED, mapping, null)));
+    }
+
+    /**
+     * @return bytes reserved outside the heap
+     */
+    public long getOffHeapBytes() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return slabs.allocated();
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * @return bytes taken by the records of all mappings outside the heap
+     */
+    public long getRecordBytes() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return slabs.used();
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * @return bytes taken by the arrays of entries and indexes on the heap
+     */
+    public long getIndexBytes() {
+        Lock read = lock.readLock();
+        read.lock();
+        try {
+            return 32L * addresses.length + byId.footprint() + byKey.footprint() + byValue.footprint();
+        }
+        finally {
+            read.unlock();
+        }
+    }
+
+    /**
+     * Release the direct memory of all mappings. The store is empty afterwards.
+     */
+    @Override
+    public void close() {
+        Lock write = lock.writeLock();
+        write.lock();
+        try {
+            for (int entry = 0; entry < entries; entry++) {
+                if (addresses[entry] != FREE) {
+                    byId.remove(entry);
+                    byKey.remove(entry);
+                    removeByValue(entry);
+                }
+            }
+            slabs.clear();
+            entries = 0;
+            freeEntryCount = 0;
+            root = NONE;
+        }
+        finally {
+            write.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the write lock held
+     */
+    private Mapping create(Mapping mapping, boolean failIfTaken) {
+        if (entryByKey(mapping.getKey()) != NONE) {
+            if (failIfTaken) {
+                throw duplicateKey(mapping.getKey());
+            }
+            return null;
+        }
+        int entry = newEntry();
+        int keyLength = Slabs.encodedLength(mapping.getKey());
+        int valueLength = Slabs.encodedLength(mapping.getValue());
+        long id = ++lastId;
+        long address = slabs.allocate(Slabs.recordSize(keyLength, valueLength));
+        slabs.write(address, id, 0, mapping.getKey(), keyLength, mapping.getValue(), valueLength);
+        addresses[entry] = address;
+
+        keyHashes[entry] = mapping.getKey().hashCode();
+        valueHashes[entry] = mapping.getValue().hashCode();
+        byId.add(entry);
+        byKey.add(entry);
+        addByValue(entry);
+        char[] key = scratch.get().key;
+        mapping.getKey().getChars(0, mapping.getKey().length(), key, 0);
+        root = insert(root, entry, key, mapping.getKey().length());
+
+        return read(entry);
+    }
+
+    /**
+     * Write key and value of the mapping to an entry. Must be called with the write lock held
+     *
+     * @return previous key of the entry. Null if neither key nor value changed
+     */
+    private String update(int entry, Mapping mapping) {
+        long address = addresses[entry];
+        Scratch scratch = this.scratch.get();
+        int previousLength = slabs.key(address, scratch.key);
+        boolean keyChanged = !equal(scratch.key, previousLength, mapping.getKey());
+        boolean valueChanged = !equal(scratch.value, slabs.value(address, scratch.value), mapping.getValue());
+        if (!keyChanged && !valueChanged) {
+            return null;
+        }
+        if (keyChanged && entryByKey(mapping.getKey()) != NONE) {
+            throw duplicateKey(mapping.getKey());
+        }
+
+        String previousKey = new String(scratch.key, 0, previousLength);
+        if (keyChanged) {
+            root = remove(root, entry, scratch.key, previousLength);
+            byKey.remove(entry);
+        }
+        if (valueChanged) {
+            removeByValue(entry);
+        }
+
+        // Rewritten in place unless the record moves to another size class
+        int keyLength = Slabs.encodedLength(mapping.getKey());
+        int valueLength = Slabs.encodedLength(mapping.getValue());
+        int size = Slabs.recordSize(keyLength, valueLength);
+        long version = slabs.version(address);
+        if (size != Slabs.recordSize(slabs.keyLength(address), slabs.valueLength(address))) {
+            slabs.free(address);
+            address = slabs.allocate(size);
+            addresses[entry] = address;
+        }
+        slabs.write(address, mapping.getId(), version + 1, mapping.getKey(), keyLength, mapping.getValue(),
+                valueLength);
+
+        if (keyChanged) {
+            keyHashes[entry] = mapping.getKey().hashCode();
+            byKey.add(entry);
+            mapping.getKey().getChars(0, mapping.getKey().length(), scratch.key, 0);
+            root = insert(root, entry, scratch.key, mapping.getKey().length());
+        }
+        if (valueChanged) {
+            valueHashes[entry] = mapping.getValue().hashCode();
+            addByValue(entry);
+        }
+        return previousKey;
+    }
+
+    /**
+     * Remove an entry from all indexes and free it. Must be called with the write lock held
+     *
+     * @return the removed mapping
+     */
+    private Mapping remove(int entry) {
+        Mapping removed = read(entry);
+        char[] key = scratch.get().key;
+        removed.getKey().getChars(0, removed.getKey().length(), key, 0);
+        root = remove(root, entry, key, removed.getKey().length());
+        byId.remove(entry);
+        byKey.remove(entry);
+        removeByValue(entry);
+        slabs.free(addresses[entry]);
+        addresses[entry] = FREE;
+        if (freeEntryCount == freeEntries.length) {
+            freeEntries = Arrays.copyOf(freeEntries, freeEntryCount * 2);
+        }
+        freeEntries[freeEntryCount++] = entry;
+        return removed;
+    }
+
+    /**
+     * Index an entry under its current value hash, after the first entry of the hash if there is one
+     */
+    private void addByValue(int entry) {
+        int first = byValue.find(valueHashes[entry], other -> true);
+        if (first == NONE) {
+            byValue.add(entry);
+            nextByValue[entry] = NONE;
+        }
+        else {
+            nextByValue[entry] = nextByValue[first];
+            if (nextByValue[first] != NONE) {
+                previousByValue[nextByValue[first]] = entry;
+            }
+            nextByValue[first] = entry;
+        }
+        previousByValue[entry] = first;
+    }
+
+    /**
+     * Remove an entry from the value index while its value hash is still the one it was added with. The next entry
+     * of the hash, if any, takes its place in the index
+     */
+    private void removeByValue(int entry) {
+        int next = nextByValue[entry];
+        int previous = previousByValue[entry];
+        if (next != NONE) {
+            previousByValue[next] = previous;
+        }
+        if (previous != NONE) {
+            nextByValue[previous] = next;
+        }
+        else {
+            byValue.remove(entry);
+            if (next != NONE) {
+                byValue.add(next);
+            }
+        }
+    }
+
+    private int newEntry() {
+        if (freeEntryCount > 0) {
+            int entry = freeEntries[--freeEntryCount];
+            left[entry] = NONE;
+            right[entry] = NONE;
+            return entry;
+        }
+        if (entries == addresses.length) {
+            int capacity = addresses.length * 2;
+            addresses = Arrays.copyOf(addresses, capacity);
+            keyHashes = Arrays.copyOf(keyHashes, capacity);
+            valueHashes = Arrays.copyOf(valueHashes, capacity);
+            nextByValue = Arrays.copyOf(nextByValue, capacity);
+            previousByValue = Arrays.copyOf(previousByValue, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+        }
+        int entry = entries++;
+        left[entry] = NONE;
+        right[entry] = NONE;
+        return entry;
+    }
+
+    private int entryById(long id) {
+        return byId.find(idHash(id), entry -> slabs.id(addresses[entry]) == id);
+    }
+
+    private int entryByKey(String key) {
+        char[] chars = scratch.get().candidate;
+        return byKey.find(key.hashCode(), entry -> equal(chars, slabs.key(addresses[entry], chars), key));
+    }
+
+    private Mapping read(int entry) {
+        long address = addresses[entry];
+        Scratch scratch = this.scratch.get();
+        String key = new String(scratch.candidate, 0, slabs.key(address, scratch.candidate));
+        String value = new String(scratch.value, 0, slabs.value(address, scratch.value));
+        return mapping(slabs.id(address), key, value, slabs.version(address));
+    }
+
+    private static MappingEvent event(MappingEvent.Type type, Mapping mapping, String previousKey) {
+        return new MappingEvent(type, mapping.getId(), mapping.getKey(), mapping.getValue(), previousKey,
+                mapping.getVersion());
+    }
+
+    // Treap by key. Keys to look for are passed as characters, and compared against the decoded key of each node
+
+    private int insert(int node, int entry, char[] key, int length) {
+        if (node == NONE) {
+            return entry;
+        }
+        if (compare(node, key, length) > 0) {
+            left[node] = insert(left[node], entry, key, length);
+            if (priority(left[node]) > priority(node)) {
+                int child = left[node];
+                left[node] = right[child];
+                right[child] = node;
+                return child;
+            }
+        }
+        else {
+            right[node] = insert(right[node], entry, key, length);
+            if (priority(right[node]) > priority(node)) {
+                int child = right[node];
+                right[node] = left[child];
+                left[child] = node;
+                return child;
+            }
+        }
+        return node;
+    }
+
+    private int remove(int node, int entry, char[] key, int length) {
+        if (node == NONE) {
+            return NONE;
+        }
+        if (node == entry) {
+            return merge(left[node], right[node]);
+        }
+        if (compare(node, key, length) > 0) {
+            left[node] = remove(left[node], entry, key, length);
+        }
+        else {
+            right[node] = remove(right[node], entry, key, length);
+        }
+        return node;
+    }
+
+    /**
+     * Join two treaps, all keys of the first being smaller than those of the second
+     */
+    private int merge(int lower, int upper) {
+        if (lower == NONE) {
+            return upper;
+        }
+        if (upper == NONE) {
+            return lower;
+        }
+        if (priority(lower) > priority(upper)) {
+            right[lower] = merge(right[lower], upper);
+            return lower;
+        }
+        left[upper] = merge(lower, left[upper]);
+        return upper;
+    }
+
+    private int first() {
+        int node = root;
+        while (node != NONE && left[node] != NONE) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    private int last() {
+        int node = root;
+        while (node != NONE && right[node] != NONE) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return entry with the smallest key greater than or equal to the given one. NONE if there is none
+     */
+    private int ceiling(char[] key, int length) {
+        int found = NONE;
+        int node = root;
+        while (node != NONE) {
+            if (compare(node, key, length) >= 0) {
+                found = node;
+                node = left[node];
+            }
+            else {
+                node = right[node];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return entry with the smallest key greater than the given one. NONE if there is none
+     */
+    private int higher(char[] key, int length) {
+        int found = NONE;
+        int node = root;
+        while (node != NONE) {
+            if (compare(node, key, length) > 0) {
+                found = node;
+                node = left[node];
+            }
+            else {
+                node = right[node];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return entry with the greatest key less than the given one. NONE if there is none
+     */
+    private int lower(char[] key, int length) {
+        int found = NONE;
+        int node = root;
+        while (node != NONE) {
+            if (compare(node, key, length) < 0) {
+                found = node;
+                node = right[node];
+            }
+            else {
+                node = left[node];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Compare the key of a node with the given one, in the order of {@link String#compareTo(String)}
+     */
+    private int compare(int node, char[] key, int length) {
+        char[] chars = scratch.get().candidate;
+        int nodeLength = slabs.key(addresses[node], chars);
+        int common = Math.min(nodeLength, length);
+        for (int i = 0; i < common; i++) {
+            if (chars[i] != key[i]) {
+                return chars[i] - key[i];
+            }
+        }
+        return nodeLength - length;
+    }
+
+    private static boolean equal(char[] chars, int length, String s) {
+        if (length != s.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Heap priority of an entry in the treap. Scrambling the entry number is as good as a random priority and needs
+     * no array
+     */
+    private static int priority(int entry) {
+        int h = entry * 0x9E3779B9;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        return h ^ h >>> 13;
+    }
+
+    private static int idHash(long id) {
+        return Long.hashCode(id);
+    }
+
+    private static class Scratch {
+        // Key being looked for or iterated from
+        final char[] key = new char[Mapping.MAX_KEY_LENGTH];
+        // Key of the entry compared against it
+        final char[] candidate = new char[Mapping.MAX_KEY_LENGTH];
+        final char[] value = new char[Mapping.MAX_VALUE_LENGTH];
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.sas.example.demo.storage;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Hash index from a 32-bit hash to entry numbers, in a single primitive array with linear probing. The index does
+ * not store hashes; it asks the owner for the hash of an entry, which keeps it at 4 bytes per slot. Several entries
+ * may share a hash; callers tell matching entries apart with a predicate. Removal shifts the following entries back
+ * instead of leaving tombstones, so lookups never slow down over time.
+ *
+ * Not thread-safe.
+ */
+final class OpenHashIndex {
+
+    // Resize once more than this fraction of slots is used
+    private static final float LOAD_FACTOR = 0.7f;
+
+    // Entry number + 1 per slot, 0 for a free slot
+    private int[] entries;
+
+    private final IntUnaryOperator hashOf;
+
+    private int mask;
+
+    private int size;
+
+    /**
+     * @param expectedSize, number of entries to size the index for
+     * @param hashOf, hash of an indexed entry
+     */
+    OpenHashIndex(int expectedSize, IntUnaryOperator hashOf) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        entries = new int[capacity];
+        mask = capacity - 1;
+        this.hashOf = hashOf;
+    }
+
+    /**
+     * @return first entry with the hash that matches. -1 if there is none
+     */
+    int find(int hash, IntPredicate matches) {
+        for (int slot = home(hash); entries[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashOf.applyAsInt(entries[slot] - 1) == hash && matches.test(entries[slot] - 1)) {
+                return entries[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index an entry under its current hash
+     */
+    void add(int entry) {
+        if (size + 1 > LOAD_FACTOR * entries.length) {
+            resize(entries.length << 1);
+        }
+        insert(entry);
+        size++;
+    }
+
+    /**
+     * Remove an entry. Must be called while the owner still reports the hash the entry was added with
+     *
+     * @return false if the entry was not indexed
+     */
+    boolean remove(int entry) {
+        int slot = home(hashOf.applyAsInt(entry));
+        while (entries[slot] != entry + 1) {
+            if (entries[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Move back every following entry whose home slot does not lie between the freed slot and itself
+        int free = slot;
+        for (int next = (free + 1) & mask; entries[next] != 0; next = (next + 1) & mask) {
+            int home = home(hashOf.applyAsInt(entries[next] - 1));
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                entries[free] = entries[next];
+                free = next;
+            }
+        }
+        entries[free] = 0;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes held by the arrays of the index
+     */
+    long footprint() {
+        return 4L * entries.length;
+    }
+
+    private void insert(int entry) {
+        int slot = home(hashOf.applyAsInt(entry));
+        while (entries[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        entries[slot] = entry + 1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldEntries = entries;
+        entries = new int[capacity];
+        mask = capacity - 1;
+        for (int slot = 0; slot < oldEntries.length; slot++) {
+            if (oldEntries[slot] != 0) {
+                insert(oldEntries[slot] - 1);
+            }
+        }
+    }
+
+    private int home(int hash) {
+        // Spread the bits, String hash codes of similar keys differ mostly in the low bits
+        int spread = hash * 0x9E3779B9;
+        return (spread ^ (spread >>> 16)) & mask;
+    }
+
+}
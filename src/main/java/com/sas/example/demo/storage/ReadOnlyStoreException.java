@@ -0,0 +1,18 @@
+package com.sas.example.demo.storage;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown by a write to a storage engine that only holds a copy of the mappings of another instance. Answered with
+ * 403 Forbidden by any endpoint that lets it through, since the request cannot succeed on this instance.
+ */
+@ResponseStatus(value = HttpStatus.FORBIDDEN, reason = "Mappings of a replica are written on the leader")
+public class ReadOnlyStoreException extends InvalidDataAccessApiUsageException {
+
+    public ReadOnlyStoreException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,246 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.sas.example.demo.storage.StoreSupport.mapping;
+
+/**
+ * Storage engine holding a read-only copy of the mappings of another instance, the leader, on the heap. Nothing
+ * survives a restart.
+ *
+ * The copy is written by a single replicator, which applies the mappings as the leader stored them, with their ids and
+ * versions; writes through the repository fail with {@link ReadOnlyStoreException}. Changes of the leader may arrive
+ * out of order when they were committed at nearly the same time, so a change only applies if it is newer than the copy
+ * of its mapping, and recently deleted ids are remembered so that a change published just before the delete does not
+ * bring a mapping back.
+ * Applied changes are published like those of any other engine, so caches, conditional requests and the change feed
+ * of this instance follow the copy.
+ *
+ * Expired mappings are hidden from every read, as on the leader, until the leader deletes them and the delete arrives.
+ */
+public class ReplicaMappingStore implements MappingStore {
+
+    // Deleted ids remembered. Changes are reordered by a few concurrent writes at most
+    private static final int TOMBSTONES = 65536;
+
+    private final MemoryMappingStore memory;
+
+    // Expiry of the mappings that expire, by id. The memory store itself holds none
+    private final Map<Long, Long> expiries = new ConcurrentHashMap<>();
+
+    private final Set<Long> deleted = Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > TOMBSTONES;
+        }
+    });
+
+    /**
+     * @param stripes, number of write locks, rounded up to a power of two
+     * @param publisher, receives an event for every change applied
+     */
+    public ReplicaMappingStore(int stripes, ApplicationEventPublisher publisher) {
+        memory = new MemoryMappingStore(stripes, false, publisher);
+    }
+
+    /**
+     * Apply a mapping as the leader stored it, unless the copy holds the same or a later version of it, or it was
+     * deleted since.
+     *
+     * @param mapping, mapping with its id and version
+     * @return whether anything changed
+     */
+    public synchronized boolean apply(Mapping mapping) {
+        if (deleted.contains(mapping.getId())) {
+            return false;
+        }
+        Mapping current = memory.findOne(mapping.getId());
+        if (current != null && mapping.getVersion() != null && current.getVersion() != null
+                && mapping.getVersion() <= current.getVersion()) {
+            return false;
+        }
+        return put(mapping);
+    }
+
+    /**
+     * Apply the delete of a mapping
+     *
+     * @return whether anything changed
+     */
+    public synchronized boolean remove(long id) {
+        deleted.add(id);
+        Mapping current = memory.findOne(id);
+        if (current == null) {
+            return false;
+        }
+        discard(current);
+        return true;
+    }
+
+    /**
+     * Replace the copy with a snapshot of the leader. Mappings are applied whatever their version, since the leader
+     * may have started over, and those missing from the snapshot are deleted. Changes are published as they apply.
+     *
+     * @param mappings, all mappings of the leader, with their ids and versions
+     * @return number of mappings loaded
+     */
+    public synchronized long load(Iterator<Mapping> mappings) {
+        deleted.clear();
+        Set<Long> loaded = new HashSet<>();
+        while (mappings.hasNext()) {
+            Mapping mapping = mappings.next();
+            put(mapping);
+            loaded.add(mapping.getId());
+        }
+        List<Mapping> missing;
+        try (Stream<Mapping> stored = memory.streamAll()) {
+            missing = stored.filter(mapping -> !loaded.contains(mapping.getId())).collect(Collectors.toList());
+        }
+        missing.forEach(this::discard);
+        return loaded.size();
+    }
+
+    @Override
+    public Mapping findOne(long id) {
+        return live(memory.findOne(id), System.currentTimeMillis());
+    }
+
+    @Override
+    public Mapping findByKey(String key) {
+        return live(memory.findByKey(key), System.currentTimeMillis());
+    }
+
+    @Override
+    public List<Mapping> findAllByValue(String value) {
+        return live(memory.findAllByValue(value));
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String after, boolean ascending, int limit) {
+        List<Mapping> result = new ArrayList<>();
+        while (true) {
+            int wanted = limit - result.size();
+            List<Mapping> chunk = memory.findKeyRange(after, ascending, wanted);
+            result.addAll(live(chunk));
+            // A chunk shortened by expired mappings is not the end of the range, so scan on past them
+            if (chunk.size() < wanted || result.size() == limit) {
+                return result;
+            }
+            after = chunk.get(chunk.size() - 1).getKey();
+        }
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String from, boolean inclusive, String to, int limit) {
+        List<Mapping> result = new ArrayList<>();
+        while (true) {
+            int wanted = limit - result.size();
+            List<Mapping> chunk = memory.findKeyRange(from, inclusive, to, wanted);
+            result.addAll(live(chunk));
+            if (chunk.size() < wanted || result.size() == limit) {
+                return result;
+            }
+            from = chunk.get(chunk.size() - 1).getKey();
+            inclusive = false;
+        }
+    }
+
+    @Override
+    public Stream<Mapping> streamAll() {
+        long now = System.currentTimeMillis();
+        return memory.streamAll().map(mapping -> live(mapping, now)).filter(Objects::nonNull);
+    }
+
+    @Override
+    public long count() {
+        long now = System.currentTimeMillis();
+        return memory.count() - expiries.values().stream().filter(expiresAt -> expiresAt <= now).count();
+    }
+
+    @Override
+    public Mapping save(Mapping mapping) {
+        throw readOnly();
+    }
+
+    @Override
+    public Mapping insert(Mapping mapping) {
+        throw readOnly();
+    }
+
+    @Override
+    public Mapping update(String key, UnaryOperator<String> update) {
+        throw readOnly();
+    }
+
+    @Override
+    public void delete(Mapping mapping) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAll() {
+        throw readOnly();
+    }
+
+    /**
+     * Store a mapping as it is. A mapping of another id holding the key is deleted first; the leader has changed or
+     * deleted it already
+     */
+    private boolean put(Mapping mapping) {
+        Mapping owner = memory.findByKey(mapping.getKey());
+        if (owner != null && owner.getId() != mapping.getId()) {
+            discard(owner);
+        }
+        // Before the mapping itself, so that it is never read without its expiry
+        if (mapping.getExpiresAt() == null) {
+            expiries.remove(mapping.getId());
+        }
+        else {
+            expiries.put(mapping.getId(), mapping.getExpiresAt());
+        }
+        return memory.put(mapping);
+    }
+
+    // Whatever its version
+    private void discard(Mapping mapping) {
+        memory.delete(mapping(mapping.getId(), mapping.getKey(), mapping.getValue(), null));
+        expiries.remove(mapping.getId());
+    }
+
+    /**
+     * @return the mapping with its expiry. Null if it is null or has expired
+     */
+    private Mapping live(Mapping mapping, long now) {
+        if (mapping == null) {
+            return null;
+        }
+        mapping.setExpiresAt(expiries.get(mapping.getId()));
+        return mapping.isExpired(now) ? null : mapping;
+    }
+
+    private List<Mapping> live(List<Mapping> mappings) {
+        long now = System.currentTimeMillis();
+        return mappings.stream().map(mapping -> live(mapping, now)).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static ReadOnlyStoreException readOnly() {
+        return new ReadOnlyStoreException("Mappings of a replica are written on the leader");
+    }
+
+}
@@ -0,0 +1,362 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.sas.example.demo.storage.StoreSupport.mapping;
+import static com.sas.example.demo.storage.StoreSupport.validate;
+
+/**
+ * Storage engine that spreads the mappings over independent stores by consistent hashing of their keys. Each shard
+ * has its own locks, and with the log engine its own log and syncs, so writers of different shards never wait for
+ * each other.
+ *
+ * Operations on a key or an id go to a single shard: the id of a mapping is its id within its shard times the number
+ * of shards, plus the number of its shard. Everything else asks all shards and merges their answers, in key order for
+ * key ranges and in id order for streams.
+ *
+ * A mapping stays on the shard of its key, so its key can only be changed to another key of the same shard. Moving it
+ * to another shard would change its id.
+ */
+public class ShardedMappingStore implements MappingStore, Closeable {
+
+    // Points per shard on the hash ring. The more, the more evenly keys are spread
+    private static final int VIRTUAL_NODES = 128;
+
+    private static final Comparator<Mapping> ASCENDING = Comparator.comparing(Mapping::getKey);
+
+    /**
+     * Creates the store of a shard
+     */
+    @FunctionalInterface
+    public interface ShardFactory {
+
+        /**
+         * @param shard, number of the shard, from 0
+         * @param publisher, receives the events of the shard, with the ids translated
+         */
+        MappingStore create(int shard, ApplicationEventPublisher publisher);
+
+    }
+
+    private final MappingStore[] shards;
+
+    // Hash ring: sorted points, and the shard owning the hashes up to each point
+    private final int[] points;
+    private final int[] owners;
+
+    /**
+     * @param count, number of shards
+     * @param factory, creates the store of every shard
+     * @param publisher, receives an event for every change
+     */
+    public ShardedMappingStore(int count, ShardFactory factory, ApplicationEventPublisher publisher) {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        shards = new MappingStore[count];
+        for (int shard = 0; shard < count; shard++) {
+            shards[shard] = factory.create(shard, publisher(shard, publisher));
+        }
+
+        long[] ring = new long[count * VIRTUAL_NODES];
+        for (int shard = 0; shard < count; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                int point = hash(("shard-" + shard + "-" + node).hashCode());
+                // Point in the high bits, shard in the low bits, so that sorting orders by point
+                ring[shard * VIRTUAL_NODES + node] = ((long) point << 32) | shard;
+            }
+        }
+        Arrays.sort(ring);
+        points = new int[ring.length];
+        owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = (int) (ring[i] >> 32);
+            owners[i] = (int) ring[i];
+        }
+    }
+
+    /**
+     * @return number of the shard holding the key
+     */
+    int shardOf(String key) {
+        int hash = hash(key.hashCode());
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Past the last point, the ring wraps around to the first
+        return owners[index == points.length ? 0 : index];
+    }
+
+    int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public Mapping findOne(long id) {
+        long local = local(id);
+        if (local <= 0) {
+            return null;
+        }
+        int shard = shard(id);
+        return global(shards[shard].findOne(local), shard);
+    }
+
+    @Override
+    public Mapping findByKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        int shard = shardOf(key);
+        return global(shards[shard].findByKey(key), shard);
+    }
+
+    @Override
+    public List<Mapping> findAllByValue(String value) {
+        List<Mapping> mappings = new ArrayList<>();
+        for (int shard = 0; shard < shards.length; shard++) {
+            for (Mapping mapping : shards[shard].findAllByValue(value)) {
+                mappings.add(global(mapping, shard));
+            }
+        }
+        return mappings;
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String after, boolean ascending, int limit) {
+        List<Mapping> mappings = new ArrayList<>();
+        for (int shard = 0; shard < shards.length; shard++) {
+            for (Mapping mapping : shards[shard].findKeyRange(after, ascending, limit)) {
+                mappings.add(global(mapping, shard));
+            }
+        }
+        return first(mappings, ascending ? ASCENDING : ASCENDING.reversed(), limit);
+    }
+
+    @Override
+    public List<Mapping> findKeyRange(String from, boolean inclusive, String to, int limit) {
+        List<Mapping> mappings = new ArrayList<>();
+        for (int shard = 0; shard < shards.length; shard++) {
+            for (Mapping mapping : shards[shard].findKeyRange(from, inclusive, to, limit)) {
+                mappings.add(global(mapping, shard));
+            }
+        }
+        return first(mappings, ASCENDING, limit);
+    }
+
+    @Override
+    public Stream<Mapping> streamAll() {
+        List<Stream<Mapping>> streams = new ArrayList<>();
+        List<Iterator<Mapping>> iterators = new ArrayList<>();
+        for (int shard = 0; shard < shards.length; shard++) {
+            int owner = shard;
+            Stream<Mapping> stream = shards[shard].streamAll();
+            streams.add(stream);
+            iterators.add(stream.map(mapping -> global(mapping, owner)).iterator());
+        }
+        Stream<Mapping> merged = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new MergingIterator(iterators), Spliterator.ORDERED | Spliterator.NONNULL), false);
+        return merged.onClose(() -> streams.forEach(Stream::close));
+    }
+
+    @Override
+    public long count() {
+        long count = 0;
+        for (MappingStore shard : shards) {
+            count += shard.count();
+        }
+        return count;
+    }
+
+    @Override
+    public Mapping save(Mapping mapping) {
+        validate(mapping);
+        int shard = shardOf(mapping.getKey());
+        long local = local(mapping.getId());
+        if (local > 0 && shard(mapping.getId()) != shard) {
+            if (shards[shard(mapping.getId())].findOne(local) != null) {
+                throw new DataIntegrityViolationException("Key " + mapping.getKey() + " belongs to another shard than"
+                        + " mapping " + mapping.getId() + ". Delete the mapping and create it under the new key");
+            }
+            // Not stored, so it is created under a new id like in any other engine
+            local = 0;
+        }
+        return global(shards[shard].save(mapping(Math.max(local, 0), mapping.getKey(), mapping.getValue(),
+                mapping.getVersion())), shard);
+    }
+
+    @Override
+    public Mapping insert(Mapping mapping) {
+        validate(mapping);
+        int shard = shardOf(mapping.getKey());
+        return global(shards[shard].insert(mapping), shard);
+    }
+
+    @Override
+    public Mapping update(String key, UnaryOperator<String> update) {
+        validate(new Mapping(key, ""));
+        int shard = shardOf(key);
+        return global(shards[shard].update(key, update), shard);
+    }
+
+    @Override
+    public void delete(Mapping mapping) {
+        long local = local(mapping.getId());
+        if (local > 0) {
+            shards[shard(mapping.getId())].delete(mapping(local, mapping.getKey(), mapping.getValue(),
+                    mapping.getVersion()));
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for (MappingStore shard : shards) {
+            shard.deleteAll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (MappingStore shard : shards) {
+            if (shard instanceof Closeable) {
+                try {
+                    ((Closeable) shard).close();
+                }
+                catch (IOException ex) {
+                    failure = ex;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private int shard(long id) {
+        return (int) (id % shards.length);
+    }
+
+    private long local(long id) {
+        return id / shards.length;
+    }
+
+    private long global(long local, int shard) {
+        return local * shards.length + shard;
+    }
+
+    private Mapping global(Mapping mapping, int shard) {
+        if (mapping != null) {
+            mapping.setId(global(mapping.getId(), shard));
+        }
+        return mapping;
+    }
+
+    /**
+     * Publishes the events of a shard with the ids the rest of the application knows
+     */
+    private ApplicationEventPublisher publisher(int shard, ApplicationEventPublisher publisher) {
+        return new ApplicationEventPublisher() {
+            @Override
+            public void publishEvent(ApplicationEvent event) {
+                publisher.publishEvent(event);
+            }
+
+            @Override
+            public void publishEvent(Object event) {
+                if (event instanceof MappingEvent) {
+                    MappingEvent change = (MappingEvent) event;
+                    event = new MappingEvent(change.getType(), global(change.getId(), shard), change.getKey(),
+                            change.getValue(), change.getPreviousKey(), change.getVersion());
+                }
+                publisher.publishEvent(event);
+            }
+        };
+    }
+
+    private static List<Mapping> first(List<Mapping> mappings, Comparator<Mapping> order, int limit) {
+        mappings.sort(order);
+        return mappings.size() > limit ? new ArrayList<>(mappings.subList(0, limit)) : mappings;
+    }
+
+    /**
+     * Spreads the bits of a String hash code, whose low bits vary little for similar keys
+     */
+    private static int hash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Merges iterators in id order, each of them in id order
+     */
+    private static class MergingIterator implements Iterator<Mapping> {
+
+        private final PriorityQueue<Head> heads =
+                new PriorityQueue<>(Comparator.comparingLong(head -> head.next.getId()));
+
+        MergingIterator(List<Iterator<Mapping>> iterators) {
+            for (Iterator<Mapping> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Mapping next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Mapping next = head.next;
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return next;
+        }
+
+    }
+
+    private static class Head {
+
+        final Mapping next;
+
+        final Iterator<Mapping> rest;
+
+        Head(Mapping next, Iterator<Mapping> rest) {
+            this.next = next;
+            this.rest = rest;
+        }
+
+    }
+
+}
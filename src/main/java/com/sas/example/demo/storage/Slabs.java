@@ -0,0 +1,253 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mapping records in direct buffers, outside the Java heap. A record is laid out as
+ * <pre>
+ *     id (8 bytes) | version (8) | key length (2) | value length (2) | key (UTF-8) | value (UTF-8)
+ * </pre>
+ * and addressed by a long holding the slab number in the upper and the offset in the lower half.
+ *
+ * Records are carved out of large slabs in size classes of {@value #ALIGNMENT} bytes. Freed records go to the free
+ * list of their class and are reused by the next record of that class, so memory is not fragmented by updates that
+ * keep the size of a mapping roughly the same.
+ *
+ * Unpaired surrogates are stored as '?', like {@code String.getBytes(UTF_8)} does. Not thread-safe for writes.
+ */
+final class Slabs {
+
+    static final int HEADER = 20;
+
+    private static final int ALIGNMENT = 16;
+
+    // UTF-8 needs at most 3 bytes per UTF-16 unit
+    private static final int MAX_RECORD = recordSize(3 * Mapping.MAX_KEY_LENGTH, 3 * Mapping.MAX_VALUE_LENGTH);
+
+    private static final int KEY_LENGTH = 16;
+    private static final int VALUE_LENGTH = 18;
+
+    private final int slabSize;
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    // Start of the unused rest of the last slab
+    private int top;
+
+    // Per size class, a stack of free record addresses
+    private final long[][] free = new long[MAX_RECORD / ALIGNMENT + 1][];
+    private final int[] freeCount = new int[free.length];
+
+    private long used;
+
+    Slabs(int slabSize) {
+        if (slabSize < MAX_RECORD) {
+            throw new IllegalArgumentException("Slabs must hold at least " + MAX_RECORD + " bytes");
+        }
+        this.slabSize = slabSize;
+        this.top = slabSize;
+    }
+
+    /**
+     * @return bytes taken by a record with keys and values of the given encoded lengths
+     */
+    static int recordSize(int keyLength, int valueLength) {
+        return (HEADER + keyLength + valueLength + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * @param size, size of the record, as returned by {@link #recordSize(int, int)}
+     * @return address of the record
+     */
+    long allocate(int size) {
+        used += size;
+        int sizeClass = size / ALIGNMENT;
+        if (freeCount[sizeClass] > 0) {
+            return free[sizeClass][--freeCount[sizeClass]];
+        }
+        if (top + size > slabSize) {
+            slabs.add(ByteBuffer.allocateDirect(slabSize));
+            top = 0;
+        }
+        long address = ((long) (slabs.size() - 1) << 32) | top;
+        top += size;
+        return address;
+    }
+
+    void free(long address) {
+        int size = recordSize(keyLength(address), valueLength(address));
+        used -= size;
+        int sizeClass = size / ALIGNMENT;
+        if (free[sizeClass] == null) {
+            free[sizeClass] = new long[16];
+        }
+        else if (freeCount[sizeClass] == free[sizeClass].length) {
+            free[sizeClass] = Arrays.copyOf(free[sizeClass], freeCount[sizeClass] * 2);
+        }
+        free[sizeClass][freeCount[sizeClass]++] = address;
+    }
+
+    /**
+     * Write a record. Lengths are the encoded lengths of key and value, as returned by {@link #encodedLength(String)}
+     */
+    void write(long address, long id, long version, String key, int keyLength, String value, int valueLength) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        slab.putLong(offset, id);
+        slab.putLong(offset + 8, version);
+        slab.putShort(offset + KEY_LENGTH, (short) keyLength);
+        slab.putShort(offset + VALUE_LENGTH, (short) valueLength);
+        encode(key, slab, offset + HEADER);
+        encode(value, slab, offset + HEADER + keyLength);
+    }
+
+    long id(long address) {
+        return slab(address).getLong(offset(address));
+    }
+
+    long version(long address) {
+        return slab(address).getLong(offset(address) + 8);
+    }
+
+    int keyLength(long address) {
+        return slab(address).getShort(offset(address) + KEY_LENGTH);
+    }
+
+    int valueLength(long address) {
+        return slab(address).getShort(offset(address) + VALUE_LENGTH);
+    }
+
+    /**
+     * Decode the key into the given array, which must hold {@link Mapping#MAX_KEY_LENGTH} characters
+     *
+     * @return number of characters
+     */
+    int key(long address, char[] chars) {
+        return decode(slab(address), offset(address) + HEADER, keyLength(address), chars);
+    }
+
+    /**
+     * Decode the value into the given array, which must hold {@link Mapping#MAX_VALUE_LENGTH} characters
+     *
+     * @return number of characters
+     */
+    int value(long address, char[] chars) {
+        return decode(slab(address), offset(address) + HEADER + keyLength(address), valueLength(address), chars);
+    }
+
+    /**
+     * @return bytes reserved outside the heap
+     */
+    long allocated() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    /**
+     * @return bytes taken by live records
+     */
+    long used() {
+        return used;
+    }
+
+    /**
+     * Let go of all slabs. Their memory is returned once the buffers are garbage collected.
+     */
+    void clear() {
+        slabs.clear();
+        top = slabSize;
+        Arrays.fill(free, null);
+        Arrays.fill(freeCount, 0);
+        used = 0;
+    }
+
+    static int encodedLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            }
+            else if (c < 0x800) {
+                length += 2;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            }
+            else if (Character.isSurrogate(c)) {
+                length++;
+            }
+            else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void encode(String s, ByteBuffer slab, int offset) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                slab.put(offset++, (byte) c);
+            }
+            else if (c < 0x800) {
+                slab.put(offset++, (byte) (0xC0 | c >> 6));
+                slab.put(offset++, (byte) (0x80 | c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                slab.put(offset++, (byte) (0xF0 | codePoint >> 18));
+                slab.put(offset++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                slab.put(offset++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+                slab.put(offset++, (byte) (0x80 | codePoint & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                slab.put(offset++, (byte) '?');
+            }
+            else {
+                slab.put(offset++, (byte) (0xE0 | c >> 12));
+                slab.put(offset++, (byte) (0x80 | c >> 6 & 0x3F));
+                slab.put(offset++, (byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private static int decode(ByteBuffer slab, int offset, int length, char[] chars) {
+        int count = 0;
+        int end = offset + length;
+        while (offset < end) {
+            int b = slab.get(offset++);
+            if (b >= 0) {
+                chars[count++] = (char) b;
+            }
+            else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | slab.get(offset++) & 0x3F);
+            }
+            else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (slab.get(offset++) & 0x3F) << 6
+                        | slab.get(offset++) & 0x3F);
+            }
+            else {
+                int codePoint = (b & 0x07) << 18 | (slab.get(offset++) & 0x3F) << 12
+                        | (slab.get(offset++) & 0x3F) << 6 | slab.get(offset++) & 0x3F;
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+            }
+        }
+        return count;
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.locking.LockingProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Puts the engine chosen by {@code mapping.storage.engine} behind the repository. Nothing is needed for the JPA
+ * engine; any other engine is a {@link MappingStore} that the repository, batch writes and atomic operations are
+ * routed to.
+ */
+@Configuration
+@EnableConfigurationProperties({StorageProperties.class, LockingProperties.class})
+public class StorageConfiguration {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "memory")
+    static class MemoryEngineConfiguration extends MappingStoreConfigurationSupport {
+
+        @Bean
+        public MemoryMappingStore memoryMappingStore(StorageProperties storage, LockingProperties locking,
+                                                     ApplicationEventPublisher publisher) {
+            return new MemoryMappingStore(storage.getStripes(), locking.getMode() == LockingProperties.Mode.OPTIMISTIC,
+                    publisher);
+        }
+
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "offheap")
+    static class OffHeapEngineConfiguration extends MappingStoreConfigurationSupport {
+
+        @Bean
+        public OffHeapMappingStore offHeapMappingStore(StorageProperties storage, LockingProperties locking,
+                                                       ApplicationEventPublisher publisher) {
+            return new OffHeapMappingStore(storage.getSlabSize(),
+                    locking.getMode() == LockingProperties.Mode.OPTIMISTIC, publisher);
+        }
+
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "log")
+    static class LogEngineConfiguration extends MappingStoreConfigurationSupport {
+
+        @Bean
+        public LogMappingStore logMappingStore(StorageProperties storage, LockingProperties locking,
+                                               ApplicationEventPublisher publisher) {
+            return new LogMappingStore(Paths.get(storage.getLog().getDirectory()), storage.getLog(),
+                    storage.getStripes(), locking.getMode() == LockingProperties.Mode.OPTIMISTIC, publisher);
+        }
+
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "replica")
+    static class ReplicaEngineConfiguration extends MappingStoreConfigurationSupport {
+
+        @Bean
+        public ReplicaMappingStore replicaMappingStore(StorageProperties storage,
+                                                       ApplicationEventPublisher publisher) {
+            return new ReplicaMappingStore(storage.getStripes(), publisher);
+        }
+
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "mapping.storage", name = "engine", havingValue = "sharded")
+    static class ShardedEngineConfiguration extends MappingStoreConfigurationSupport {
+
+        @Bean
+        public ShardedMappingStore shardedMappingStore(StorageProperties storage, LockingProperties locking,
+                                                       ApplicationEventPublisher publisher) throws IOException {
+            StorageProperties.Shards shards = storage.getShards();
+            boolean optimistic = locking.getMode() == LockingProperties.Mode.OPTIMISTIC;
+            switch (shards.getEngine()) {
+                case MEMORY:
+                    return new ShardedMappingStore(shards.getCount(),
+                            (shard, shardPublisher) -> new MemoryMappingStore(storage.getStripes(), optimistic,
+                                    shardPublisher), publisher);
+                case OFFHEAP:
+                    return new ShardedMappingStore(shards.getCount(),
+                            (shard, shardPublisher) -> new OffHeapMappingStore(storage.getSlabSize(), optimistic,
+                                    shardPublisher), publisher);
+                case LOG:
+                    Path directory = Paths.get(storage.getLog().getDirectory());
+                    checkShardCount(directory, shards.getCount());
+                    return new ShardedMappingStore(shards.getCount(),
+                            (shard, shardPublisher) -> new LogMappingStore(directory.resolve("shard-" + shard),
+                                    storage.getLog(), storage.getStripes(), optimistic, shardPublisher), publisher);
+                default:
+                    throw new IllegalStateException("Shards cannot use the " + shards.getEngine() + " engine");
+            }
+        }
+
+        /**
+         * Keys are found on the shard they hash to, which depends on the number of shards. Record it with the logs and
+         * refuse to start with another one, rather than miss the keys written before.
+         */
+        private static void checkShardCount(Path directory, int count) throws IOException {
+            Path file = directory.resolve("shards");
+            if (Files.exists(file)) {
+                int written = Integer.parseInt(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim());
+                if (written != count) {
+                    throw new IllegalStateException("The logs in " + directory + " were written with " + written
+                            + " shards, not " + count);
+                }
+                return;
+            }
+            Files.createDirectories(directory);
+            Files.write(file, String.valueOf(count).getBytes(StandardCharsets.US_ASCII));
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.sas.example.demo.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Choice of the storage engine behind {@code MappingRepository}
+ */
+@ConfigurationProperties(prefix = "mapping.storage")
+public class StorageProperties {
+
+    public enum Engine {
+        /**
+         * Hibernate over the H2 datasource
+         */
+        JPA,
+
+        /**
+         * Concurrent maps on the heap, with lock-striped writes. Not persistent
+         */
+        MEMORY,
+
+        /**
+         * UTF-8 records in direct buffers, indexed by primitive arrays on the heap. Not persistent
+         */
+        OFFHEAP,
+
+        /**
+         * Concurrent maps on the heap, made durable by a write-ahead log with periodic snapshots
+         */
+        LOG,
+
+        /**
+         * Independent stores of one of the other engines, each holding the keys that hash to it
+         */
+        SHARDED,
+
+        /**
+         * Read-only copy on the heap of the mappings of another instance, see {@code mapping.replication}. Not
+         * persistent
+         */
+        REPLICA
+    }
+
+    public enum Sync {
+        /**
+         * Writes return once their log record is on disk. Concurrent writes share one fsync
+         */
+        ALWAYS,
+
+        /**
+         * Writes return once their log record is handed to the operating system, which is asked to put it on disk
+         * every sync interval
+         */
+        INTERVAL,
+
+        /**
+         * Writes return once their log record is handed to the operating system, which puts it on disk when it sees fit
+         */
+        NEVER
+    }
+
+    private Engine engine = Engine.JPA;
+
+    // Number of write locks of the memory engine
+    private int stripes = 64;
+
+    // Bytes of direct memory the off-heap engine reserves at a time
+    private int slabSize = 64 * 1024 * 1024;
+
+    private final Log log = new Log();
+
+    private final Shards shards = new Shards();
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    public void setSlabSize(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    public Shards getShards() {
+        return shards;
+    }
+
+    /**
+     * Settings of the log engine
+     */
+    public static class Log {
+
+        // Directory of the log and snapshot files
+        private String directory = "data";
+
+        private Sync sync = Sync.ALWAYS;
+
+        // Milliseconds between two syncs in interval mode
+        private long syncInterval = 1000;
+
+        // Milliseconds between two snapshots, taken only if something changed
+        private long snapshotInterval = 300000;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Sync getSync() {
+            return sync;
+        }
+
+        public void setSync(Sync sync) {
+            this.sync = sync;
+        }
+
+        public long getSyncInterval() {
+            return syncInterval;
+        }
+
+        public void setSyncInterval(long syncInterval) {
+            this.syncInterval = syncInterval;
+        }
+
+        public long getSnapshotInterval() {
+            return snapshotInterval;
+        }
+
+        public void setSnapshotInterval(long snapshotInterval) {
+            this.snapshotInterval = snapshotInterval;
+        }
+
+    }
+
+    /**
+     * Settings of the sharded engine
+     */
+    public static class Shards {
+
+        // Number of shards. Cannot be changed for the data of the log engine once written
+        private int count = 4;
+
+        // Engine of every shard: memory, offheap or log
+        private Engine engine = Engine.MEMORY;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public Engine getEngine() {
+            return engine;
+        }
+
+        public void setEngine(Engine engine) {
+            this.engine = engine;
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Objects;
+
+/**
+ * Checks and conversions shared by the {@link MappingStore} implementations, so they fail the same way the JPA engine
+ * does
+ */
+final class StoreSupport {
+
+    static final String EXPIRY_UNSUPPORTED = "Expiry of mappings is only supported by the jpa engine";
+
+    private StoreSupport() {
+    }
+
+    /**
+     * @throws DataIntegrityViolationException where the database would reject the mapping, or if it carries an expiry
+     */
+    static void validate(Mapping mapping) {
+        Objects.requireNonNull(mapping, "mapping must not be null");
+        if (mapping.getKey() == null || mapping.getValue() == null) {
+            throw new DataIntegrityViolationException("Key and value of a mapping must not be null");
+        }
+        if (mapping.getKey().length() > Mapping.MAX_KEY_LENGTH) {
+            throw new DataIntegrityViolationException(
+                    "Key is longer than " + Mapping.MAX_KEY_LENGTH + " characters");
+        }
+        if (mapping.getValue().length() > Mapping.MAX_VALUE_LENGTH) {
+            throw new DataIntegrityViolationException(
+                    "Value is longer than " + Mapping.MAX_VALUE_LENGTH + " characters");
+        }
+        if (mapping.getExpiresAt() != null) {
+            throw new DataIntegrityViolationException(EXPIRY_UNSUPPORTED);
+        }
+    }
+
+    /**
+     * @param optimistic, whether the store runs in optimistic locking mode
+     * @param mapping, mapping to write
+     * @param id, id of the stored mapping
+     * @param version, version of the stored mapping
+     * @throws ObjectOptimisticLockingFailureException if optimistic and the mapping carries another version
+     */
+    static void checkVersion(boolean optimistic, Mapping mapping, long id, Long version) {
+        if (optimistic && mapping.getVersion() != null && !mapping.getVersion().equals(version)) {
+            throw new ObjectOptimisticLockingFailureException(Mapping.class, id);
+        }
+    }
+
+    static DataIntegrityViolationException duplicateKey(String key) {
+        return new DataIntegrityViolationException("Key already exists: " + key);
+    }
+
+    static Mapping mapping(long id, String key, String value, Long version) {
+        Mapping mapping = new Mapping(key, value);
+        mapping.setId(id);
+        mapping.setVersion(version);
+        return mapping;
+    }
+
+}
@@ -0,0 +1,453 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of mapping changes, written to numbered segment files in one directory.
+ *
+ * Records are appended to a buffer in memory and written by a single flusher thread, which writes everything that
+ * piled up while it was busy with the previous batch in one go. Writers then wait in {@link #await(long)} until their
+ * record is written, or synced when every write must reach the disk. A slow disk thus leads to larger batches rather
+ * than to more syncs (group commit).
+ *
+ * A batch that fails to be written or synced may have reached the segment in part. The log then fails for good:
+ * nothing is written after it, so that no record can be written twice or out of order, and recovery drops the part.
+ *
+ * A record is framed as
+ * <pre>
+ *     payload length (4 bytes) | CRC32 of the payload (4) | type (1) | id (8) | version (8) | key | value
+ * </pre>
+ * with key and value in modified UTF-8 as written by {@link DataOutputStream#writeUTF(String)}. Deletes and the last
+ * id stop after the id. A record cut off by a crash fails its checksum, and reading stops there.
+ */
+final class WriteAheadLog implements Closeable {
+
+    static final byte WRITTEN = 1;
+
+    static final byte DELETED = 2;
+
+    static final byte LAST_ID = 3;
+
+    private static final Pattern FILE_NAME = Pattern.compile("(log|snapshot)-(\\d+)");
+
+    // Far above the largest record, smaller lengths come from damaged data
+    private static final int MAX_PAYLOAD = 1 << 16;
+
+    private final Path directory;
+
+    private final StorageProperties.Sync sync;
+
+    private final long syncInterval;
+
+    // Guards the buffer and the counters, flusher and writers wait on its conditions
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appendedCondition = lock.newCondition();
+    private final Condition writtenCondition = lock.newCondition();
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream();
+
+    // Number of records appended, written to the segment and synced so far
+    private long appended;
+    private long written;
+    private long synced;
+
+    private long lastSync = System.nanoTime();
+
+    private IOException failure;
+
+    private boolean closed;
+
+    // Guards the segment and its channel
+    private final Object io = new Object();
+
+    private long segment;
+
+    private FileChannel channel;
+
+    private final Thread flusher;
+
+    /**
+     * @param directory, directory of the segments
+     * @param segment, number of the segment to append to
+     * @param sync, when to sync written records to the disk
+     * @param syncInterval, milliseconds between syncs in interval mode
+     */
+    WriteAheadLog(Path directory, long segment, StorageProperties.Sync sync, long syncInterval) throws IOException {
+        this.directory = directory;
+        this.sync = sync;
+        this.syncInterval = TimeUnit.MILLISECONDS.toNanos(syncInterval);
+        this.segment = segment;
+        this.channel = open(segment);
+        this.flusher = new Thread(this::flush, "mapping-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Add a record to the log. Does not wait for it to be written
+     *
+     * @param record, record as returned by {@link #written(Mapping)} or {@link #deleted(long)}
+     * @return sequence number of the record, to pass to {@link #await(long)}
+     * @throws DataAccessResourceFailureException if the log is closed, or failed to write before
+     */
+    long append(byte[] record) {
+        lock.lock();
+        try {
+            check();
+            buffer.write(record, 0, record.length);
+            appended++;
+            appendedCondition.signal();
+            return appended;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until a record is written, and synced if the log syncs every write
+     *
+     * @param sequence, sequence number returned by {@link #append(byte[])}
+     * @throws DataAccessResourceFailureException if the record could not be written
+     */
+    void await(long sequence) {
+        lock.lock();
+        try {
+            while ((sync == StorageProperties.Sync.ALWAYS ? synced : written) < sequence) {
+                check();
+                writtenCondition.awaitUninterruptibly();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of records appended so far
+     */
+    long getAppended() {
+        lock.lock();
+        try {
+            return appended;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the current segment once everything appended so far is synced, and continue in the next one. If the next
+     * segment cannot be opened, the log goes on in the current one
+     *
+     * @return number of the closed segment
+     * @throws IOException if the records could not be written, after which the log fails, or the next segment could
+     * not be opened
+     */
+    long roll() throws IOException {
+        synchronized (io) {
+            write(true);
+            FileChannel next = open(segment + 1);
+            FileChannel previous = channel;
+            channel = next;
+            segment++;
+            // Synced already, and nothing is written to it anymore
+            previous.close();
+            return segment - 1;
+        }
+    }
+
+    /**
+     * Sync and close the current segment, after writing all records appended so far
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appendedCondition.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (io) {
+            channel.close();
+        }
+    }
+
+    private void flush() {
+        try {
+            while (true) {
+                boolean stop;
+                boolean force;
+                lock.lock();
+                try {
+                    while (buffer.size() == 0 && !closed && !syncDue()) {
+                        if (sync == StorageProperties.Sync.INTERVAL && written > synced) {
+                            appendedCondition.awaitNanos(syncInterval - (System.nanoTime() - lastSync));
+                        }
+                        else {
+                            appendedCondition.await();
+                        }
+                    }
+                    stop = closed;
+                    force = stop || sync == StorageProperties.Sync.ALWAYS || syncDue();
+                }
+                finally {
+                    lock.unlock();
+                }
+                synchronized (io) {
+                    write(force);
+                }
+                if (stop) {
+                    return;
+                }
+            }
+        }
+        catch (IOException ex) {
+            // Recorded by write() already
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the buffered records to the segment. Must be called holding the io monitor
+     *
+     * @throws IOException if writing failed, now or before. The log fails for good
+     */
+    private void write(boolean force) throws IOException {
+        ByteArrayOutputStream batch;
+        long sequence;
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IOException("Writing the log failed before", failure);
+            }
+            batch = buffer;
+            buffer = spare;
+            spare = batch;
+            sequence = appended;
+        }
+        finally {
+            lock.unlock();
+        }
+        try {
+            // Straight from the buffer of the stream, without copying
+            batch.writeTo(Channels.newOutputStream(channel));
+            if (force) {
+                channel.force(false);
+            }
+        }
+        catch (IOException ex) {
+            lock.lock();
+            try {
+                failure = ex;
+                writtenCondition.signalAll();
+            }
+            finally {
+                lock.unlock();
+            }
+            throw ex;
+        }
+        finally {
+            batch.reset();
+        }
+        lock.lock();
+        try {
+            written = sequence;
+            if (force) {
+                synced = sequence;
+                lastSync = System.nanoTime();
+            }
+            writtenCondition.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called holding the lock
+     */
+    private boolean syncDue() {
+        return sync == StorageProperties.Sync.INTERVAL && written > synced
+                && System.nanoTime() - lastSync >= syncInterval;
+    }
+
+    /**
+     * Must be called holding the lock
+     */
+    private void check() {
+        if (failure != null) {
+            throw new DataAccessResourceFailureException("Writing the log failed", failure);
+        }
+        if (closed) {
+            throw new DataAccessResourceFailureException("The log is closed");
+        }
+    }
+
+    private FileChannel open(long segment) throws IOException {
+        return FileChannel.open(segmentFile(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(String.format("log-%010d", segment));
+    }
+
+    static Path snapshotFile(Path directory, long segment) {
+        return directory.resolve(String.format("snapshot-%010d", segment));
+    }
+
+    /**
+     * @param prefix, "log" or "snapshot"
+     * @return numbers of the files with the prefix in the directory, in ascending order
+     */
+    static List<Long> list(Path directory, String prefix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(1).equals(prefix)) {
+                    numbers.add(Long.parseLong(matcher.group(2)));
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    static byte[] written(Mapping mapping) {
+        return record(WRITTEN, mapping.getId(), mapping);
+    }
+
+    static byte[] deleted(long id) {
+        return record(DELETED, id, null);
+    }
+
+    static byte[] lastId(long id) {
+        return record(LAST_ID, id, null);
+    }
+
+    /**
+     * Handles the records read from a file
+     */
+    interface RecordHandler {
+
+        /**
+         * @param type, {@link #WRITTEN}, {@link #DELETED} or {@link #LAST_ID}
+         * @param mapping, the written mapping. Null for the other types
+         */
+        void record(byte type, long id, Mapping mapping);
+
+    }
+
+    /**
+     * Read the records of a file, up to the first one that is cut off or damaged
+     *
+     * @return number of bytes taken by the intact records
+     */
+    static long read(Path file, RecordHandler handler) throws IOException {
+        long position = 0;
+        CRC32 crc = new CRC32();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream data = new DataInputStream(in);
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = data.readInt();
+                    int checksum = data.readInt();
+                    if (length <= 0 || length > MAX_PAYLOAD) {
+                        return position;
+                    }
+                    payload = new byte[length];
+                    data.readFully(payload);
+                    crc.reset();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        return position;
+                    }
+                }
+                catch (EOFException ex) {
+                    return position;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = record.readByte();
+                long id = record.readLong();
+                Mapping mapping = null;
+                if (type == WRITTEN) {
+                    long version = record.readLong();
+                    mapping = StoreSupport.mapping(id, record.readUTF(), record.readUTF(), version);
+                }
+                handler.record(type, id, mapping);
+                position += 8 + payload.length;
+            }
+        }
+    }
+
+    private static byte[] record(byte type, long id, Mapping mapping) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            // Room for length and checksum
+            out.writeLong(0);
+            out.writeByte(type);
+            out.writeLong(id);
+            if (mapping != null) {
+                out.writeLong(mapping.getVersion());
+                out.writeUTF(mapping.getKey());
+                out.writeUTF(mapping.getValue());
+            }
+            byte[] record = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(record, 8, record.length - 8);
+            ByteBuffer.wrap(record).putInt(record.length - 8).putInt((int) crc.getValue());
+            return record;
+        }
+        catch (IOException ex) {
+            // Not thrown by a ByteArrayOutputStream
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.sas.example.demo;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Requests to the asynchronous endpoints, which answer with a {@code DeferredResult} set on an executor thread.
+ */
+public final class AsyncRequests {
+
+    // Longest wait for the executor to set the result. The endpoints themselves set no timeout once a request runs
+    private static final long TIME_TO_WAIT = 30_000;
+
+    private AsyncRequests() {
+    }
+
+    /** Perform a request to an asynchronous endpoint and wait for its response */
+    public static ResultActions performAsync(MockMvc mvc, RequestBuilder builder) throws Exception {
+        MvcResult result = mvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        // Otherwise asyncDispatch waits as long as the async timeout of the request, which does not wait at all
+        result.getAsyncResult(TIME_TO_WAIT);
+        return mvc.perform(asyncDispatch(result));
+    }
+
+}
@@ -5,6 +5,9 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -140,4 +143,37 @@ public class MappingRepositoryTests {
         assertThat(mapping.getValue()).isEqualTo("2");
     }
 
+    @Test
+    public void testFindAllByValue() {
+        repository.save(new Mapping("alpha", "shared"));
+        repository.save(new Mapping("beta", "shared"));
+        repository.save(new Mapping("gamma", "shared"));
+        repository.save(new Mapping("delta", "unique"));
+
+        Page<Mapping> page = repository.findAllByValue("shared", new PageRequest(0, 2, Sort.Direction.ASC, "key"));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getNumberOfElements());
+        assertThat(page.getContent().get(0).getKey()).isEqualTo("alpha");
+        assertThat(page.getContent().get(1).getKey()).isEqualTo("beta");
+
+        page = repository.findAllByValue("shared", new PageRequest(1, 2, Sort.Direction.ASC, "key"));
+        assertEquals(1, page.getNumberOfElements());
+        assertThat(page.getContent().get(0).getKey()).isEqualTo("gamma");
+
+        page = repository.findAllByValue("unique", new PageRequest(0, 10));
+        assertEquals(1, page.getTotalElements());
+        assertThat(page.getContent().get(0).getKey()).isEqualTo("delta");
+
+        assertEquals(0, repository.findAllByValue("missing", new PageRequest(0, 10)).getTotalElements());
+
+        // A value changed in place is found under its new value only
+        Mapping mapping = repository.findByValue("unique");
+        mapping.setValue("changed");
+        repository.save(mapping);
+        assertNull(repository.findByValue("unique"));
+        assertThat(repository.findByValue("changed").getKey()).isEqualTo("delta");
+
+        repository.deleteAll();
+    }
+
 }
@@ -20,6 +20,7 @@ import org.springframework.web.context.WebApplicationContext;
 import java.util.stream.IntStream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -189,6 +190,46 @@ public class RestInterfaceTests {
                 .andReturn();
     }
 
+    @Test
+    public void conditionalUpdateTest() throws Exception {
+        mvc.perform(post(BASE_URL)
+                .content(asJson(new Mapping("one", "1")))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"0\""));
+
+        // The current version is exposed as ETag
+        String etag = mvc.perform(get(BASE_URL + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Update based on the current version
+        mvc.perform(put(BASE_URL + "/1")
+                .header("If-Match", etag)
+                .content(asJson(new Mapping("one", "11")))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("value").value("11"));
+
+        // Update based on an outdated version is rejected
+        mvc.perform(put(BASE_URL + "/1")
+                .header("If-Match", etag)
+                .content(asJson(new Mapping("one", "12")))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(delete(BASE_URL + "/1").header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get(BASE_URL + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("value").value("11"));
+    }
+
     @Test
     public void deleteTest() throws Exception {
         // Create 2 mappings
@@ -365,6 +406,56 @@ public class RestInterfaceTests {
         }
     }
 
+    @Test
+    public void findAllByValueTest() throws Exception {
+        addMapping("one", "odd");
+        addMapping("two", "even");
+        addMapping("three", "odd");
+        addMapping("five", "odd");
+
+        // Find all mappings by value, page by page
+        mvc.perform(get(BASE_URL + "/search/findAllByValue")
+                .param("value", "odd")
+                .param("size", "2")
+                .param("sort", "key,asc")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.mappings[0].key").value("five"))
+                .andExpect(jsonPath("_embedded.mappings[0].value").value("odd"))
+                .andExpect(jsonPath("_embedded.mappings[1].key").value("one"))
+                .andExpect(jsonPath("_embedded.mappings[1].value").value("odd"))
+                .andExpect(jsonPath("_embedded.mappings[2]").doesNotExist())
+                .andExpect(jsonPath("page.size").value(2))
+                .andExpect(jsonPath("page.totalElements").value(3))
+                .andExpect(jsonPath("page.totalPages").value(2))
+                .andExpect(jsonPath("page.number").value(0))
+                .andReturn();
+
+        mvc.perform(get(BASE_URL + "/search/findAllByValue")
+                .param("value", "odd")
+                .param("page", "1")
+                .param("size", "2")
+                .param("sort", "key,asc")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.mappings[0].key").value("three"))
+                .andExpect(jsonPath("_embedded.mappings[1]").doesNotExist())
+                .andExpect(jsonPath("page.number").value(1))
+                .andReturn();
+
+        // No mapping has this value
+        mvc.perform(get(BASE_URL + "/search/findAllByValue")
+                .param("value", "none")
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.mappings").isEmpty())
+                .andExpect(jsonPath("page.totalElements").value(0))
+                .andReturn();
+    }
+
     @Test
     public void pagingTest() throws Exception {
         // Create 65 mappings
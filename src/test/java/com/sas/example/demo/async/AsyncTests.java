@@ -0,0 +1,115 @@
+package com.sas.example.demo.async;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Runs against the server rather than MockMvc, which does not time out asynchronous requests
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "mapping.async.write.threads=1", "mapping.async.write.queue-capacity=1", "mapping.async.timeout=500"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class AsyncTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private ThreadPoolTaskExecutor mappingWriteExecutor;
+
+    @Autowired
+    private MappingTasks tasks;
+
+    @Test
+    public void backPressureTest() throws Exception {
+        repository.save(new Mapping("one", "1"));
+
+        // Take the only write thread
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        mappingWriteExecutor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        try {
+            // Queued until it times out
+            ResponseEntity<String> response = put("/kv/two", "2");
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+
+            // Turned away at once, the queue is full
+            response = put("/kv/three", "3");
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+            assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            // Reads have threads of their own
+            response = restTemplate.getForEntity("/kv/one", String.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("1", response.getBody());
+        }
+        finally {
+            release.countDown();
+        }
+
+        // Requests that timed out while queued are dropped rather than run late
+        ThreadPoolExecutor executor = mappingWriteExecutor.getThreadPoolExecutor();
+        while (executor.getCompletedTaskCount() < 2) {
+            Thread.sleep(10);
+        }
+        assertNull(repository.findByKey("two"));
+        assertEquals(HttpStatus.CREATED, put("/kv/two", "2").getStatusCode());
+    }
+
+    @Test
+    public void runningTaskTest() throws Exception {
+        // Runs longer than the timeout, which only applies while it is queued
+        DeferredResult<ResponseEntity<?>> result = tasks.write(() -> {
+            Thread.sleep(1000);
+            return ResponseEntity.ok("done");
+        });
+        while (!result.hasResult()) {
+            Thread.sleep(10);
+        }
+        ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("done", response.getBody());
+    }
+
+    private ResponseEntity<String> put(String path, String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return restTemplate.exchange(path, HttpMethod.PUT, new HttpEntity<>(value, headers), String.class);
+    }
+
+}
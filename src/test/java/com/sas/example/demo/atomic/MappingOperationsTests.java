@@ -0,0 +1,158 @@
+package com.sas.example.demo.atomic;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static com.sas.example.demo.AsyncRequests.performAsync;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MappingOperationsTests {
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private MappingOperations operations;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void testCompareAndSet() throws Exception {
+        // Expecting no value creates the key
+        performAsync(mvc, post("/mappings/compare-and-set").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"one\",\"value\":\"1\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("applied").value(true))
+                .andExpect(jsonPath("value").value("1"));
+        performAsync(mvc, post("/mappings/compare-and-set").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"one\",\"value\":\"2\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("applied").value(false))
+                .andExpect(jsonPath("value").value("1"))
+                .andExpect(jsonPath("reason").value("key already exists"));
+
+        performAsync(mvc, post("/mappings/compare-and-set").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"one\",\"expected\":\"1\",\"value\":\"11\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("value").value("11"));
+        performAsync(mvc, post("/mappings/compare-and-set").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"one\",\"expected\":\"1\",\"value\":\"111\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("value").value("11"))
+                .andExpect(jsonPath("reason").value("value differs"));
+        assertEquals("11", repository.findByKey("one").getValue());
+
+        OperationResult missing = operations.compareAndSet("two", "2", "22");
+        assertFalse(missing.isApplied());
+        assertNull(missing.getValue());
+        assertNull(repository.findByKey("two"));
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        performAsync(mvc, post("/mappings/append").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"log\",\"value\":\"a\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("value").value("a"));
+        performAsync(mvc, post("/mappings/append").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"log\",\"value\":\"bc\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("value").value("abc"));
+
+        StringBuilder suffix = new StringBuilder();
+        IntStream.range(0, Mapping.MAX_VALUE_LENGTH - 3).forEach(i -> suffix.append('d'));
+        assertTrue(operations.append("log", suffix.toString()).isApplied());
+        performAsync(mvc, post("/mappings/append").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"log\",\"value\":\"e\"}"))
+                .andExpect(status().isConflict());
+        assertEquals(Mapping.MAX_VALUE_LENGTH, repository.findByKey("log").getValue().length());
+
+        performAsync(mvc, post("/mappings/append").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"log\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testIncrement() throws Exception {
+        performAsync(mvc, post("/mappings/increment").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"counter\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("value").value("1"));
+        performAsync(mvc, post("/mappings/increment").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"counter\",\"delta\":-5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("value").value("-4"));
+
+        repository.save(new Mapping("text", "abc"));
+        performAsync(mvc, post("/mappings/increment").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"text\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("value").value("abc"))
+                .andExpect(jsonPath("reason").value("value is not an integer"));
+
+        repository.save(new Mapping("max", String.valueOf(Long.MAX_VALUE)));
+        assertFalse(operations.increment("max", 1).isApplied());
+        assertEquals(String.valueOf(Long.MAX_VALUE), repository.findByKey("max").getValue());
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+        repository.save(new Mapping("counter", "0"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> IntStream.range(0, 25)
+                        .forEach(j -> assertTrue(operations.increment("counter", 1).isApplied()))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        // No increment was lost
+        assertEquals("100", repository.findByKey("counter").getValue());
+        assertEquals(Long.valueOf(100), repository.findByKey("counter").getVersion());
+    }
+
+}
@@ -0,0 +1,264 @@
+package com.sas.example.demo.batch;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.feed.ChangeFeed;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.sas.example.demo.AsyncRequests.performAsync;
+import static com.sas.example.demo.RestInterfaceTests.asJson;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "mapping.batch.max-size=1000")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MappingBatchTests {
+
+    private static final String BATCH_URL = "/mappings/batch";
+
+    private MockMvc mvc;
+
+    @Autowired
+    WebApplicationContext webContext;
+
+    @Autowired
+    MappingRepository repository;
+
+    @Autowired
+    ChangeFeed feed;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void ingestTest() throws Exception {
+        List<Mapping> mappings = new ArrayList<>();
+        IntStream.rangeClosed(1, 1000).forEach(i -> mappings.add(new Mapping("key" + i, "value" + i)));
+
+        performAsync(mvc, post(BATCH_URL)
+                .content(asJson(mappings))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(1000))
+                .andExpect(jsonPath("conflicts").isEmpty())
+                .andExpect(jsonPath("rejected").isEmpty())
+                .andReturn();
+
+        assertEquals(1000, repository.count());
+        assertThat(repository.findByKey("key500").getValue()).isEqualTo("value500");
+
+        // Ids are handed out consecutively from the pooled sequence
+        mvc.perform(get("/mappings/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("key").value("key1"));
+        mvc.perform(get("/mappings/1000").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("key").value("key1000"));
+    }
+
+    @Test
+    public void conflictTest() throws Exception {
+        repository.save(new Mapping("two", "2"));
+
+        StringBuilder longKey = new StringBuilder();
+        IntStream.rangeClosed(0, Mapping.MAX_KEY_LENGTH).forEach(i -> longKey.append('k'));
+
+        List<Mapping> mappings = Arrays.asList(
+                new Mapping("one", "1"),
+                new Mapping("two", "22"),
+                new Mapping("three", "3"),
+                new Mapping("one", "11"),
+                new Mapping(longKey.toString(), "4"),
+                new Mapping("five", null));
+
+        performAsync(mvc, post(BATCH_URL)
+                .content(asJson(mappings))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(2))
+                .andExpect(jsonPath("conflicts[0].index").value(1))
+                .andExpect(jsonPath("conflicts[0].key").value("two"))
+                .andExpect(jsonPath("conflicts[1].index").value(3))
+                .andExpect(jsonPath("conflicts[1].key").value("one"))
+                .andExpect(jsonPath("conflicts[2]").doesNotExist())
+                .andExpect(jsonPath("rejected[0].index").value(4))
+                .andExpect(jsonPath("rejected[1].index").value(5))
+                .andExpect(jsonPath("rejected[2]").doesNotExist())
+                .andReturn();
+
+        assertEquals(3, repository.count());
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("1");
+        assertThat(repository.findByKey("two").getValue()).isEqualTo("2");
+        assertThat(repository.findByKey("three").getValue()).isEqualTo("3");
+    }
+
+    @Test
+    public void tooLargeTest() throws Exception {
+        List<Mapping> mappings = new ArrayList<>();
+        IntStream.rangeClosed(1, 1001).forEach(i -> mappings.add(new Mapping("key" + i, "value" + i)));
+
+        performAsync(mvc, post(BATCH_URL)
+                .content(asJson(mappings))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPayloadTooLarge())
+                .andReturn();
+
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    public void upsertTest() throws Exception {
+        // More than one IN list of existing keys
+        IntStream.rangeClosed(1, 600).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+
+        List<Mapping> mappings = new ArrayList<>();
+        IntStream.rangeClosed(1, 800)
+                .forEach(i -> mappings.add(new Mapping("key" + i, i % 2 == 0 ? "new" + i : "value" + i)));
+        mappings.add(new Mapping("key1", "repeated"));
+        mappings.add(new Mapping("key801", null));
+
+        performAsync(mvc, put(BATCH_URL)
+                .content(asJson(mappings))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(200))
+                .andExpect(jsonPath("updated").value(600))
+                .andExpect(jsonPath("conflicts[0].index").value(800))
+                .andExpect(jsonPath("conflicts[1]").doesNotExist())
+                .andExpect(jsonPath("rejected[0].index").value(801))
+                .andExpect(jsonPath("rejected[1]").doesNotExist());
+
+        assertEquals(800, repository.count());
+        assertThat(repository.findByKey("key1").getValue()).isEqualTo("value1");
+        assertThat(repository.findByKey("key1").getVersion()).isEqualTo(0L);
+        assertThat(repository.findByKey("key2").getValue()).isEqualTo("new2");
+        assertThat(repository.findByKey("key2").getVersion()).isEqualTo(1L);
+        assertThat(repository.findByKey("key800").getValue()).isEqualTo("new800");
+    }
+
+    @Test
+    public void findTest() throws Exception {
+        IntStream.rangeClosed(1, 700).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+
+        List<String> keys = new ArrayList<>();
+        IntStream.rangeClosed(1, 999).forEach(i -> keys.add("key" + (1000 - i)));
+        keys.add("key1");
+
+        performAsync(mvc, post(BATCH_URL + "/find")
+                .content(asJson(keys))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("mappings.length()").value(700))
+                .andExpect(jsonPath("mappings[0].key").value("key700"))
+                .andExpect(jsonPath("mappings[0].value").value("value700"))
+                .andExpect(jsonPath("mappings[699].key").value("key1"))
+                .andExpect(jsonPath("missing.length()").value(299))
+                .andExpect(jsonPath("missing[0]").value("key999"))
+                .andExpect(jsonPath("missing[298]").value("key701"));
+    }
+
+    @Test
+    public void findTooLargeTest() throws Exception {
+        List<String> keys = new ArrayList<>();
+        IntStream.rangeClosed(1, 1001).forEach(i -> keys.add("key" + i));
+
+        performAsync(mvc, post(BATCH_URL + "/find")
+                .content(asJson(keys))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    public void deleteTest() throws Exception {
+        IntStream.rangeClosed(1, 700).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+        long changes = feed.last();
+
+        // More than one chunk of keys
+        List<String> keys = new ArrayList<>();
+        IntStream.rangeClosed(1, 600).forEach(i -> keys.add("key" + i));
+        keys.add("key1");
+        keys.add("missing");
+
+        performAsync(mvc, post(BATCH_URL + "/delete")
+                .content(asJson(keys))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(600));
+
+        assertEquals(100, repository.count());
+        assertThat(repository.findByKey("key1")).isNull();
+        assertThat(repository.findByKey("key601").getValue()).isEqualTo("value601");
+        // Every deleted mapping is published
+        assertEquals(changes + 600, feed.last());
+    }
+
+    @Test
+    public void deleteRangeTest() throws Exception {
+        IntStream.rangeClosed(1, 600).forEach(i -> repository.save(new Mapping("a" + i, "value" + i)));
+        IntStream.rangeClosed(1, 600).forEach(i -> repository.save(new Mapping("b" + i, "value" + i)));
+        repository.save(new Mapping("c", "c"));
+
+        performAsync(mvc, delete(BATCH_URL).param("prefix", "b").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(600));
+        assertEquals(601, repository.count());
+        assertThat(repository.findByKey("b1")).isNull();
+        assertThat(repository.findByKey("a1")).isNotNull();
+
+        performAsync(mvc, delete(BATCH_URL).param("from", "a5").param("to", "a6").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(111));
+        assertThat(repository.findByKey("a5")).isNull();
+        assertThat(repository.findByKey("a599")).isNull();
+        assertThat(repository.findByKey("a6")).isNotNull();
+
+        // Neither a range nor all
+        performAsync(mvc, delete(BATCH_URL).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        performAsync(mvc, delete(BATCH_URL).param("prefix", "a").param("all", "true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        assertEquals(490, repository.count());
+
+        long changes = feed.last();
+        performAsync(mvc, delete(BATCH_URL).param("all", "true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(490));
+        assertEquals(0, repository.count());
+        assertEquals(changes + 490, feed.last());
+    }
+
+}
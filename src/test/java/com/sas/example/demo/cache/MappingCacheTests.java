@@ -0,0 +1,95 @@
+package com.sas.example.demo.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoApplication.class, properties = "mapping.cache.enabled=true")
+public class MappingCacheTests {
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private MappingCache cache;
+
+    @After
+    public void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void testHitAfterMiss() {
+        repository.save(new Mapping("one", "1"));
+        CacheStats before = cache.stats();
+
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("1");
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("1");
+
+        CacheStats delta = cache.stats().minus(before);
+        assertEquals(1, delta.missCount());
+        assertEquals(1, delta.hitCount());
+
+        // Misses are not cached
+        assertNull(repository.findByKey("two"));
+        repository.save(new Mapping("two", "2"));
+        assertThat(repository.findByKey("two").getValue()).isEqualTo("2");
+    }
+
+    @Test
+    public void testCopiesAreReturned() {
+        repository.save(new Mapping("one", "1"));
+
+        Mapping mapping = repository.findByKey("one");
+        mapping.setValue("changed but not saved");
+
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("1");
+    }
+
+    @Test
+    public void testUpdateInvalidates() {
+        repository.save(new Mapping("one", "1"));
+
+        Mapping mapping = repository.findByKey("one");
+        mapping.setValue("11");
+        repository.save(mapping);
+
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("11");
+    }
+
+    @Test
+    public void testKeyChangeInvalidatesPreviousKey() {
+        repository.save(new Mapping("one", "1"));
+
+        Mapping mapping = repository.findByKey("one");
+        mapping.setKey("uno");
+        repository.save(mapping);
+
+        assertNull(repository.findByKey("one"));
+        assertThat(repository.findByKey("uno").getValue()).isEqualTo("1");
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        repository.save(new Mapping("one", "1"));
+        repository.save(new Mapping("two", "2"));
+
+        repository.delete(repository.findByKey("one"));
+        assertNull(repository.findByKey("one"));
+
+        repository.deleteAll();
+        assertNull(repository.findByKey("two"));
+    }
+
+}
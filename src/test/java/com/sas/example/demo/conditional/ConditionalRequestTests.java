@@ -0,0 +1,187 @@
+package com.sas.example.demo.conditional;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.metrics.MappingMetrics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ConditionalRequestTests {
+
+    private static final String BASE_URL = "/mappings";
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private MappingVersions versions;
+
+    @Autowired
+    private MappingMetrics metrics;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void itemTest() throws Exception {
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+        String url = BASE_URL + "/" + mapping.getId();
+
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        // Answered from the remembered version, without reading the mapping
+        metrics.reset();
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+        mvc.perform(get("/metrics/queries"))
+                .andExpect(jsonPath("$['findOne(Serializable)'].count").value(0));
+
+        mapping.setValue("11");
+        repository.save(mapping);
+        assertNull(versions.version(mapping.getId()));
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.value").value("11"));
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotModified());
+
+        repository.delete(mapping);
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotFound());
+
+        // A client that kept the tag from before gets 304 from Spring Data REST, which does not show whether the
+        // mapping expires. The version is remembered from the next full response
+        Mapping other = repository.save(new Mapping("two", "2"));
+        mvc.perform(get(BASE_URL + "/" + other.getId()).accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+        assertNull(versions.version(other.getId()));
+        mvc.perform(get(BASE_URL + "/" + other.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertEquals(Long.valueOf(0), versions.version(other.getId()));
+    }
+
+    @Test
+    public void expiringItemTest() throws Exception {
+        Mapping mapping = new Mapping("session", "1");
+        mapping.setExpiresAt(System.currentTimeMillis() + 500);
+        mapping = repository.save(mapping);
+        String url = BASE_URL + "/" + mapping.getId();
+
+        // Checked by Spring Data REST every time, so the mapping is not found once it has expired, deleted or not
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        assertNull(versions.version(mapping.getId()));
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+
+        Thread.sleep(Math.max(0, mapping.getExpiresAt() - System.currentTimeMillis()));
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void collectionTest() throws Exception {
+        repository.save(new Mapping("one", "1"));
+        String url = BASE_URL + "?page=0&size=10";
+
+        String etag = mvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("W/\""));
+
+        metrics.reset();
+        mvc.perform(get(url).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mvc.perform(get("/metrics/queries"))
+                .andExpect(jsonPath("$['findAll(Pageable)'].count").value(0));
+
+        // Another representation has another tag
+        mvc.perform(get(url).accept(MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        // Any change to the table changes the tag of every collection
+        repository.save(new Mapping("two", "2"));
+        String changed = mvc.perform(get(url).accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.mappings.length()").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+        mvc.perform(get(BASE_URL + "/keyset").accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"x\", " + changed))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        repository.save(new Mapping("one", "1"));
+
+        // A single mapping keeps the version tag of Spring Data REST
+        assertEquals(1, mvc.perform(get(BASE_URL + "/search/findByKey?key=one").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getHeaders(HttpHeaders.ETAG).size());
+
+        String etag = mvc.perform(get(BASE_URL + "/search/findAllByValue?value=1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get(BASE_URL + "/search/findAllByValue?value=1").accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void concurrentChangeTest() {
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+        long changes = versions.changes();
+
+        // Read before a change that was committed before the version was remembered
+        mapping.setValue("11");
+        repository.save(mapping);
+        versions.read(mapping.getId(), 0, changes);
+        assertNull(versions.version(mapping.getId()));
+
+        versions.read(mapping.getId(), 1, versions.changes());
+        assertEquals(Long.valueOf(1), versions.version(mapping.getId()));
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.sas.example.demo.expiry;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static com.sas.example.demo.AsyncRequests.performAsync;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "mapping.expiry.tick=50")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ExpiryTests {
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private MappingBatchRepository batchRepository;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void testExpiredMappingsAreDeleted() throws Exception {
+        Mapping session = expiring("session", 300);
+        repository.save(new Mapping("forever", "1"));
+        assertEquals("session", repository.findByKey("session").getKey());
+        assertNotNull(repository.findOne(session.getId()));
+
+        Thread.sleep(300);
+        // Hidden right away, whether deleted yet or not
+        assertNull(repository.findByKey("session"));
+        assertNull(repository.findOne(session.getId()));
+        assertEquals(1, repository.findAll(new PageRequest(0, 10)).getNumberOfElements());
+
+        await(() -> repository.count() == 1);
+        assertNotNull(repository.findByKey("forever"));
+    }
+
+    @Test
+    public void testExtendedExpiry() throws Exception {
+        Mapping session = expiring("session", 200);
+        session.setExpiresAt(System.currentTimeMillis() + 60000);
+        repository.save(session);
+
+        Thread.sleep(400);
+        assertEquals("session", repository.findByKey("session").getKey());
+
+        session = repository.findByKey("session");
+        session.setExpiresAt(null);
+        repository.save(session);
+        assertNull(repository.findByKey("session").getExpiresAt());
+    }
+
+    @Test
+    public void testKeyOfExpiredMapping() {
+        expiring("session", -1000);
+        // Taken whether the expired mapping was deleted yet or not
+        repository.save(new Mapping("session", "renewed"));
+        assertEquals("renewed", repository.findByKey("session").getValue());
+    }
+
+    @Test
+    public void testExpiredMappingsAreHiddenFromScans() {
+        expiring("a-expired", -1000);
+        repository.save(new Mapping("a-live", "1"));
+        // Hidden whether deleted yet or not
+        assertEquals(Collections.singletonList("a-live"),
+                keys(repository.findByKeyGreaterThanEqualOrderByKeyAsc("a", new PageRequest(0, 10))));
+        assertEquals(Collections.singletonList("a-live"),
+                keys(repository.findAllByOrderByKeyDesc(new PageRequest(0, 10))));
+        assertEquals(Collections.singletonList("a-expired"),
+                batchRepository.findByKeys(Arrays.asList("a-expired", "a-live")).getMissing());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        mvc.perform(post("/mappings").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"session\",\"value\":\"1\",\"ttl\":60}"))
+                .andExpect(status().isCreated());
+        long expiresAt = repository.findByKey("session").getExpiresAt();
+        assertTrue(expiresAt > System.currentTimeMillis() + 50000);
+        mvc.perform(get("/mappings/search/findByKey").param("key", "session"))
+                .andExpect(jsonPath("expiresAt").value(expiresAt));
+
+        performAsync(mvc, put("/kv/token").param("ttl", "1").contentType(MediaType.TEXT_PLAIN).content("t"))
+                .andExpect(status().isCreated());
+        performAsync(mvc, get("/kv/token"))
+                .andExpect(status().isOk());
+        Thread.sleep(1000);
+        performAsync(mvc, get("/kv/token"))
+                .andExpect(status().isNotFound());
+        performAsync(mvc, put("/kv/token").contentType(MediaType.TEXT_PLAIN).content("t"))
+                .andExpect(status().isCreated());
+        assertNull(repository.findByKey("token").getExpiresAt());
+
+        // Cut to the longest time to live rather than overflow into the past
+        Mapping mapping = new Mapping("forever", "1");
+        mapping.setTtl(Long.MAX_VALUE);
+        assertTrue(mapping.getExpiresAt() > System.currentTimeMillis() + 99L * 365 * 24 * 60 * 60 * 1000);
+    }
+
+    @Test
+    public void testTimingWheel() {
+        TimingWheel wheel = new TimingWheel(1000);
+        List<Long> ticks = Arrays.asList(1001L, 1063L, 1064L, 1065L, 1100L, 5096L, 5097L, 300000L, 1000L, 990L);
+        for (int i = 0; i < ticks.size(); i++) {
+            wheel.add(i, ticks.get(i));
+        }
+        // In the top level
+        wheel.add(ticks.size(), 20001000);
+        assertEquals(11, wheel.size());
+
+        // Overdue ids first
+        assertEquals(Arrays.asList(9L, 8L), wheel.advance(1000));
+        List<Long> fired = new ArrayList<>();
+        for (long tick = 1001; tick <= 300000; tick++) {
+            for (long id : wheel.advance(tick)) {
+                assertEquals((long) ticks.get((int) id), tick);
+                fired.add(id);
+            }
+        }
+        Collections.sort(fired);
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L), fired);
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.advance(20000999));
+        assertEquals(Collections.singletonList(10L), wheel.advance(20001000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testTimingWheelMoves() {
+        TimingWheel wheel = new TimingWheel(1000);
+        wheel.add(1, 1010);
+        // Written again with a later expiry, then with none
+        wheel.add(1, 1020);
+        wheel.add(2, 1005);
+        wheel.add(3, 900);
+        wheel.add(4, 900);
+        assertEquals(4, wheel.size());
+        assertTrue(wheel.remove(2));
+        assertFalse(wheel.remove(2));
+        assertTrue(wheel.remove(4));
+        assertEquals(2, wheel.size());
+
+        assertEquals(Collections.singletonList(3L), wheel.advance(1010));
+        assertEquals(Collections.singletonList(1L), wheel.advance(1020));
+        assertEquals(0, wheel.size());
+        assertFalse(wheel.contains(1));
+    }
+
+    private Mapping expiring(String key, long millis) {
+        Mapping mapping = new Mapping(key, "value");
+        mapping.setExpiresAt(System.currentTimeMillis() + millis);
+        return repository.save(mapping);
+    }
+
+    private static List<String> keys(List<Mapping> mappings) {
+        List<String> keys = new ArrayList<>();
+        mappings.forEach(mapping -> keys.add(mapping.getKey()));
+        return keys;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Expired mappings were not deleted", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+}
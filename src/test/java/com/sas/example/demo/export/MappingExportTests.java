@@ -0,0 +1,124 @@
+package com.sas.example.demo.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MappingExportTests {
+
+    private static final String EXPORT_URL = "/mappings/export";
+
+    private MockMvc mvc;
+
+    @Autowired
+    WebApplicationContext webContext;
+
+    @Autowired
+    MappingRepository repository;
+
+    @Autowired
+    MappingExporter exporter;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void emptyExportTest() throws Exception {
+        mvc.perform(get(EXPORT_URL).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void exportTest() throws Exception {
+        IntStream.rangeClosed(1, 2500).forEach(i -> repository.save(new Mapping("key" + i, "value \"" + i + "\"")));
+
+        MvcResult result = mvc.perform(get(EXPORT_URL).accept(MediaType.valueOf("application/x-ndjson")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2500, lines.length);
+
+        ObjectMapper mapper = new ObjectMapper();
+        for (int i = 0; i < lines.length; i++) {
+            // Each line is a bare object, with no separator in front of it
+            assertThat(lines[i]).startsWith("{");
+            JsonNode node = mapper.readTree(lines[i]);
+            assertEquals(i + 1, node.get("id").asLong());
+            assertThat(node.get("key").asText()).isEqualTo("key" + (i + 1));
+            assertThat(node.get("value").asText()).isEqualTo("value \"" + (i + 1) + "\"");
+        }
+
+        // Connections go back to the pool in their normal mode, so regular queries keep working
+        assertEquals(2500, repository.count());
+        assertEquals(2500, exporter.export(new ByteArrayOutputStream()));
+        assertThat(repository.findByKey("key42").getValue()).isEqualTo("value \"42\"");
+    }
+
+    @Test
+    public void rangeExportTest() throws Exception {
+        IntStream.rangeClosed(1, 2500).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+        repository.save(new Mapping("other", "value"));
+
+        // In key order, over several chunks
+        String[] lines = mvc.perform(get(EXPORT_URL).param("prefix", "key").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2500, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> keys = new ArrayList<>();
+        for (String line : lines) {
+            keys.add(mapper.readTree(line).get("key").asText());
+        }
+        List<String> sorted = new ArrayList<>(keys);
+        Collections.sort(sorted);
+        assertEquals(sorted, keys);
+        assertEquals(2500, new HashSet<>(keys).size());
+
+        String range = mvc.perform(get(EXPORT_URL).param("from", "key1000").param("to", "key1002")
+                .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("{\"id\":1000,\"key\":\"key1000\",\"value\":\"value1000\",\"version\":0}\n"
+                + "{\"id\":1001,\"key\":\"key1001\",\"value\":\"value1001\",\"version\":0}\n", range);
+
+        mvc.perform(get(EXPORT_URL).param("prefix", "key").param("to", "key2").accept(MediaType.ALL))
+                .andExpect(status().isBadRequest());
+    }
+
+}
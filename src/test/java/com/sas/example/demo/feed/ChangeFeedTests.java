@@ -0,0 +1,152 @@
+package com.sas.example.demo.feed;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "mapping.feed.buffer-size=4")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ChangeFeedTests {
+
+    private static final String FEED_URL = "/mappings/changes";
+
+    private static final Pattern EVENT = Pattern.compile("id:(\\S+)\nevent:(\\w+)\ndata:(.*)\n\n");
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private ChangeFeed feed;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void streamTest() throws Exception {
+        MvcResult stream = subscribe(get(FEED_URL));
+        mvc.perform(get(FEED_URL)).andExpect(content().contentTypeCompatibleWith(ChangeFeed.TEXT_EVENT_STREAM));
+        assertEquals(2, feed.getSubscribers());
+
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+        mapping.setKey("two");
+        repository.save(mapping);
+        repository.delete(mapping);
+
+        List<String[]> events = await(stream, 3);
+        assertEquals("created", events.get(0)[1]);
+        assertTrue(events.get(0)[2].matches("\\{\"sequence\":1,\"type\":\"CREATED\",\"id\":" + mapping.getId()
+                + ",\"key\":\"one\",\"value\":\"1\",\"version\":0,\"time\":\\d+}"));
+        assertEquals("updated", events.get(1)[1]);
+        assertTrue(events.get(1)[2].contains("\"key\":\"two\",\"value\":\"1\",\"previousKey\":\"one\",\"version\":1"));
+        assertEquals("deleted", events.get(2)[1]);
+        assertTrue(events.get(0)[0].endsWith("-1"));
+        assertTrue(events.get(2)[0].endsWith("-3"));
+    }
+
+    @Test
+    public void prefixTest() throws Exception {
+        MvcResult stream = subscribe(get(FEED_URL).param("prefix", "a"));
+
+        repository.save(new Mapping("b1", "1"));
+        repository.save(new Mapping("a1", "2"));
+        Mapping moved = repository.save(new Mapping("b2", "3"));
+        moved.setKey("a2");
+        repository.save(moved);
+
+        List<String[]> events = await(stream, 2);
+        assertTrue(events.get(0)[2].contains("\"key\":\"a1\""));
+        assertTrue(events.get(1)[2].contains("\"key\":\"a2\""));
+        assertFalse(stream.getResponse().getContentAsString().contains("b1"));
+    }
+
+    @Test
+    public void resumeTest() throws Exception {
+        MvcResult stream = subscribe(get(FEED_URL));
+        repository.save(new Mapping("one", "1"));
+        repository.save(new Mapping("two", "2"));
+        repository.save(new Mapping("three", "3"));
+        String first = await(stream, 3).get(0)[0];
+
+        // As an EventSource reconnects
+        List<String[]> events = await(subscribe(get(FEED_URL).header("Last-Event-ID", first)), 2);
+        assertTrue(events.get(0)[2].contains("\"key\":\"two\""));
+        assertTrue(events.get(1)[2].contains("\"key\":\"three\""));
+
+        events = await(subscribe(get(FEED_URL).param("after", first)), 2);
+        assertTrue(events.get(1)[2].contains("\"key\":\"three\""));
+
+        // Overwritten in the buffer of 4 changes
+        repository.save(new Mapping("four", "4"));
+        repository.save(new Mapping("five", "5"));
+        repository.save(new Mapping("six", "6"));
+        mvc.perform(get(FEED_URL).header("Last-Event-ID", first))
+                .andExpect(status().isGone());
+        // From another run
+        mvc.perform(get(FEED_URL).param("after", "x-2"))
+                .andExpect(status().isGone());
+        mvc.perform(get(FEED_URL).param("after", "x"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult subscribe(RequestBuilder request) throws Exception {
+        return mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    /**
+     * Wait for events to be written to a stream
+     *
+     * @return id, name and data of every event written
+     */
+    private static List<String[]> await(MvcResult stream, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            List<String[]> events = new ArrayList<>();
+            Matcher matcher = EVENT.matcher(stream.getResponse().getContentAsString());
+            while (matcher.find()) {
+                events.add(new String[]{matcher.group(1), matcher.group(2), matcher.group(3)});
+            }
+            if (events.size() >= count || System.currentTimeMillis() > deadline) {
+                assertEquals(count, events.size());
+                return events;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+}
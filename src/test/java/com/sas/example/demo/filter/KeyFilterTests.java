@@ -0,0 +1,130 @@
+package com.sas.example.demo.filter;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.batch.LookupResult;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoApplication.class, properties = "mapping.filter.expected-insertions=100")
+public class KeyFilterTests {
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private MappingBatchRepository batchRepository;
+
+    @Autowired
+    private KeyFilter filter;
+
+    @After
+    public void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void testMissesSkipQuery() {
+        repository.save(new Mapping("one", "1"));
+        long negatives = stat("negatives");
+        long falsePositives = stat("falsePositives");
+
+        for (int i = 0; i < 100; i++) {
+            assertNull(repository.findByKey("missing" + i));
+        }
+        assertEquals("one", repository.findByKey("one").getKey());
+
+        assertEquals(100, stat("negatives") - negatives + stat("falsePositives") - falsePositives);
+        assertTrue(stat("negatives") - negatives > 90);
+    }
+
+    @Test
+    public void testSavedKeysAreFound() {
+        // More keys than the filter was sized for, which rebuilds it meanwhile
+        for (int i = 0; i < 300; i++) {
+            repository.save(new Mapping("key" + i, "value" + i));
+            assertNotNull(repository.findByKey("key" + i));
+        }
+        for (int i = 0; i < 300; i++) {
+            assertNotNull(repository.findByKey("key" + i));
+        }
+
+        Mapping mapping = repository.findByKey("key0");
+        mapping.setKey("renamed");
+        repository.save(mapping);
+        assertEquals("value0", repository.findByKey("renamed").getValue());
+        assertNull(repository.findByKey("key0"));
+    }
+
+    @Test
+    public void testRebuildDropsDeletedKeys() {
+        for (int i = 0; i < 50; i++) {
+            repository.save(new Mapping("key" + i, "value" + i));
+        }
+        repository.deleteAll();
+        assertTrue(filter.mightContain("key1"));
+
+        long builds = stat("builds");
+        filter.rebuild();
+        assertEquals(builds + 1, stat("builds"));
+        assertEquals(0L, stat("keys"));
+        int ruledOut = 0;
+        for (int i = 0; i < 50; i++) {
+            if (!filter.mightContain("key" + i)) {
+                ruledOut++;
+            }
+        }
+        assertTrue(ruledOut > 45);
+    }
+
+    @Test
+    public void testBatchLookup() {
+        repository.save(new Mapping("one", "1"));
+        repository.save(new Mapping("three", "3"));
+
+        LookupResult result = batchRepository.findByKeys(Arrays.asList("zero", "one", "two", "three", "four", "two"));
+        assertEquals(2, result.getMappings().size());
+        assertEquals("one", result.getMappings().get(0).getKey());
+        assertEquals("three", result.getMappings().get(1).getKey());
+        assertEquals(Arrays.asList("zero", "two", "four"), result.getMissing());
+    }
+
+    @Test
+    public void testBloomFilter() {
+        BloomFilter bloom = new BloomFilter(10000, 0.01);
+        assertEquals(7, bloom.getHashes());
+        for (int i = 0; i < 10000; i++) {
+            bloom.add("key" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(bloom.mightContain("key" + i));
+            if (bloom.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200);
+        assertTrue(bloom.falsePositiveProbability() < 0.02);
+        assertFalse(new BloomFilter(10000, 0.01).mightContain("key0"));
+    }
+
+    private long stat(String name) {
+        return ((Number) filter.stats().get(name)).longValue();
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.sas.example.demo.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static com.sas.example.demo.AsyncRequests.performAsync;
+import static com.sas.example.demo.format.BinaryFormatConfiguration.APPLICATION_CBOR;
+import static com.sas.example.demo.format.BinaryFormatConfiguration.APPLICATION_SMILE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BinaryFormatTests {
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @LocalServerPort
+    private int port;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void mappingTest() throws Exception {
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+
+        byte[] body = mvc.perform(get("/mappings/" + mapping.getId()).accept(APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode node = cbor.readTree(body);
+        assertEquals("one", node.get("key").asText());
+        assertEquals("1", node.get("value").asText());
+        assertEquals("http://localhost/mappings/" + mapping.getId(), node.at("/_links/self/href").asText());
+
+        // HAL JSON stays the default
+        mvc.perform(get("/mappings/" + mapping.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaTypes.HAL_JSON));
+    }
+
+    @Test
+    public void pageTest() throws Exception {
+        IntStream.rangeClosed(1, 30).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+
+        byte[] body = mvc.perform(get("/mappings").param("size", "25").accept(APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode page = smile.readTree(body);
+        assertEquals(25, page.at("/_embedded/mappings").size());
+        assertEquals(30, page.at("/page/totalElements").asInt());
+
+        body = mvc.perform(get("/mappings/keyset").param("size", "10").accept(APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(10, cbor.readTree(body).get("mappings").size());
+    }
+
+    @Test
+    public void createTest() throws Exception {
+        byte[] body = cbor.writeValueAsBytes(new Mapping("one", "1"));
+        mvc.perform(post("/mappings").contentType(APPLICATION_CBOR).content(body))
+                .andExpect(status().isCreated());
+        assertEquals("1", repository.findByKey("one").getValue());
+
+        body = smile.writeValueAsBytes(Collections.singletonList(new Mapping("two", "2")));
+        performAsync(mvc, post("/mappings/batch").contentType(APPLICATION_SMILE).content(body).accept(APPLICATION_SMILE))
+                .andExpect(status().isOk());
+        assertEquals("2", repository.findByKey("two").getValue());
+    }
+
+    @Test
+    public void genericBodyTest() throws Exception {
+        BinaryJacksonHttpMessageConverter converter = new BinaryJacksonHttpMessageConverter(new ObjectMapper(),
+                new CBORFactory(), APPLICATION_CBOR);
+        // The body of a handler declared by a generic superclass, as seen by the converter
+        Type type = Handler.class.getMethod("handle", Object.class).getGenericParameterTypes()[0];
+        assertTrue(converter.canRead(type, MappingHandler.class, APPLICATION_CBOR));
+
+        Object read = converter.read(type, MappingHandler.class,
+                new MockHttpInputMessage(cbor.writeValueAsBytes(new Mapping("one", "1"))));
+        assertEquals("one", ((Mapping) read).getKey());
+    }
+
+    @Test
+    public void compressionTest() throws Exception {
+        IntStream.rangeClosed(1, 100).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+
+        HttpURLConnection connection = open("/mappings?size=100");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("gzip", connection.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+        try (InputStream in = new GZIPInputStream(connection.getInputStream())) {
+            JsonNode page = new ObjectMapper().readTree(StreamUtils.copyToByteArray(in));
+            assertEquals(100, page.at("/_embedded/mappings").size());
+        }
+
+        // Below the size threshold
+        connection = open("/kv/key1");
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getHeaderField(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    private HttpURLConnection open(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path)
+                .openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return connection;
+    }
+
+    public abstract static class Handler<T> {
+        public void handle(T body) {
+        }
+    }
+
+    public static class MappingHandler extends Handler<Mapping> {
+    }
+
+}
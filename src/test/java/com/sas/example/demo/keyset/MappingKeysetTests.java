@@ -0,0 +1,180 @@
+package com.sas.example.demo.keyset;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MappingKeysetTests {
+
+    private static final String KEYSET_URL = "/mappings/keyset";
+
+    private static final String PREFIX_URL = "/mappings/search/findByKeyStartingWith";
+
+    private MockMvc mvc;
+
+    @Autowired
+    WebApplicationContext webContext;
+
+    @Autowired
+    MappingRepository repository;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void emptyRepositoryTest() throws Exception {
+        mvc.perform(get(KEYSET_URL).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("mappings").isEmpty())
+                .andExpect(jsonPath("continuation").doesNotExist());
+    }
+
+    @Test
+    public void walkTest() throws Exception {
+        List<String> keys = new ArrayList<>();
+        IntStream.rangeClosed(1, 65).forEach(i -> {
+            repository.save(new Mapping("key" + i, "value" + i));
+            keys.add("key" + i);
+        });
+        // Empty keys are valid and sort first
+        repository.save(new Mapping("", "empty"));
+        keys.add("");
+        Collections.sort(keys);
+
+        assertEquals(keys, walk(KEYSET_URL, 10, 7, "direction", "asc"));
+
+        Collections.reverse(keys);
+        assertEquals(keys, walk(KEYSET_URL, 20, 4, "direction", "desc"));
+
+        // Exactly one full page has no continuation
+        repository.deleteAll();
+        repository.save(new Mapping("one", "1"));
+        mvc.perform(get(KEYSET_URL).param("size", "1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("mappings[0].key").value("one"))
+                .andExpect(jsonPath("mappings[0].value").value("1"))
+                .andExpect(jsonPath("continuation").doesNotExist());
+    }
+
+    @Test
+    public void prefixTest() throws Exception {
+        // Wildcards of LIKE patterns are plain characters in a prefix
+        for (String key : new String[]{"user", "user:", "user:1", "user:1:a", "user:1:b", "user:10", "user:2",
+                "user;", "usera", "use", "a_b", "a_c", "abc", "a%", "ab%"}) {
+            repository.save(new Mapping(key, "value"));
+        }
+
+        List<String> users = Arrays.asList("user:", "user:1", "user:10", "user:1:a", "user:1:b", "user:2");
+        assertEquals(users, walk(PREFIX_URL, 4, 2, "prefix", "user:"));
+        assertEquals(users, walk(KEYSET_URL, 2, 3, "prefix", "user:"));
+        assertEquals(Arrays.asList("user:1", "user:10", "user:1:a", "user:1:b"),
+                walk(PREFIX_URL, 10, 1, "prefix", "user:1"));
+        assertEquals(Arrays.asList("a_b", "a_c"), walk(PREFIX_URL, 10, 1, "prefix", "a_"));
+        assertEquals(Collections.singletonList("a%"), walk(PREFIX_URL, 10, 1, "prefix", "a%"));
+        assertEquals(Collections.emptyList(), walk(PREFIX_URL, 10, 1, "prefix", "nobody"));
+        assertEquals(15, walk(PREFIX_URL, 10, 2, "prefix", "").size());
+    }
+
+    @Test
+    public void rangeTest() throws Exception {
+        IntStream.rangeClosed(10, 99).forEach(i -> repository.save(new Mapping("key" + i, "value" + i)));
+
+        List<String> keys = new ArrayList<>();
+        IntStream.range(20, 40).forEach(i -> keys.add("key" + i));
+        assertEquals(keys, walk(KEYSET_URL, 7, 3, "from", "key20", "to", "key40"));
+        // From is inclusive even if it is not a key, to is exclusive
+        assertEquals(Arrays.asList("key20", "key21"), walk(KEYSET_URL, 7, 1, "from", "key2", "to", "key22"));
+        assertEquals(Arrays.asList("key98", "key99"), walk(KEYSET_URL, 7, 1, "from", "key98"));
+        assertEquals(Arrays.asList("key10", "key11"), walk(KEYSET_URL, 7, 1, "to", "key12"));
+        assertEquals(Collections.emptyList(), walk(KEYSET_URL, 7, 1, "from", "key50", "to", "key50"));
+    }
+
+    @Test
+    public void prefixEndTest() {
+        assertEquals("ac", KeyRange.prefixEnd("ab"));
+        assertEquals("b", KeyRange.prefixEnd("a" + Character.MAX_VALUE));
+        assertNull(KeyRange.prefixEnd(String.valueOf(Character.MAX_VALUE)));
+        assertNull(KeyRange.prefixEnd(""));
+    }
+
+    @Test
+    public void invalidRequestTest() throws Exception {
+        mvc.perform(get(KEYSET_URL).param("continuation", "not base64!").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(KEYSET_URL).param("direction", "sideways").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(KEYSET_URL).param("prefix", "a").param("from", "a").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(KEYSET_URL).param("from", "b").param("to", "a").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(KEYSET_URL).param("prefix", "a").param("direction", "desc")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(PREFIX_URL).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Follow continuation tokens to the end and collect all keys
+     *
+     * @param params, names and values of the request parameters other than size and continuation
+     */
+    private List<String> walk(String url, int size, int expectedPages, String... params) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> keys = new ArrayList<>();
+        String continuation = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get(url)
+                    .param("size", String.valueOf(size))
+                    .accept(MediaType.APPLICATION_JSON);
+            for (int i = 0; i < params.length; i += 2) {
+                request.param(params[i], params[i + 1]);
+            }
+            if (continuation != null) {
+                request.param("continuation", continuation);
+            }
+            String body = mvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = mapper.readTree(body);
+            page.get("mappings").forEach(m -> keys.add(m.get("key").asText()));
+            continuation = page.hasNonNull("continuation") ? page.get("continuation").asText() : null;
+            pages++;
+        } while (continuation != null);
+        assertEquals(expectedPages, pages);
+        return keys;
+    }
+
+}
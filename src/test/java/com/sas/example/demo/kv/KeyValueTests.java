@@ -0,0 +1,112 @@
+package com.sas.example.demo.kv;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.sas.example.demo.AsyncRequests.performAsync;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class KeyValueTests {
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).build();
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        repository.save(new Mapping("one", "1"));
+
+        performAsync(mvc, get("/kv/one"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andExpect(content().string("1"));
+        performAsync(mvc, get("/kv/one").accept(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(content().bytes("1".getBytes(StandardCharsets.UTF_8)));
+        performAsync(mvc, get("/kv/two"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        performAsync(mvc, put("/kv/one").contentType(MediaType.TEXT_PLAIN).content("1"))
+                .andExpect(status().isCreated());
+        assertEquals("1", repository.findByKey("one").getValue());
+
+        performAsync(mvc, put("/kv/one").contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("ünø".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isNoContent());
+        assertEquals("ünø", repository.findByKey("one").getValue());
+        performAsync(mvc, get("/kv/one"))
+                .andExpect(content().bytes("ünø".getBytes(StandardCharsets.UTF_8)));
+
+        performAsync(mvc, put("/kv/one").contentType(MediaType.TEXT_PLAIN))
+                .andExpect(status().isNoContent());
+        assertEquals("", repository.findByKey("one").getValue());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    public void testDotsInKeys() throws Exception {
+        for (String key : new String[]{"config.json", "a.b.c", "file.txt"}) {
+            performAsync(mvc, put("/kv/" + key).contentType(MediaType.TEXT_PLAIN).content(key))
+                    .andExpect(status().isCreated());
+            performAsync(mvc, get("/kv/" + key))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(key));
+        }
+    }
+
+    @Test
+    public void testTooLong() throws Exception {
+        char[] value = new char[Mapping.MAX_VALUE_LENGTH + 1];
+        performAsync(mvc, put("/kv/one").contentType(MediaType.TEXT_PLAIN).content(new String(value)))
+                .andExpect(status().isBadRequest());
+        assertNull(repository.findByKey("one"));
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        repository.save(new Mapping("one", "1"));
+
+        performAsync(mvc, delete("/kv/one"))
+                .andExpect(status().isNoContent());
+        assertNull(repository.findByKey("one"));
+        performAsync(mvc, delete("/kv/one"))
+                .andExpect(status().isNotFound());
+    }
+
+}
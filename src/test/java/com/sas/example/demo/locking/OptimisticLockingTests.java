@@ -0,0 +1,69 @@
+package com.sas.example.demo.locking;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoApplication.class, properties = "mapping.locking.mode=optimistic")
+public class OptimisticLockingTests {
+    @Autowired
+    private MappingRepository repository;
+
+    @After
+    public void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void testStaleWriteConflicts() {
+        long id = repository.save(new Mapping("one", "1")).getId();
+
+        Mapping first = repository.findOne(id);
+        Mapping second = repository.findOne(id);
+
+        first.setValue("first");
+        Mapping saved = repository.save(first);
+        assertEquals(Long.valueOf(1), saved.getVersion());
+
+        second.setValue("second");
+        try {
+            repository.save(second);
+            fail("Stale write must not succeed");
+        }
+        catch (OptimisticLockingFailureException ex) {
+            // expected
+        }
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("first");
+
+        // Re-reading picks up the current version
+        second = repository.findOne(id);
+        second.setValue("second");
+        repository.save(second);
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("second");
+    }
+
+    @Test(expected = OptimisticLockingFailureException.class)
+    public void testStaleDeleteConflicts() {
+        long id = repository.save(new Mapping("one", "1")).getId();
+
+        Mapping stale = repository.findOne(id);
+        Mapping current = repository.findOne(id);
+        current.setValue("11");
+        repository.save(current);
+
+        repository.delete(stale);
+    }
+
+}
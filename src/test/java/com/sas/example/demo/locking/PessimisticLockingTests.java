@@ -0,0 +1,84 @@
+package com.sas.example.demo.locking;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoApplication.class, properties = "mapping.locking.mode=pessimistic")
+public class PessimisticLockingTests {
+    @Autowired
+    private MappingRepository repository;
+
+    @After
+    public void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void testLastWriterWins() {
+        long id = repository.save(new Mapping("one", "1")).getId();
+
+        Mapping first = repository.findOne(id);
+        Mapping second = repository.findOne(id);
+
+        first.setValue("first");
+        repository.save(first);
+
+        // Written over the update it has not seen
+        second.setValue("second");
+        Mapping saved = repository.save(second);
+        assertThat(saved.getValue()).isEqualTo("second");
+        assertEquals(Long.valueOf(2), saved.getVersion());
+
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("second");
+    }
+
+    @Test
+    public void testSaveAllOverStaleCopies() {
+        long one = repository.save(new Mapping("one", "1")).getId();
+        long two = repository.save(new Mapping("two", "2")).getId();
+
+        Mapping staleOne = repository.findOne(one);
+        Mapping staleTwo = repository.findOne(two);
+        repository.save(Arrays.asList(repository.findOne(two), repository.findOne(one)));
+
+        staleOne.setValue("11");
+        staleTwo.setValue("22");
+        repository.save(Arrays.asList(staleTwo, staleOne, new Mapping("three", "3")));
+
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("11");
+        assertThat(repository.findByKey("two").getValue()).isEqualTo("22");
+        assertThat(repository.findByKey("three").getValue()).isEqualTo("3");
+    }
+
+    @Test
+    public void testDeleteStaleCopy() {
+        long id = repository.save(new Mapping("one", "1")).getId();
+
+        Mapping stale = repository.findOne(id);
+        Mapping current = repository.findOne(id);
+        current.setValue("11");
+        repository.save(current);
+
+        repository.delete(stale);
+        assertNull(repository.findByKey("one"));
+
+        // Deleting again is a no-op
+        repository.delete(stale);
+        assertEquals(0, repository.count());
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.sas.example.demo.metrics;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class MetricsTests {
+
+    private MockMvc mvc;
+
+    @Autowired
+    private WebApplicationContext webContext;
+
+    @Autowired
+    private EndpointMetricsFilter filter;
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Before
+    public void init() {
+        mvc = MockMvcBuilders.webAppContextSetup(webContext).addFilters(filter).build();
+    }
+
+    @Test
+    public void testEndpoints() throws Exception {
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+        mvc.perform(get("/mappings/" + mapping.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mvc.perform(get("/mappings/" + mapping.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mvc.perform(get("/mappings/search/findByKey?key=one").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/metrics/endpoints"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['GET /mappings/{id}'].count").value(2))
+                .andExpect(jsonPath("$['GET /mappings/{id}'].failures").value(0))
+                .andExpect(jsonPath("$['GET /mappings/{id}'].max").value(greaterThan(0.0)))
+                .andExpect(jsonPath("$['GET /mappings/search/findByKey'].count").value(1));
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        repository.save(new Mapping("one", "1"));
+        repository.save(new Mapping("two", "2"));
+        repository.findByKey("one");
+        repository.findByKey("three");
+        repository.findAll();
+
+        mvc.perform(get("/metrics/queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['save(Object)'].count").value(2))
+                .andExpect(jsonPath("$['findByKey(String)'].count").value(2))
+                .andExpect(jsonPath("$['findByKey(String)'].rows.max").value(1.0))
+                .andExpect(jsonPath("$['findByKey(String)'].rows.p50").value(0.0))
+                .andExpect(jsonPath("$['findAll()'].rows.max").value(2.0));
+    }
+
+    @Test
+    public void testLockWaits() throws Exception {
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+        mapping.setValue("11");
+        repository.save(mapping);
+        repository.delete(mapping);
+
+        mvc.perform(get("/metrics/locks"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        repository.findByKey("one");
+        mvc.perform(delete("/metrics")).andExpect(status().isNoContent());
+
+        mvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queries['findByKey(String)'].count").value(0))
+                .andExpect(jsonPath("$.pool.max").value(greaterThan(0)));
+    }
+
+}
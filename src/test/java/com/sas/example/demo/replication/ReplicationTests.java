@@ -0,0 +1,207 @@
+package com.sas.example.demo.replication;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.storage.ReadOnlyStoreException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs a replica on another port against the leader of the test
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+        properties = {"mapping.feed.buffer-size=4", "mapping.feed.heartbeat-interval=100",
+                // Expired mappings stay until the end of the test, hidden
+                "mapping.expiry.tick=60000"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReplicationTests {
+
+    private static final long MAX_LAG = 500;
+
+    // Starting and closing the replica included
+    @Rule
+    public Timeout timeout = Timeout.seconds(60);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MappingRepository repository;
+
+    private ConfigurableApplicationContext replica;
+
+    private MappingRepository replicaRepository;
+
+    private Replicator replicator;
+
+    private MockMvc replicaMvc;
+
+    @Before
+    public void init() throws InterruptedException {
+        repository.save(new Mapping("one", "1"));
+        repository.save(new Mapping("two", "2"));
+
+        replica = new SpringApplicationBuilder(DemoApplication.class).run(
+                "--server.port=0",
+                "--mapping.storage.engine=replica",
+                "--mapping.replication.leader=http://localhost:" + port + "/",
+                "--mapping.replication.max-lag=" + MAX_LAG,
+                "--mapping.replication.retry-interval=100",
+                "--mapping.replication.timeout=5000",
+                // Its own database, which would otherwise be dropped with the replica
+                "--spring.datasource.url=jdbc:h2:mem:replica;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jmx.enabled=false",
+                "--spring.main.banner-mode=off");
+        replicaRepository = replica.getBean(MappingRepository.class);
+        replicator = replica.getBean(Replicator.class);
+        replicaMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) replica).build();
+        await(() -> replicator.getState() == Replicator.State.STREAMING);
+    }
+
+    @After
+    public void close() {
+        replica.close();
+    }
+
+    @Test
+    public void replicateTest() throws Exception {
+        Mapping one = repository.findByKey("one");
+        assertEquals(one.getId(), replicaRepository.findByKey("one").getId());
+        assertEquals(2, replicaRepository.count());
+        assertEquals(1, replicator.getSnapshots());
+
+        Mapping three = repository.save(new Mapping("three", "3"));
+        one.setKey("uno");
+        one = repository.save(one);
+        repository.delete(repository.findByKey("two"));
+        await(() -> replicaRepository.findByKey("uno") != null && replicaRepository.findByKey("two") == null);
+
+        assertNull(replicaRepository.findByKey("one"));
+        assertEquals(one.getVersion(), replicaRepository.findOne(one.getId()).getVersion());
+        assertEquals("3", replicaRepository.findOne(three.getId()).getValue());
+        assertEquals(2, replicaRepository.count());
+        replicaMvc.perform(get("/mappings/" + one.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + one.getVersion() + "\""))
+                .andExpect(jsonPath("key").value("uno"));
+        replicaMvc.perform(get("/replication"))
+                .andExpect(jsonPath("state").value("STREAMING"))
+                .andExpect(jsonPath("applied").value(3))
+                .andExpect(jsonPath("behind").value(false));
+    }
+
+    @Test
+    public void expiryTest() throws Exception {
+        Mapping session = new Mapping("session", "1");
+        session.setExpiresAt(System.currentTimeMillis() + 1000);
+        session = repository.save(session);
+        await(() -> replicaRepository.findByKey("session") != null);
+        assertEquals(session.getExpiresAt(), replicaRepository.findByKey("session").getExpiresAt());
+        assertEquals(3, replicaRepository.count());
+
+        Thread.sleep(Math.max(0, session.getExpiresAt() - System.currentTimeMillis()));
+        // Hidden as on the leader, which has not deleted it yet
+        assertNull(repository.findByKey("session"));
+        assertNull(replicaRepository.findByKey("session"));
+        assertNull(replicaRepository.findOne(session.getId()));
+        assertEquals(2, replicaRepository.count());
+        replicaMvc.perform(get("/mappings/" + session.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void writeTest() throws Exception {
+        String leader = "http://localhost:" + port;
+        replicaMvc.perform(post("/mappings").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"key\":\"three\",\"value\":\"3\"}"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string(HttpHeaders.LOCATION, leader + "/mappings"));
+        replicaMvc.perform(put("/kv/three?source=test").contentType(MediaType.TEXT_PLAIN).content("3"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string(HttpHeaders.LOCATION, leader + "/kv/three?source=test"));
+        replicaMvc.perform(delete("/mappings/1"))
+                .andExpect(status().isTemporaryRedirect());
+        replicaMvc.perform(post("/mappings/batch/find").contentType(MediaType.APPLICATION_JSON)
+                .content("[\"one\"]"))
+                .andExpect(request().asyncStarted());
+        assertEquals(2, replicaRepository.count());
+
+        // Writes that get past the redirect are refused as the client's fault
+        try {
+            replicaRepository.save(new Mapping("three", "3"));
+            fail();
+        }
+        catch (ReadOnlyStoreException ex) {
+            ResponseStatus status = AnnotationUtils.findAnnotation(ex.getClass(), ResponseStatus.class);
+            assertEquals(HttpStatus.FORBIDDEN, status.value());
+        }
+    }
+
+    @Test
+    public void catchUpTest() throws Exception {
+        replica.stop();
+        // More changes than the leader buffers
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Mapping("key" + i, "value" + i));
+        }
+        repository.delete(repository.findByKey("one"));
+        Thread.sleep(MAX_LAG + 100);
+        replicaMvc.perform(get("/mappings/search/findByKey").param("key", "two"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        replica.start();
+        await(() -> replicaRepository.count() == 11 && !replicator.isBehind());
+        assertEquals(2, replicator.getSnapshots());
+        assertNull(replicaRepository.findByKey("one"));
+        assertEquals("value9", replicaRepository.findByKey("key9").getValue());
+        replicaMvc.perform(get("/mappings/search/findByKey").param("key", "two"))
+                .andExpect(status().isOk());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Replica did not catch up", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+}
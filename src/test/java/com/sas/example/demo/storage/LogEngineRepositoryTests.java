@@ -0,0 +1,13 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.MappingRepositoryTests;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the repository tests against the log engine
+ */
+@SpringBootTest(classes = DemoApplication.class, properties = {"mapping.storage.engine=log",
+        "mapping.storage.log.directory=build/mapping-log-${random.uuid}"})
+public class LogEngineRepositoryTests extends MappingRepositoryTests {
+}
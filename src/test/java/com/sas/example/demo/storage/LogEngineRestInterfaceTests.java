@@ -0,0 +1,13 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.RestInterfaceTests;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+/**
+ * Runs the REST interface tests against the log engine
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {"mapping.storage.engine=log",
+        "mapping.storage.log.directory=build/mapping-log-${random.uuid}"})
+public class LogEngineRestInterfaceTests extends RestInterfaceTests {
+}
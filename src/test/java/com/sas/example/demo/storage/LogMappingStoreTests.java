@@ -0,0 +1,301 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class LogMappingStoreTests {
+
+    private static final ApplicationEventPublisher NO_EVENTS = new ApplicationEventPublisher() {
+        @Override
+        public void publishEvent(ApplicationEvent event) {
+        }
+
+        @Override
+        public void publishEvent(Object event) {
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<LogMappingStore> stores = new ArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        for (LogMappingStore store : stores) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        LogMappingStore store = open();
+        Mapping one = store.save(new Mapping("one", "1"));
+        Mapping two = store.save(new Mapping("two", "2"));
+        Mapping three = store.save(new Mapping("three", "3"));
+        one.setKey("uno");
+        store.save(one);
+        store.delete(two);
+        // The highest id is deleted, and must not be handed out again
+        store.delete(three);
+        store.close();
+
+        LogMappingStore recovered = open();
+        assertEquals(1, recovered.count());
+        Mapping uno = recovered.findByKey("uno");
+        assertEquals(one.getId(), uno.getId());
+        assertEquals(Long.valueOf(1), uno.getVersion());
+        assertNull(recovered.findByKey("one"));
+        assertEquals(1, recovered.findAllByValue("1").size());
+        assertThat(recovered.save(new Mapping("four", "4")).getId()).isGreaterThan(three.getId());
+    }
+
+    @Test
+    public void testRecoveryFromSnapshot() throws IOException {
+        LogMappingStore store = open();
+        for (int i = 0; i < 100; i++) {
+            store.save(new Mapping("key-" + i, "value-" + i));
+        }
+        store.snapshot();
+        for (int i = 0; i < 100; i += 2) {
+            store.delete(store.findByKey("key-" + i));
+        }
+        Mapping renamed = store.findByKey("key-1");
+        renamed.setKey("renamed");
+        store.save(renamed);
+        store.snapshot();
+        store.save(new Mapping("after", "snapshot"));
+        store.close();
+
+        // Only the last snapshot and the segment after it are left
+        assertEquals(1, WriteAheadLog.list(directory(), "snapshot").size());
+        assertEquals(1, WriteAheadLog.list(directory(), "log").size());
+
+        LogMappingStore recovered = open();
+        assertEquals(51, recovered.count());
+        assertNull(recovered.findByKey("key-0"));
+        assertNull(recovered.findByKey("key-1"));
+        assertEquals("value-1", recovered.findByKey("renamed").getValue());
+        assertEquals("snapshot", recovered.findByKey("after").getValue());
+        assertEquals(keys(store), keys(recovered));
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        LogMappingStore store = open();
+        store.save(new Mapping("one", "1"));
+        store.save(new Mapping("two", "2"));
+        store.close();
+
+        // A crash in the middle of the last record
+        Path segment = WriteAheadLog.segmentFile(directory(), WriteAheadLog.list(directory(), "log").get(0));
+        long size = Files.size(segment);
+        Files.write(segment, WriteAheadLog.written(mapping(3, "three", "3")), StandardOpenOption.APPEND);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+
+        LogMappingStore recovered = open();
+        assertEquals(2, recovered.count());
+        assertNull(recovered.findByKey("three"));
+        assertEquals(size, Files.size(segment));
+        recovered.save(new Mapping("three", "3"));
+        recovered.close();
+        assertEquals(3, open().count());
+    }
+
+    @Test(expected = DataAccessResourceFailureException.class)
+    public void testDamagedSnapshot() throws IOException {
+        LogMappingStore store = open();
+        store.save(new Mapping("one", "1"));
+        store.snapshot();
+        store.close();
+
+        Path snapshot = WriteAheadLog.snapshotFile(directory(), WriteAheadLog.list(directory(), "snapshot").get(0));
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+        open();
+    }
+
+    @Test(expected = ObjectOptimisticLockingFailureException.class)
+    public void testVersionsSurviveRecovery() throws IOException {
+        LogMappingStore store = open(directory(), StorageProperties.Sync.ALWAYS, true);
+        Mapping mapping = store.save(new Mapping("one", "1"));
+        mapping.setValue("2");
+        store.save(mapping);
+        store.close();
+
+        LogMappingStore recovered = open(directory(), StorageProperties.Sync.ALWAYS, true);
+        Mapping stale = recovered.findByKey("one");
+        stale.setVersion(0L);
+        stale.setValue("3");
+        recovered.save(stale);
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        for (StorageProperties.Sync sync : StorageProperties.Sync.values()) {
+            Path directory = folder.newFolder(sync.name()).toPath();
+            LogMappingStore store = open(directory, sync, false);
+            int writers = 8;
+            int keys = 200;
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    int writer = w;
+                    futures.add(executor.submit(() -> {
+                        for (int k = 0; k < keys; k++) {
+                            Mapping mapping = store.save(new Mapping(writer + "-" + k, "v"));
+                            mapping.setValue("w");
+                            store.save(mapping);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            finally {
+                executor.shutdown();
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            }
+            store.close();
+
+            LogMappingStore recovered = open(directory, sync, false);
+            assertEquals(writers * keys, recovered.count());
+            assertEquals(writers * keys, recovered.findAllByValue("w").size());
+        }
+    }
+
+    @Test
+    public void testFailedWriteIsNotApplied() throws IOException {
+        LogMappingStore store = open();
+        Mapping one = store.save(new Mapping("one", "1"));
+        store.close();
+
+        one.setValue("11");
+        for (Runnable write : Arrays.<Runnable>asList(() -> store.save(new Mapping("two", "2")),
+                () -> store.save(one), () -> store.delete(one))) {
+            try {
+                write.run();
+                fail("The log is closed");
+            }
+            catch (DataAccessResourceFailureException ex) {
+                // expected
+            }
+        }
+        assertEquals(1, store.count());
+        assertNull(store.findByKey("two"));
+        assertEquals("1", store.findByKey("one").getValue());
+    }
+
+    @Test(expected = DataAccessResourceFailureException.class)
+    public void testDuplicateKeysAreDamage() throws IOException {
+        LogMappingStore store = open();
+        store.save(new Mapping("one", "1"));
+        store.close();
+
+        Path segment = WriteAheadLog.segmentFile(directory(), WriteAheadLog.list(directory(), "log").get(0));
+        Files.write(segment, WriteAheadLog.written(mapping(2, "one", "2")), StandardOpenOption.APPEND);
+        open();
+    }
+
+    @Test
+    public void testSnapshotsWhileWriting() throws Exception {
+        LogMappingStore store = open();
+        int writers = 4;
+        int keys = 300;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    // Each key is renamed away and then taken by a new mapping, while snapshots are taken
+                    for (int k = 0; k < keys; k++) {
+                        Mapping mapping = store.save(new Mapping(writer + "-" + k, "v"));
+                        mapping.setKey(writer + "-" + k + "-renamed");
+                        store.save(mapping);
+                        store.save(new Mapping(writer + "-" + k, "w"));
+                        if (k % 3 == 0) {
+                            store.delete(store.findByKey(writer + "-" + k + "-renamed"));
+                        }
+                    }
+                }));
+            }
+            while (futures.stream().anyMatch(future -> !future.isDone())) {
+                store.snapshot();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        // Recovered from a snapshot taken while writing, and the segments after it
+        store.close();
+
+        LogMappingStore recovered = open();
+        assertEquals(keys(store), keys(recovered));
+    }
+
+    private LogMappingStore open() {
+        return open(directory(), StorageProperties.Sync.ALWAYS, false);
+    }
+
+    private LogMappingStore open(Path directory, StorageProperties.Sync sync, boolean optimistic) {
+        StorageProperties.Log settings = new StorageProperties.Log();
+        settings.setSync(sync);
+        settings.setSyncInterval(10);
+        // Snapshots are taken by the tests
+        settings.setSnapshotInterval(TimeUnit.HOURS.toMillis(1));
+        LogMappingStore store = new LogMappingStore(directory, settings, 16, optimistic, NO_EVENTS);
+        stores.add(store);
+        return store;
+    }
+
+    private Path directory() {
+        return folder.getRoot().toPath();
+    }
+
+    private static Mapping mapping(long id, String key, String value) {
+        return StoreSupport.mapping(id, key, value, 0L);
+    }
+
+    private static List<String> keys(MappingStore store) {
+        return store.findKeyRange(null, true, Integer.MAX_VALUE).stream()
+                .map(mapping -> mapping.getKey() + "=" + mapping.getValue() + "@" + mapping.getVersion())
+                .collect(Collectors.toList());
+    }
+
+}
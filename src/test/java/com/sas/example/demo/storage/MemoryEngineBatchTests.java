@@ -0,0 +1,13 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.batch.MappingBatchTests;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+/**
+ * Runs the batch tests against the memory engine
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+        properties = {"mapping.storage.engine=memory", "mapping.batch.max-size=1000"})
+public class MemoryEngineBatchTests extends MappingBatchTests {
+}
@@ -0,0 +1,12 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.RestInterfaceTests;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+/**
+ * Runs the REST interface tests against the memory engine
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "mapping.storage.engine=memory")
+public class MemoryEngineRestInterfaceTests extends RestInterfaceTests {
+}
@@ -0,0 +1,132 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingRepository;
+import com.sas.example.demo.batch.BatchResult;
+import com.sas.example.demo.batch.MappingBatchRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoApplication.class, properties = "mapping.storage.engine=memory")
+public class MemoryEngineTests {
+
+    @Autowired
+    private MappingRepository repository;
+
+    @Autowired
+    private MappingBatchRepository batchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void testDatabaseIsNotUsed() {
+        repository.save(new Mapping("one", "1"));
+        BatchResult result = batchRepository.insert(Arrays.asList(new Mapping("two", "2"), new Mapping("one", "11")));
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getConflicts().size());
+
+        assertEquals(2, repository.count());
+        assertEquals(Integer.valueOf(0),
+                jdbcTemplate.queryForObject("select count(*) from STRINGMAPPING", Integer.class));
+    }
+
+    @Test
+    public void testReturnedMappingsAreCopies() {
+        Mapping saved = repository.save(new Mapping("one", "1"));
+        saved.setValue("changed");
+        repository.findByKey("one").setValue("changed");
+
+        assertThat(repository.findByKey("one").getValue()).isEqualTo("1");
+        assertNull(repository.findByValue("changed"));
+    }
+
+    @Test
+    public void testRenameReleasesOldKey() {
+        Mapping mapping = repository.save(new Mapping("one", "1"));
+        mapping.setKey("uno");
+        repository.save(mapping);
+
+        assertNull(repository.findByKey("one"));
+        assertEquals(mapping.getId(), repository.findByKey("uno").getId());
+        repository.save(new Mapping("one", "11"));
+        assertEquals(2, repository.count());
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testKeyTooLong() {
+        char[] key = new char[Mapping.MAX_KEY_LENGTH + 1];
+        Arrays.fill(key, 'k');
+        repository.save(new Mapping(new String(key), "1"));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        int writers = 16;
+        int keys = 200;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    int created = 0;
+                    for (int k = 0; k < keys; k++) {
+                        // Every writer creates its own keys and competes for the shared ones
+                        ids.add(repository.save(new Mapping("own-" + writer + "-" + k, "v")).getId());
+                        try {
+                            repository.save(new Mapping("shared-" + k, String.valueOf(writer)));
+                            created++;
+                        }
+                        catch (DataIntegrityViolationException ex) {
+                            // taken by another writer
+                        }
+                    }
+                    return created;
+                }));
+            }
+            int created = 0;
+            for (Future<Integer> future : futures) {
+                created += future.get();
+            }
+            assertEquals(keys, created);
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(writers * keys, ids.size());
+        assertEquals(writers * keys + keys, repository.count());
+        assertEquals(writers * keys, repository.findAllByValue("v", null).getTotalElements());
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.keyset.MappingKeysetTests;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+
+/**
+ * Runs the keyset tests against the off-heap engine
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "mapping.storage.engine=offheap")
+public class OffHeapEngineKeysetTests extends MappingKeysetTests {
+}
@@ -0,0 +1,13 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.locking.OptimisticLockingTests;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the optimistic locking tests against the off-heap engine
+ */
+@SpringBootTest(classes = DemoApplication.class,
+        properties = {"mapping.storage.engine=offheap", "mapping.locking.mode=optimistic"})
+public class OffHeapEngineOptimisticLockingTests extends OptimisticLockingTests {
+}
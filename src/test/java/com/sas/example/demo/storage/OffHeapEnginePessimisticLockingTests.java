@@ -0,0 +1,13 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.locking.PessimisticLockingTests;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the pessimistic locking tests against the off-heap engine
+ */
+@SpringBootTest(classes = DemoApplication.class,
+        properties = {"mapping.storage.engine=offheap", "mapping.locking.mode=pessimistic"})
+public class OffHeapEnginePessimisticLockingTests extends PessimisticLockingTests {
+}
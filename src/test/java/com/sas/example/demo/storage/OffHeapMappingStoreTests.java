@@ -0,0 +1,198 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OffHeapMappingStoreTests {
+
+    // Small slabs, so that the tests span several of them
+    private static final int SLAB_SIZE = 64 * 1024;
+
+    private final List<MappingEvent> events = new ArrayList<>();
+
+    private OffHeapMappingStore store;
+
+    @Before
+    public void setUp() {
+        store = new OffHeapMappingStore(SLAB_SIZE, false, new ApplicationEventPublisher() {
+            @Override
+            public void publishEvent(ApplicationEvent event) {
+                publishEvent((Object) event);
+            }
+
+            @Override
+            public void publishEvent(Object event) {
+                events.add((MappingEvent) event);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void testNonAsciiRoundTrip() {
+        // 2, 3 and 4 byte UTF-8 sequences
+        String key = "schlüssel-鍵-🔑";
+        String value = "wert-é€😀";
+        Mapping saved = store.save(new Mapping(key, value));
+
+        assertEquals(key, store.findOne(saved.getId()).getKey());
+        assertEquals(value, store.findByKey(key).getValue());
+        assertEquals(1, store.findAllByValue(value).size());
+    }
+
+    @Test
+    public void testKeyOrderMatchesStringOrder() {
+        // Supplementary characters sort below U+FFFF in UTF-16, unlike in UTF-8
+        String[] keys = {"b", "a", "￿", "🔑", "é", "ab", "", "A"};
+        for (String key : keys) {
+            store.save(new Mapping(key, "v"));
+        }
+        List<String> expected = new ArrayList<>(new TreeSet<>(Arrays.asList(keys)));
+
+        assertEquals(expected, keys(store.findKeyRange(null, true, 100)));
+        assertEquals(expected.subList(3, expected.size()), keys(store.findKeyRange(expected.get(2), true, 100)));
+
+        List<String> descending = new ArrayList<>(expected);
+        Collections.reverse(descending);
+        assertEquals(descending.subList(0, 3), keys(store.findKeyRange(null, false, 3)));
+        assertEquals(descending.subList(5, 8), keys(store.findKeyRange(descending.get(4), false, 100)));
+    }
+
+    @Test
+    public void testUpdates() {
+        Mapping mapping = store.save(new Mapping("one", "1"));
+        assertEquals(Long.valueOf(0), mapping.getVersion());
+
+        // Same size class, then a larger one, then a new key
+        mapping.setValue("2");
+        assertEquals(Long.valueOf(1), store.save(mapping).getVersion());
+        mapping.setValue(new String(new char[500]).replace('\0', 'x'));
+        assertEquals(Long.valueOf(2), store.save(mapping).getVersion());
+        mapping.setKey("uno");
+        assertEquals(Long.valueOf(3), store.save(mapping).getVersion());
+        // Unchanged
+        assertEquals(Long.valueOf(3), store.save(mapping).getVersion());
+
+        assertNull(store.findByKey("one"));
+        assertEquals(mapping.getValue(), store.findByKey("uno").getValue());
+        assertEquals(0, store.findAllByValue("2").size());
+        assertEquals(1, store.findAllByValue(mapping.getValue()).size());
+        assertEquals(Collections.singletonList("uno"), keys(store.findKeyRange(null, true, 10)));
+        assertEquals(MappingEvent.Type.UPDATED, events.get(events.size() - 1).getType());
+        assertEquals("one", events.get(events.size() - 1).getPreviousKey());
+        assertEquals(4, events.size());
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testRenameToTakenKey() {
+        store.save(new Mapping("one", "1"));
+        Mapping two = store.save(new Mapping("two", "2"));
+        two.setKey("one");
+        store.save(two);
+    }
+
+    @Test
+    public void testSpaceIsReused() {
+        int count = 2000;
+        List<Mapping> mappings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mappings.add(store.save(new Mapping("key-" + i, "value-" + i)));
+        }
+        long allocated = store.getOffHeapBytes();
+        long used = store.getRecordBytes();
+        assertThat(allocated).isGreaterThan(SLAB_SIZE);
+
+        mappings.forEach(store::delete);
+        assertEquals(0, store.count());
+        assertEquals(0, store.getRecordBytes());
+        assertEquals(0, store.findKeyRange(null, true, 10).size());
+
+        // Keys of the same length, so that the records fit the freed ones
+        for (int i = 0; i < count; i++) {
+            store.save(new Mapping("new-" + i, "value-" + i));
+        }
+        assertEquals(allocated, store.getOffHeapBytes());
+        assertEquals(used, store.getRecordBytes());
+        assertNull(store.findByKey("key-1"));
+        assertEquals("value-1", store.findByKey("new-1").getValue());
+    }
+
+    @Test
+    public void testManyMappings() {
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            store.save(new Mapping("key-" + i, "value-" + (i % 10)));
+        }
+        for (int i = 0; i < count; i += 2) {
+            store.delete(store.findByKey("key-" + i));
+        }
+
+        assertEquals(count / 2, store.count());
+        assertEquals(count / 2, store.streamAll().count());
+        assertEquals(count / 10, store.findAllByValue("value-1").size());
+        assertEquals(0, store.findAllByValue("value-2").size());
+        List<String> keys = keys(store.findKeyRange(null, true, count));
+        assertEquals(count / 2, keys.size());
+        assertEquals(new ArrayList<>(new TreeSet<>(keys)), keys);
+        List<Long> ids = store.streamAll().map(Mapping::getId).collect(Collectors.toList());
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    public void testPopularValue() {
+        int count = 5000;
+        List<Mapping> mappings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mappings.add(store.save(new Mapping("key-" + i, "popular")));
+        }
+        assertEquals(count, store.findAllByValue("popular").size());
+
+        // The first, last and some other entries of the value move away from it, and some are deleted
+        for (int i = 0; i < count; i += 3) {
+            Mapping mapping = store.findOne(mappings.get(i).getId());
+            mapping.setValue("other");
+            store.save(mapping);
+        }
+        store.delete(store.findByKey("key-1"));
+        store.delete(store.findByKey("key-" + (count - 1)));
+        int moved = (count + 2) / 3;
+        assertEquals(count - moved - 2, store.findAllByValue("popular").size());
+        assertEquals(moved, store.findAllByValue("other").size());
+
+        // And back
+        for (int i = 0; i < count; i += 3) {
+            Mapping mapping = store.findOne(mappings.get(i).getId());
+            mapping.setValue("popular");
+            store.save(mapping);
+        }
+        assertEquals(count - 2, store.findAllByValue("popular").size());
+        assertEquals(0, store.findAllByValue("other").size());
+        assertThat(keys(store.findAllByValue("popular"))).doesNotContain("key-1", "key-" + (count - 1));
+    }
+
+    private static List<String> keys(List<Mapping> mappings) {
+        return mappings.stream().map(Mapping::getKey).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.DemoApplication;
+import com.sas.example.demo.MappingRepositoryTests;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the repository tests against the sharded engine
+ */
+@SpringBootTest(classes = DemoApplication.class, properties = "mapping.storage.engine=sharded")
+public class ShardedEngineRepositoryTests extends MappingRepositoryTests {
+}
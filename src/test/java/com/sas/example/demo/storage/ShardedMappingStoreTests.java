@@ -0,0 +1,152 @@
+package com.sas.example.demo.storage;
+
+import com.sas.example.demo.Mapping;
+import com.sas.example.demo.MappingEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ShardedMappingStoreTests {
+
+    private static final int SHARDS = 4;
+
+    private final List<MappingEvent> events = new ArrayList<>();
+
+    private final List<MemoryMappingStore> shards = new ArrayList<>();
+
+    private ShardedMappingStore store;
+
+    @Before
+    public void setUp() {
+        store = new ShardedMappingStore(SHARDS, (shard, publisher) -> {
+            MemoryMappingStore memory = new MemoryMappingStore(16, false, publisher);
+            shards.add(memory);
+            return memory;
+        }, new ApplicationEventPublisher() {
+            @Override
+            public void publishEvent(ApplicationEvent event) {
+                publishEvent((Object) event);
+            }
+
+            @Override
+            public void publishEvent(Object event) {
+                events.add((MappingEvent) event);
+            }
+        });
+    }
+
+    @Test
+    public void testKeysAreSpread() {
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            store.save(new Mapping("key-" + i, "value"));
+        }
+
+        assertEquals(count, store.count());
+        for (MemoryMappingStore shard : shards) {
+            // Within a fifth of an even share
+            assertThat(shard.count()).isBetween((long) (count / SHARDS * 0.8), (long) (count / SHARDS * 1.2));
+        }
+    }
+
+    @Test
+    public void testRouting() {
+        for (int i = 0; i < 100; i++) {
+            Mapping mapping = store.save(new Mapping("key-" + i, "value-" + i));
+            int shard = store.shardOf(mapping.getKey());
+
+            assertEquals(shard, mapping.getId() % SHARDS);
+            assertEquals(mapping.getKey(), shards.get(shard).findOne(mapping.getId() / SHARDS).getKey());
+            assertEquals(mapping.getId(), store.findOne(mapping.getId()).getId());
+            assertEquals(mapping.getId(), store.findByKey(mapping.getKey()).getId());
+            assertEquals(mapping.getId(), events.get(events.size() - 1).getId());
+        }
+        assertNull(store.findOne(SHARDS - 1));
+        assertNull(store.findByKey("key-100"));
+    }
+
+    @Test
+    public void testScatterGather() {
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            store.save(new Mapping("key-" + i, "value-" + (i % 10)));
+        }
+
+        assertEquals(count / 10, store.findAllByValue("value-1").size());
+        List<String> keys = keys(store.findKeyRange(null, true, count));
+        assertEquals(new ArrayList<>(new TreeSet<>(keys)), keys);
+        assertEquals(count, keys.size());
+        assertEquals(keys.subList(11, 21), keys(store.findKeyRange(keys.get(10), true, 10)));
+        assertEquals(keys.subList(10, 20), keys(store.findKeyRange(keys.get(10), true, keys.get(20), 100)));
+        assertEquals(keys.subList(11, 20), keys(store.findKeyRange(keys.get(10), false, keys.get(20), 100)));
+        assertEquals(keys.get(count - 1), store.findKeyRange(null, false, 1).get(0).getKey());
+
+        List<Long> ids = store.streamAll().map(Mapping::getId).collect(Collectors.toList());
+        assertEquals(count, ids.size());
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+
+        store.deleteAll();
+        assertEquals(0, store.count());
+    }
+
+    @Test
+    public void testRenameWithinShard() {
+        Mapping mapping = store.save(new Mapping("one", "1"));
+        String key = otherKey(store.shardOf("one"), true);
+        mapping.setKey(key);
+        Mapping saved = store.save(mapping);
+
+        assertEquals(mapping.getId(), saved.getId());
+        assertNull(store.findByKey("one"));
+        assertEquals(saved.getId(), store.findByKey(key).getId());
+        assertEquals("one", events.get(events.size() - 1).getPreviousKey());
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testRenameAcrossShards() {
+        Mapping mapping = store.save(new Mapping("one", "1"));
+        mapping.setKey(otherKey(store.shardOf("one"), false));
+        store.save(mapping);
+    }
+
+    @Test
+    public void testDelete() {
+        Mapping one = store.save(new Mapping("one", "1"));
+        Mapping two = store.save(new Mapping("two", "2"));
+        store.delete(one);
+
+        assertNull(store.findOne(one.getId()));
+        assertEquals(1, store.count());
+        assertEquals(MappingEvent.Type.DELETED, events.get(events.size() - 1).getType());
+        assertEquals(one.getId(), events.get(events.size() - 1).getId());
+        assertEquals(two.getId(), store.findByKey("two").getId());
+    }
+
+    /**
+     * @return a key of the shard, or of another shard
+     */
+    private String otherKey(int shard, boolean same) {
+        for (int i = 0; ; i++) {
+            String key = "other-" + i;
+            if ((store.shardOf(key) == shard) == same) {
+                return key;
+            }
+        }
+    }
+
+    private static List<String> keys(List<Mapping> mappings) {
+        return mappings.stream().map(Mapping::getKey).collect(Collectors.toList());
+    }
+
+}